@@ -0,0 +1,17 @@
+package org.agilewiki.jactor.benchmarks;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.Mailbox;
+
+/**
+ * Requests sent to an actor with an asynchronous mailbox.
+ */
+public class AsyncSendBenchmark extends ParallelBenchmark {
+    @Override
+    protected Actor createDriver(Mailbox driverMailbox) throws Exception {
+        Echo echo = createEcho(mailboxFactory.createAsyncMailbox());
+        BurstDriver driver = new BurstDriver(echo, burst, false);
+        driver.initialize(driverMailbox);
+        return driver;
+    }
+}
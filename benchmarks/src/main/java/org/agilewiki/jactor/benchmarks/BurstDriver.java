@@ -0,0 +1,57 @@
+package org.agilewiki.jactor.benchmarks;
+
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.parallel.JAResponseCounter;
+
+/**
+ * Sends a burst of pings to an echo actor and responds when all have been processed.
+ */
+public class BurstDriver extends JLPCActor implements Runner {
+    /**
+     * The target of the pings.
+     */
+    private final Echo echo;
+
+    /**
+     * The number of pings sent per operation.
+     */
+    private final int burst;
+
+    /**
+     * True when the pings are sent as events, followed by a single request.
+     */
+    private final boolean events;
+
+    /**
+     * Create a BurstDriver.
+     *
+     * @param echo   The target of the pings.
+     * @param burst  The number of pings sent per operation.
+     * @param events True when the pings are to be sent as events.
+     */
+    public BurstDriver(Echo echo, int burst, boolean events) {
+        this.echo = echo;
+        this.burst = burst;
+        this.events = events;
+    }
+
+    @Override
+    public void run(RP rp) throws Exception {
+        if (events) {
+            int i = 1;
+            while (i < burst) {
+                Ping.req.sendEvent(this, echo);
+                i += 1;
+            }
+            Ping.req.send(this, echo, rp);
+            return;
+        }
+        JAResponseCounter rc = new JAResponseCounter(burst, rp);
+        int i = 0;
+        while (i < burst) {
+            Ping.req.send(this, echo, rc);
+            i += 1;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.agilewiki.jactor.benchmarks;
+
+import org.agilewiki.jactor.pubsub.subscriber.JASubscriber;
+
+/**
+ * A subscriber which is not the target of Ping.
+ */
+public class Bystander extends JASubscriber {
+}
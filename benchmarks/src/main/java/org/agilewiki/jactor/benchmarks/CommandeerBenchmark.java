@@ -0,0 +1,40 @@
+package org.agilewiki.jactor.benchmarks;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.Mailbox;
+import org.agilewiki.jactor.lpc.AdaptiveCommandeerPolicy;
+import org.agilewiki.jactor.lpc.CommandeerPolicy;
+import org.agilewiki.jactor.lpc.JACommandeerPolicy;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Requests sent to an actor with a different, idle mailbox,
+ * which the sender's thread then commandeers.
+ */
+public class CommandeerBenchmark extends ParallelBenchmark {
+    /**
+     * The commandeer policy: none, always, idle (only commandeer mailboxes with no backlog)
+     * or never.
+     */
+    @Param({"none", "always", "idle", "never"})
+    public String policy;
+
+    @Override
+    protected CommandeerPolicy createCommandeerPolicy() {
+        if ("always".equals(policy))
+            return new JACommandeerPolicy();
+        if ("idle".equals(policy))
+            return new AdaptiveCommandeerPolicy(true, 1);
+        if ("never".equals(policy))
+            return new AdaptiveCommandeerPolicy(false, 0);
+        return null;
+    }
+
+    @Override
+    protected Actor createDriver(Mailbox driverMailbox) throws Exception {
+        Echo echo = createEcho(mailboxFactory.createMailbox());
+        BurstDriver driver = new BurstDriver(echo, burst, false);
+        driver.initialize(driverMailbox);
+        return driver;
+    }
+}
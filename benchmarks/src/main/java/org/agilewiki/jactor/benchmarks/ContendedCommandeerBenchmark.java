@@ -0,0 +1,21 @@
+package org.agilewiki.jactor.benchmarks;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.Mailbox;
+
+/**
+ * Requests sent by all the drivers to a single busy actor,
+ * whose backlog is processed by whichever sender commandeers its mailbox.
+ */
+public class ContendedCommandeerBenchmark extends CommandeerBenchmark {
+    private Echo echo;
+
+    @Override
+    protected Actor createDriver(Mailbox driverMailbox) throws Exception {
+        if (echo == null || echo.getMailboxFactory() != mailboxFactory)
+            echo = createEcho(mailboxFactory.createMailbox());
+        BurstDriver driver = new BurstDriver(echo, burst, false);
+        driver.initialize(driverMailbox);
+        return driver;
+    }
+}
@@ -0,0 +1,9 @@
+package org.agilewiki.jactor.benchmarks;
+
+import org.agilewiki.jactor.pubsub.subscriber.JASubscriber;
+
+/**
+ * The target of Ping, which can also subscribe to a publisher.
+ */
+public class Echo extends JASubscriber {
+}
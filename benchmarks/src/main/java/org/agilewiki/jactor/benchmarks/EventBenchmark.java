@@ -0,0 +1,18 @@
+package org.agilewiki.jactor.benchmarks;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.Mailbox;
+
+/**
+ * Events sent to an actor with a different mailbox.
+ * The last message of each burst is a request, so that the driver knows when the burst is done.
+ */
+public class EventBenchmark extends ParallelBenchmark {
+    @Override
+    protected Actor createDriver(Mailbox driverMailbox) throws Exception {
+        Echo echo = createEcho(mailboxFactory.createMailbox());
+        BurstDriver driver = new BurstDriver(echo, burst, true);
+        driver.initialize(driverMailbox);
+        return driver;
+    }
+}
@@ -0,0 +1,130 @@
+package org.agilewiki.jactor.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.agilewiki.jactor.concurrent.JAThreadManager;
+import org.agilewiki.jactor.concurrent.ThreadManager;
+import org.agilewiki.jactor.events.EventProcessor;
+import org.agilewiki.jactor.events.EventQueue;
+import org.agilewiki.jactor.events.JAEventQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Control;
+
+/**
+ * <p>
+ * Three producers put events on a single event queue while a consumer, which holds control
+ * of the queue, dispatches them. The padded layout of JAEventQueue is compared with
+ * UnpaddedEventQueue, the earlier layout, where the control, the notEmpty flag
+ * and the head and tail of the queue all shared cache lines.
+ * </p>
+ * <p>
+ * Producers back off when they get too far ahead of the consumer,
+ * so the put score is bounded by the rate of dispatch.
+ * </p>
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventQueueBenchmark {
+    /**
+     * The number of producers.
+     */
+    static final int PRODUCERS = 3;
+
+    /**
+     * The maximum number of pending events.
+     */
+    static final long LIMIT = 1 << 20;
+
+    /**
+     * The layout of the queue, padded or unpadded.
+     */
+    @Param({"padded", "unpadded"})
+    public String layout;
+
+    private ThreadManager threadManager;
+
+    private EventQueue<Object> queue;
+
+    /**
+     * The number of events dispatched, updated once per dispatch.
+     */
+    private volatile long consumed;
+
+    private long count;
+
+    private final Object event = new Object();
+
+    /**
+     * The count of puts by each producer.
+     */
+    @State(Scope.Thread)
+    public static class Producer {
+        long puts;
+    }
+
+    @Setup
+    public void setup() {
+        threadManager = JAThreadManager.newThreadManager(1);
+        EventQueue<Object> controller;
+        if ("unpadded".equals(layout)) {
+            queue = new UnpaddedEventQueue<Object>(threadManager, false);
+            controller = new UnpaddedEventQueue<Object>(threadManager, false);
+        } else {
+            queue = new JAEventQueue<Object>(threadManager, false);
+            controller = new JAEventQueue<Object>(threadManager, false);
+        }
+        queue.setActiveEventProcessor(new EventProcessor<Object>() {
+            @Override
+            public void haveEvents() {
+            }
+
+            @Override
+            public void processEvent(Object event) {
+                count += 1;
+            }
+        });
+        queue.acquireControl(controller);
+    }
+
+    @TearDown
+    public void tearDown() {
+        threadManager.close();
+    }
+
+    @Benchmark
+    @Group("queue")
+    @GroupThreads(PRODUCERS)
+    public void put(Producer producer, Control control) {
+        queue.putEvent(event);
+        producer.puts += 1;
+        if ((producer.puts & 1023) == 0)
+            while (producer.puts * PRODUCERS - consumed > LIMIT && !control.stopMeasurement)
+                Thread.yield();
+    }
+
+    @Benchmark
+    @Group("queue")
+    @GroupThreads(1)
+    public boolean dispatch() {
+        boolean dispatched = queue.dispatchEvents();
+        consumed = count;
+        return dispatched;
+    }
+}
@@ -0,0 +1,51 @@
+package org.agilewiki.jactor.benchmarks;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.Mailbox;
+import org.agilewiki.jactor.pubsub.publisher.JAPublisher;
+import org.agilewiki.jactor.pubsub.publisher.Subscribe;
+import org.agilewiki.jactor.pubsub.subscriber.JASubscriber;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Publish fan-out to a mix of subscribers, only some of which are targeted by the
+ * published request. Each driver has its own publisher and subscribers,
+ * which share the publisher's mailbox.
+ */
+public class HeterogeneousPublishBenchmark extends ParallelBenchmark {
+    /**
+     * The number of subscribers per publisher.
+     */
+    @Param({"1000"})
+    public int subscribers;
+
+    /**
+     * Every targeted-th subscriber is an Echo, the target of Ping.
+     * The others are bystanders.
+     */
+    @Param({"1", "10", "100"})
+    public int targeted;
+
+    @Override
+    protected Actor createDriver(Mailbox driverMailbox) throws Exception {
+        Mailbox publisherMailbox = mailboxFactory.createMailbox();
+        JAPublisher publisher = new JAPublisher();
+        publisher.initialize(publisherMailbox);
+        int i = 0;
+        while (i < subscribers) {
+            JASubscriber subscriber;
+            if (i % targeted == 0)
+                subscriber = createEcho(publisherMailbox);
+            else {
+                subscriber = new Bystander();
+                subscriber.initialize(publisherMailbox);
+            }
+            subscriber.setActorName("" + i);
+            (new Subscribe(subscriber)).send(future, publisher);
+            i += 1;
+        }
+        PublishDriver driver = new PublishDriver(publisher, burst);
+        driver.initialize(driverMailbox);
+        return driver;
+    }
+}
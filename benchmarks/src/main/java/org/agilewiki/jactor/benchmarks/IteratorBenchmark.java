@@ -0,0 +1,16 @@
+package org.agilewiki.jactor.benchmarks;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.Mailbox;
+
+/**
+ * Empty JAIterator iterations.
+ */
+public class IteratorBenchmark extends ParallelBenchmark {
+    @Override
+    protected Actor createDriver(Mailbox driverMailbox) throws Exception {
+        IteratorDriver driver = new IteratorDriver(burst);
+        driver.initialize(driverMailbox);
+        return driver;
+    }
+}
@@ -0,0 +1,41 @@
+package org.agilewiki.jactor.benchmarks;
+
+import org.agilewiki.jactor.JAIterator;
+import org.agilewiki.jactor.JANull;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+
+/**
+ * Runs a JAIterator for a burst of empty iterations.
+ */
+public class IteratorDriver extends JLPCActor implements Runner {
+    /**
+     * The number of iterations per operation.
+     */
+    private final int burst;
+
+    /**
+     * Create an IteratorDriver.
+     *
+     * @param burst The number of iterations per operation.
+     */
+    public IteratorDriver(int burst) {
+        this.burst = burst;
+    }
+
+    @Override
+    public void run(RP rp) throws Exception {
+        (new JAIterator() {
+            int i;
+
+            @Override
+            protected void process(RP rp1) throws Exception {
+                if (i == burst) rp1.processResponse(JANull.jan);
+                else {
+                    i += 1;
+                    rp1.processResponse(null);
+                }
+            }
+        }).iterate(rp);
+    }
+}
@@ -0,0 +1,57 @@
+package org.agilewiki.jactor.benchmarks;
+
+import org.agilewiki.jactor.JAIterator;
+import org.agilewiki.jactor.JANull;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.simpleMachine.ObjectFunc;
+import org.agilewiki.jactor.simpleMachine.SimpleMachine;
+
+/**
+ * Runs a burst of state machines, each of which pings an echo actor
+ * and returns the response.
+ */
+public class MachineDriver extends JLPCActor implements Runner {
+    /**
+     * The number of state machines run per operation.
+     */
+    private final int burst;
+
+    /**
+     * Defines the state machine.
+     */
+    private final SMBuilder smb = new SMBuilder();
+
+    /**
+     * Create a MachineDriver.
+     *
+     * @param echo  The target of the pings.
+     * @param burst The number of state machines run per operation.
+     */
+    public MachineDriver(Echo echo, int burst) {
+        this.burst = burst;
+        smb._send(echo, Ping.req, "rsp");
+        smb._return(new ObjectFunc() {
+            @Override
+            public Object get(SimpleMachine sm) {
+                return sm.get("rsp");
+            }
+        });
+    }
+
+    @Override
+    public void run(RP rp) throws Exception {
+        (new JAIterator() {
+            int i;
+
+            @Override
+            protected void process(RP rp1) throws Exception {
+                if (i == burst) rp1.processResponse(JANull.jan);
+                else {
+                    i += 1;
+                    smb.call(rp1);
+                }
+            }
+        }).iterate(rp);
+    }
+}
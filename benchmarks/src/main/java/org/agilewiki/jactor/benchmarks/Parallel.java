@@ -0,0 +1,36 @@
+package org.agilewiki.jactor.benchmarks;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.parallel.JAResponseCounter;
+
+/**
+ * Runs a benchmark operation on all the drivers at once
+ * and responds when they have all finished.
+ */
+public class Parallel extends JLPCActor implements Runner {
+    /**
+     * The drivers, each with its own asynchronous mailbox.
+     */
+    private final Actor[] drivers;
+
+    /**
+     * Create a Parallel actor.
+     *
+     * @param drivers The drivers, each with its own asynchronous mailbox.
+     */
+    public Parallel(Actor[] drivers) {
+        this.drivers = drivers;
+    }
+
+    @Override
+    public void run(RP rp) throws Exception {
+        JAResponseCounter rc = new JAResponseCounter(drivers.length, rp);
+        int i = 0;
+        while (i < drivers.length) {
+            Run.req.send(this, drivers[i], rc);
+            i += 1;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.agilewiki.jactor.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.JAFuture;
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.Mailbox;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.lpc.CommandeerPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Base class for the benchmarks. A mailbox factory is created with the given number
+ * of threads and one driver per thread is created, each with its own asynchronous mailbox.
+ * A single benchmark operation runs all the drivers at once, each driver doing a burst
+ * of work, so the reported scores are per (threads * burst) messages.
+ * </p>
+ * <p>
+ * Main runs the benchmarks with the GC profiler, which reports the allocations per operation.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+abstract public class ParallelBenchmark {
+    /**
+     * The number of threads used by the mailbox factory, which is also the number of drivers.
+     */
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    /**
+     * The amount of work each driver does per operation.
+     */
+    @Param({"1", "100", "10000"})
+    public int burst;
+
+    protected MailboxFactory mailboxFactory;
+
+    protected JAFuture future;
+
+    private Parallel parallel;
+
+    @Setup
+    public void setup() throws Exception {
+        JAMailboxFactory jaMailboxFactory = JAMailboxFactory.newMailboxFactory(threads);
+        jaMailboxFactory.setCommandeerPolicy(createCommandeerPolicy());
+        mailboxFactory = jaMailboxFactory;
+        future = new JAFuture();
+        Actor[] drivers = new Actor[threads];
+        int i = 0;
+        while (i < threads) {
+            Mailbox driverMailbox = mailboxFactory.createAsyncMailbox();
+            drivers[i] = createDriver(driverMailbox);
+            drivers[i].setInitialBufferCapacity(burst + 10);
+            i += 1;
+        }
+        parallel = new Parallel(drivers);
+        parallel.initialize(mailboxFactory.createMailbox());
+    }
+
+    @TearDown
+    public void tearDown() {
+        mailboxFactory.close();
+    }
+
+    /**
+     * Create the commandeer policy.
+     *
+     * @return The commandeer policy, or null for the default behavior.
+     */
+    protected CommandeerPolicy createCommandeerPolicy() {
+        return null;
+    }
+
+    /**
+     * Create and initialize a driver.
+     *
+     * @param driverMailbox The driver's mailbox.
+     * @return The driver.
+     */
+    abstract protected Actor createDriver(Mailbox driverMailbox) throws Exception;
+
+    /**
+     * Create an echo actor.
+     *
+     * @param mailbox The echo's mailbox.
+     * @return The echo actor.
+     */
+    protected Echo createEcho(Mailbox mailbox) throws Exception {
+        Echo echo = new Echo();
+        echo.initialize(mailbox);
+        echo.setInitialBufferCapacity(burst + 10);
+        return echo;
+    }
+
+    @Benchmark
+    public Object run() throws Exception {
+        return Run.req.send(future, parallel);
+    }
+}
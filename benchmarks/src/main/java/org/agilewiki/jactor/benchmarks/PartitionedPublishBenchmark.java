@@ -0,0 +1,42 @@
+package org.agilewiki.jactor.benchmarks;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.Mailbox;
+import org.agilewiki.jactor.pubsub.publisher.JAPartitionedPublisher;
+import org.agilewiki.jactor.pubsub.publisher.JAPublisher;
+import org.agilewiki.jactor.pubsub.publisher.Subscribe;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Publish fan-out to a large number of subscribers,
+ * from a single publisher or from a partitioned publisher tree.
+ */
+public class PartitionedPublishBenchmark extends ParallelBenchmark {
+    /**
+     * The number of subscribers per publisher.
+     */
+    @Param({"10000", "100000"})
+    public int subscribers;
+
+    /**
+     * True when a partitioned publisher is used.
+     */
+    @Param({"false", "true"})
+    public boolean partitioned;
+
+    @Override
+    protected Actor createDriver(Mailbox driverMailbox) throws Exception {
+        JAPublisher publisher = partitioned ? new JAPartitionedPublisher() : new JAPublisher();
+        publisher.initialize(mailboxFactory.createMailbox());
+        int i = 0;
+        while (i < subscribers) {
+            Echo echo = createEcho(mailboxFactory.createMailbox());
+            echo.setActorName("" + i);
+            (new Subscribe(echo)).send(future, publisher);
+            i += 1;
+        }
+        PublishDriver driver = new PublishDriver(publisher, burst);
+        driver.initialize(driverMailbox);
+        return driver;
+    }
+}
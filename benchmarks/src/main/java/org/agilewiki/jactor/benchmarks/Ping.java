@@ -0,0 +1,23 @@
+package org.agilewiki.jactor.benchmarks;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * The message used by all the benchmarks, which does no work of its own.
+ */
+public class Ping extends Request<Object, Echo> {
+    public final static Ping req = new Ping();
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Echo;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        rp.processResponse(null);
+    }
+}
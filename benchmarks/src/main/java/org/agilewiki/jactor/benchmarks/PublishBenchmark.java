@@ -0,0 +1,67 @@
+package org.agilewiki.jactor.benchmarks;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.Mailbox;
+import org.agilewiki.jactor.pubsub.publisher.JAPublisher;
+import org.agilewiki.jactor.pubsub.publisher.Subscribe;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Publish fan-out, each driver having its own publisher and subscribers.
+ */
+public class PublishBenchmark extends ParallelBenchmark {
+    /**
+     * The number of subscribers per publisher.
+     */
+    @Param({"10", "1000"})
+    public int subscribers;
+
+    /**
+     * True when the subscribers share the publisher's mailbox.
+     */
+    @Param({"true", "false"})
+    public boolean shared;
+
+    /**
+     * The number of mailboxes over which the subscribers are spread when they
+     * do not share the publisher's mailbox, or 0 for a mailbox per subscriber.
+     */
+    @Param({"0", "4"})
+    public int groups;
+
+    /**
+     * True when the pings are published as events, without responses from the subscribers.
+     */
+    @Param({"false", "true"})
+    public boolean events;
+
+    @Override
+    protected Actor createDriver(Mailbox driverMailbox) throws Exception {
+        Mailbox publisherMailbox = mailboxFactory.createMailbox();
+        JAPublisher publisher = new JAPublisher();
+        publisher.initialize(publisherMailbox);
+        Mailbox[] groupMailboxes = new Mailbox[groups];
+        int i = 0;
+        while (i < groups) {
+            groupMailboxes[i] = mailboxFactory.createMailbox();
+            i += 1;
+        }
+        i = 0;
+        while (i < subscribers) {
+            Mailbox mailbox;
+            if (shared)
+                mailbox = publisherMailbox;
+            else if (groups > 0)
+                mailbox = groupMailboxes[i % groups];
+            else
+                mailbox = mailboxFactory.createMailbox();
+            Echo echo = createEcho(mailbox);
+            echo.setActorName("" + i);
+            (new Subscribe(echo)).send(future, publisher);
+            i += 1;
+        }
+        PublishDriver driver = new PublishDriver(publisher, burst, events);
+        driver.initialize(driverMailbox);
+        return driver;
+    }
+}
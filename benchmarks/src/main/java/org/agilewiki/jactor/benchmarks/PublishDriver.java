@@ -0,0 +1,81 @@
+package org.agilewiki.jactor.benchmarks;
+
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.parallel.JAResponseCounter;
+import org.agilewiki.jactor.pubsub.publisher.JAPublisher;
+import org.agilewiki.jactor.pubsub.publisher.Publish;
+import org.agilewiki.jactor.pubsub.publisher.PublishEvent;
+
+/**
+ * Publishes a burst of pings and responds when every subscriber has processed them.
+ * In events mode, all but the last ping are published as events, without responses.
+ */
+public class PublishDriver extends JLPCActor implements Runner {
+    /**
+     * The publish request, which is reused.
+     */
+    private final Publish publish = new Publish(Ping.req);
+
+    /**
+     * The publish event request, which is reused.
+     */
+    private final PublishEvent publishEvent = new PublishEvent(Ping.req);
+
+    /**
+     * The publisher.
+     */
+    private final JAPublisher publisher;
+
+    /**
+     * The number of publish requests sent per operation.
+     */
+    private final int burst;
+
+    /**
+     * True when the pings are to be published as events, followed by a single request.
+     */
+    private final boolean events;
+
+    /**
+     * Create a PublishDriver.
+     *
+     * @param publisher The publisher.
+     * @param burst     The number of publish requests sent per operation.
+     */
+    public PublishDriver(JAPublisher publisher, int burst) {
+        this(publisher, burst, false);
+    }
+
+    /**
+     * Create a PublishDriver.
+     *
+     * @param publisher The publisher.
+     * @param burst     The number of publish requests sent per operation.
+     * @param events    True when the pings are to be published as events.
+     */
+    public PublishDriver(JAPublisher publisher, int burst, boolean events) {
+        this.publisher = publisher;
+        this.burst = burst;
+        this.events = events;
+    }
+
+    @Override
+    public void run(RP rp) throws Exception {
+        if (events) {
+            int i = 1;
+            while (i < burst) {
+                publishEvent.sendEvent(this, publisher);
+                i += 1;
+            }
+            publish.send(this, publisher, rp);
+            return;
+        }
+        JAResponseCounter rc = new JAResponseCounter(burst, rp);
+        int i = 0;
+        while (i < burst) {
+            publish.send(this, publisher, rc);
+            i += 1;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.agilewiki.jactor.benchmarks;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * Runs one benchmark operation.
+ */
+public class Run extends Request<Object, Runner> {
+    public final static Run req = new Run();
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Runner;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        ((Runner) targetActor).run(rp);
+    }
+}
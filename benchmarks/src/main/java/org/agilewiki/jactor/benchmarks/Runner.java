@@ -0,0 +1,16 @@
+package org.agilewiki.jactor.benchmarks;
+
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.TargetActor;
+
+/**
+ * An actor which runs one benchmark operation.
+ */
+public interface Runner extends TargetActor {
+    /**
+     * Run one benchmark operation.
+     *
+     * @param rp The response processor.
+     */
+    public void run(RP rp) throws Exception;
+}
@@ -0,0 +1,16 @@
+package org.agilewiki.jactor.benchmarks;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.Mailbox;
+
+/**
+ * SimpleMachine executions, each sending one request to an actor with the same mailbox.
+ */
+public class SimpleMachineBenchmark extends ParallelBenchmark {
+    @Override
+    protected Actor createDriver(Mailbox driverMailbox) throws Exception {
+        MachineDriver driver = new MachineDriver(createEcho(driverMailbox), burst);
+        driver.initialize(driverMailbox);
+        return driver;
+    }
+}
@@ -0,0 +1,16 @@
+package org.agilewiki.jactor.benchmarks;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.Mailbox;
+
+/**
+ * Requests sent to an actor with the same mailbox.
+ */
+public class SyncSendBenchmark extends ParallelBenchmark {
+    @Override
+    protected Actor createDriver(Mailbox driverMailbox) throws Exception {
+        BurstDriver driver = new BurstDriver(createEcho(driverMailbox), burst, false);
+        driver.initialize(driverMailbox);
+        return driver;
+    }
+}
@@ -0,0 +1,187 @@
+package org.agilewiki.jactor.benchmarks;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.agilewiki.jactor.concurrent.ThreadManager;
+import org.agilewiki.jactor.events.EventProcessor;
+import org.agilewiki.jactor.events.EventQueue;
+
+/**
+ * The layout of JAEventQueue before its fields were padded,
+ * kept as a baseline for EventQueueBenchmark.
+ *
+ * @param <E> The type of event.
+ */
+final public class UnpaddedEventQueue<E> implements EventQueue<E> {
+    /**
+     * Inhibits the acquireControl operation.
+     */
+    private boolean autonomous;
+
+    /**
+     * Set true when something has been added to the queue.
+     */
+    private volatile boolean notEmpty;
+
+    /**
+     * Provides a thread for processing dispatched events.
+     */
+    private ThreadManager threadManager;
+
+    /**
+     * Process the dispatched events.
+     */
+    private EventProcessor<E> eventProcessor;
+
+    /**
+     * A queue of pending events.
+     */
+    private ConcurrentLinkedQueue<E> queue = new ConcurrentLinkedQueue<E>();
+
+    /**
+     * Set to null when idle, set to this when under internal control,
+     * and is otherwise under external control.
+     */
+    private AtomicReference<EventQueue<E>> atomicControl = new AtomicReference<EventQueue<E>>();
+
+    /**
+     * The task is used to process the events in the queue.
+     * Each events is in turn processed using the UnpaddedEventQueue.
+     */
+    private Runnable task = new Runnable() {
+        @Override
+        public void run() {
+            if (commandeer(UnpaddedEventQueue.this))
+                while (true) {
+                    E event = queue.peek();
+                    if (event == null) {
+                        atomicControl.set(null);
+                        if (queue.peek() == null || !commandeer(UnpaddedEventQueue.this))
+                            return;
+                        if (queue.peek() == null) {
+                            atomicControl.set(null);
+                            return;
+                        }
+                    }
+                    notEmpty = false;
+                    eventProcessor.haveEvents();
+                }
+        }
+    };
+
+    /**
+     * Creates an UnpaddedEventQueue.
+     *
+     * @param threadManager Provides a thread for processing dispatched events.
+     * @param autonomous    Inhibits the acquireControl operation when true.
+     */
+    public UnpaddedEventQueue(ThreadManager threadManager, boolean autonomous) {
+        this.threadManager = threadManager;
+        this.autonomous = autonomous;
+    }
+
+    /**
+     * Take control.
+     *
+     * @param eventQueue The queue wanting to take control.
+     * @return True if control was taken.
+     */
+    private boolean commandeer(EventQueue<E> eventQueue) {
+        if (atomicControl.get() != null)
+            return false;
+        return atomicControl.compareAndSet(null, eventQueue);
+    }
+
+    /**
+     * Gain control of the queue.
+     *
+     * @param eventQueue A queue.
+     * @return True when control was acquired.
+     */
+    @Override
+    public boolean acquireControl(EventQueue<E> eventQueue) {
+        if (autonomous)
+            return false;
+        if (commandeer(eventQueue.getController())) {
+            notEmpty = false;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Relinquish foreign control over the queue.
+     */
+    @Override
+    public void relinquishControl() {
+        EventQueue<E> c = atomicControl.get();
+        if (c == this)
+            return;
+        atomicControl.set(null);
+        if (notEmpty) {
+            threadManager.process(task);
+        }
+    }
+
+    /**
+     * Returns the controlling queue.
+     *
+     * @return The controlling queue.
+     */
+    @Override
+    public EventQueue<E> getController() {
+        EventQueue<E> c = atomicControl.get();
+        if (c == null)
+            return this;
+        return c;
+    }
+
+    /**
+     * Specifies the object which will process the dispatched events.
+     *
+     * @param eventProcessor Processes the dispatched events.
+     */
+    @Override
+    public void setActiveEventProcessor(EventProcessor<E> eventProcessor) {
+        this.eventProcessor = eventProcessor;
+    }
+
+    /**
+     * The isEmpty method returns true when there are no pending events,
+     * though the results may not always be correct due to concurrency issues.
+     */
+    @Override
+    public boolean isEmpty() {
+        return queue.peek() == null;
+    }
+
+    /**
+     * The putEvent method adds an events to the queue of events to be processed
+     * and if idle, start the task.
+     *
+     * @param event The events to be processed.
+     */
+    @Override
+    public void putEvent(E event) {
+        queue.offer(event);
+        notEmpty = true;
+        if (atomicControl.get() == null)
+            threadManager.process(task);
+    }
+
+    /**
+     * The dispatchEvents method processes any events in the queue.
+     * True is returned if any events were actually processed.
+     */
+    @Override
+    public boolean dispatchEvents() {
+        E event = queue.poll();
+        if (event == null) return false;
+        while (event != null) {
+            eventProcessor.processEvent(event);
+            event = queue.poll();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,99 @@
+package org.agilewiki.jactor.benchmarks.latency;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.ExceptionHandler;
+import org.agilewiki.jactor.Mailbox;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.apc.JAMessage;
+import org.agilewiki.jactor.apc.JARequest;
+import org.agilewiki.jactor.apc.JAResponse;
+import org.agilewiki.jactor.bufferedEvents.BufferedEventsDestination;
+import org.agilewiki.jactor.bufferedEvents.BufferedEventsQueue;
+import org.agilewiki.jactor.lpc.Request;
+import org.agilewiki.jactor.lpc.RequestSource;
+
+/**
+ * <p>
+ * Sends requests to actors from non-actor code without waiting for a response.
+ * Unlike JAFuture, any number of requests may be outstanding, and unlike JAEvent
+ * the responses are not discarded.
+ * </p>
+ * <p>
+ * Responses are passed to the RP of the request on the thread of the responding actor,
+ * so the RP must be thread safe.
+ * </p>
+ */
+public class AsyncBridge {
+    /**
+     * Receives the responses as bufferedEvents.
+     */
+    private final BufferedEventsDestination<JAMessage> bufferedEventsDestination =
+            new BufferedEventsDestination<JAMessage>() {
+                @Override
+                public void putBufferedEvents(final List<JAMessage> bufferedEvents) {
+                    int i = 0;
+                    while (i < bufferedEvents.size()) {
+                        final JAResponse jaResponse = (JAResponse) bufferedEvents.get(i);
+                        try {
+                            jaResponse.getRequest().rp.processResponse(
+                                    jaResponse.getUnwrappedResponse());
+                        } catch (final Exception ex) {
+                            throw new UnsupportedOperationException(ex);
+                        }
+                        i += 1;
+                    }
+                }
+            };
+
+    /**
+     * Serves as the originator of the requests.
+     */
+    private final RequestSource requestSource = new RequestSource() {
+        @Override
+        final public Mailbox getMailbox() {
+            return null;
+        }
+
+        @Override
+        public ExceptionHandler getExceptionHandler() {
+            return null;
+        }
+
+        @Override
+        public void setExceptionHandler(final ExceptionHandler exceptionHandler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        final public void responseFrom(
+                final BufferedEventsQueue<JAMessage> eventQueue,
+                final JAResponse japcResponse) {
+            eventQueue.send(bufferedEventsDestination, japcResponse);
+        }
+
+        @Override
+        final public void send(
+                final BufferedEventsDestination<JAMessage> destination,
+                final JARequest japcRequest) {
+            final ArrayList<JAMessage> bufferedEvents = new ArrayList<JAMessage>(1);
+            bufferedEvents.add(japcRequest);
+            destination.putBufferedEvents(bufferedEvents);
+        }
+    };
+
+    /**
+     * Sends a request without waiting for the response.
+     *
+     * @param actor   The target actor.
+     * @param request The unwrapped request.
+     * @param rp      Receives the response, or an exception, on the responding actor's thread.
+     * @throws Exception Any uncaught exceptions raised while sending the request.
+     */
+    public void send(final Actor actor, final Request request, final RP rp)
+            throws Exception {
+        actor.acceptRequest(requestSource, request, rp);
+    }
+}
@@ -0,0 +1,102 @@
+package org.agilewiki.jactor.benchmarks.latency;
+
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.Mailbox;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.benchmarks.Echo;
+
+/**
+ * <p>
+ * Measures request latency percentiles at a fixed request rate, sweeping the number of
+ * threads (1, 2, 4 ... max) and the type of mailbox (createMailbox vs createAsyncMailbox).
+ * </p>
+ * <p>
+ * There is one relay per thread, each with its own asynchronous mailbox. Each relay passes
+ * the requests it receives on to an echo actor, whose mailbox is of the type being measured.
+ * The results are printed and written to a CSV file.
+ * </p>
+ * <pre>
+ *     java -cp target/benchmarks.jar org.agilewiki.jactor.benchmarks.latency.LatencyMain \
+ *         [rate [seconds [maxThreads [csvFile]]]]
+ * </pre>
+ */
+public class LatencyMain {
+    private final static String HEADER =
+            "threads,mailbox,rate,requests,p50_us,p90_us,p99_us,p99.9_us,p99.99_us,max_us";
+
+    public static void main(String[] args) throws Exception {
+        long rate = args.length > 0 ? Long.parseLong(args[0]) : 100000L;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 10L;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) :
+                Runtime.getRuntime().availableProcessors();
+        String csvFile = args.length > 3 ? args[3] : "latency.csv";
+        PrintWriter csv = new PrintWriter(new FileWriter(csvFile));
+        try {
+            csv.println(HEADER);
+            System.out.println(HEADER);
+            int threads = 1;
+            while (true) {
+                report(csv, threads, false, rate, seconds);
+                report(csv, threads, true, rate, seconds);
+                if (threads == maxThreads)
+                    break;
+                threads = Math.min(threads * 2, maxThreads);
+            }
+        } finally {
+            csv.close();
+        }
+    }
+
+    private static void report(PrintWriter csv, int threads, boolean async,
+                               long rate, long seconds) throws Exception {
+        Histogram histogram = measure(threads, async, rate, seconds);
+        String line = "" + threads +
+                "," + (async ? "async" : "sync") +
+                "," + rate +
+                "," + histogram.getTotalCount() +
+                "," + micros(histogram.getValueAtPercentile(50.0)) +
+                "," + micros(histogram.getValueAtPercentile(90.0)) +
+                "," + micros(histogram.getValueAtPercentile(99.0)) +
+                "," + micros(histogram.getValueAtPercentile(99.9)) +
+                "," + micros(histogram.getValueAtPercentile(99.99)) +
+                "," + micros(histogram.getMaxValue());
+        csv.println(line);
+        csv.flush();
+        System.out.println(line);
+    }
+
+    private static Histogram measure(int threads, boolean async,
+                                     long rate, long seconds) throws Exception {
+        MailboxFactory mailboxFactory = JAMailboxFactory.newMailboxFactory(threads);
+        try {
+            Actor[] relays = new Actor[threads];
+            int i = 0;
+            while (i < threads) {
+                Mailbox echoMailbox = async ?
+                        mailboxFactory.createAsyncMailbox() :
+                        mailboxFactory.createMailbox();
+                Echo echo = new Echo();
+                echo.initialize(echoMailbox);
+                Relay relay = new Relay(echo);
+                relay.initialize(mailboxFactory.createAsyncMailbox());
+                relays[i] = relay;
+                i += 1;
+            }
+            LoadGenerator loadGenerator = new LoadGenerator(relays, rate);
+            loadGenerator.run(Math.max(1L, seconds / 5L), TimeUnit.SECONDS);
+            return loadGenerator.run(seconds, TimeUnit.SECONDS);
+        } finally {
+            mailboxFactory.close();
+        }
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1f", nanos / 1000.0);
+    }
+}
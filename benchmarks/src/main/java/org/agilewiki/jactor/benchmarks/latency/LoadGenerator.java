@@ -0,0 +1,102 @@
+package org.agilewiki.jactor.benchmarks.latency;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.benchmarks.Run;
+
+/**
+ * <p>
+ * Sends requests to a set of actors at a fixed rate, round robin,
+ * and records the latency of each request.
+ * </p>
+ * <p>
+ * Requests are sent through an AsyncBridge, so the sending thread never waits for a response,
+ * and latency is measured from the time at which each request was scheduled to be sent rather
+ * than the time it was actually sent. So when the sender falls behind, for example during a GC
+ * pause, the delay is charged to the requests which should have been sent during the pause.
+ * This corrects for coordinated omission.
+ * </p>
+ */
+public class LoadGenerator {
+    /**
+     * Time spent spinning, rather than parking, before each request is sent.
+     */
+    private final static long SPIN_NANOS = 50000L;
+
+    private final AsyncBridge bridge = new AsyncBridge();
+
+    /**
+     * The actors which receive the requests.
+     */
+    private final Actor[] targets;
+
+    /**
+     * Nanoseconds between requests.
+     */
+    private final long interval;
+
+    /**
+     * Records the latencies in nanoseconds.
+     */
+    private final Recorder recorder = new Recorder(3);
+
+    /**
+     * Released once for each response received.
+     */
+    private final Semaphore responses = new Semaphore(0);
+
+    /**
+     * Create a LoadGenerator.
+     *
+     * @param targets The actors which receive the requests.
+     * @param rate    The number of requests per second.
+     */
+    public LoadGenerator(Actor[] targets, long rate) {
+        this.targets = targets;
+        this.interval = 1000000000L / rate;
+    }
+
+    /**
+     * Send requests at a fixed rate and wait for all the responses.
+     *
+     * @param duration How long to send requests.
+     * @param unit     The unit of duration.
+     * @return The latencies in nanoseconds.
+     * @throws Exception Any exceptions raised while sending the requests,
+     *                   or a TimeoutException when the responses do not arrive.
+     */
+    public Histogram run(long duration, TimeUnit unit) throws Exception {
+        int count = (int) (unit.toNanos(duration) / interval);
+        recorder.reset();
+        long start = System.nanoTime();
+        int i = 0;
+        while (i < count) {
+            final long intended = start + i * interval;
+            long wait = intended - System.nanoTime();
+            while (wait > 0) {
+                if (wait > SPIN_NANOS)
+                    LockSupport.parkNanos(wait - SPIN_NANOS);
+                wait = intended - System.nanoTime();
+            }
+            bridge.send(targets[i % targets.length], Run.req, new RP() {
+                @Override
+                public void processResponse(Object response) throws Exception {
+                    recorder.recordValue(System.nanoTime() - intended);
+                    responses.release();
+                }
+            });
+            i += 1;
+        }
+        if (!responses.tryAcquire(count, 60, TimeUnit.SECONDS))
+            throw new TimeoutException(
+                    "" + (count - responses.availablePermits()) + " responses outstanding");
+        return recorder.getIntervalHistogram();
+    }
+}
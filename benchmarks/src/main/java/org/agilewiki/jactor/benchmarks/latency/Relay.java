@@ -0,0 +1,32 @@
+package org.agilewiki.jactor.benchmarks.latency;
+
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.benchmarks.Echo;
+import org.agilewiki.jactor.benchmarks.Ping;
+import org.agilewiki.jactor.benchmarks.Runner;
+import org.agilewiki.jactor.lpc.JLPCActor;
+
+/**
+ * Passes each request on to an echo actor, so that every request
+ * crosses from one mailbox to another.
+ */
+public class Relay extends JLPCActor implements Runner {
+    /**
+     * The target of the pings.
+     */
+    private final Echo echo;
+
+    /**
+     * Create a Relay.
+     *
+     * @param echo The target of the pings.
+     */
+    public Relay(Echo echo) {
+        this.echo = echo;
+    }
+
+    @Override
+    public void run(RP rp) throws Exception {
+        Ping.req.send(this, echo, rp);
+    }
+}
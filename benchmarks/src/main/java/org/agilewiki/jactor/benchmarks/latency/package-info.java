@@ -0,0 +1,8 @@
+/**
+ * <p>
+ * A fixed-rate load generator which records latency percentiles, corrected
+ * for coordinated omission, across thread counts and mailbox types.
+ * </p>
+ */
+
+package org.agilewiki.jactor.benchmarks.latency;
@@ -0,0 +1,19 @@
+/**
+ * <p>
+ * JMH benchmarks for the core messaging paths: sync same-mailbox send, cross-mailbox
+ * commandeer, async send, events, publish fan-out, JAIterator and SimpleMachine.
+ * </p>
+ * <pre>
+ *     mvn install                  (in the JActor directory)
+ *     mvn package                  (in the benchmarks directory)
+ *     java -jar target/benchmarks.jar
+ *     java -jar target/benchmarks.jar SyncSend -p threads=1 -p burst=10000
+ * </pre>
+ * <p>
+ * Each benchmark is parameterized by the number of threads and by the burst size.
+ * An operation is a burst of messages from each of the drivers, one driver per thread.
+ * The bytes allocated per operation are reported as gc.alloc.rate.norm.
+ * </p>
+ */
+
+package org.agilewiki.jactor.benchmarks;
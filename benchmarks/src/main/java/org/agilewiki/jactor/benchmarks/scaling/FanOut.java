@@ -0,0 +1,33 @@
+package org.agilewiki.jactor.benchmarks.scaling;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.benchmarks.Echo;
+
+/**
+ * One actor sending to all the others, each with its own asynchronous mailbox.
+ */
+public class FanOut extends Workload {
+    @Override
+    public String getName() {
+        return "fanout";
+    }
+
+    @Override
+    public Actor setup(MailboxFactory mailboxFactory, int threads, int actors,
+                       long messagesPerRun) throws Exception {
+        int rounds = rounds(actors, messagesPerRun);
+        messages = 2L * actors * rounds;
+        Echo[] echoes = new Echo[actors];
+        int i = 0;
+        while (i < actors) {
+            Echo echo = new Echo();
+            echo.initialize(mailboxFactory.createAsyncMailbox());
+            echoes[i] = echo;
+            i += 1;
+        }
+        FanOutDriver driver = new FanOutDriver(echoes, rounds);
+        driver.initialize(mailboxFactory.createAsyncMailbox());
+        return driver;
+    }
+}
@@ -0,0 +1,51 @@
+package org.agilewiki.jactor.benchmarks.scaling;
+
+import org.agilewiki.jactor.JAIterator;
+import org.agilewiki.jactor.JANull;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.benchmarks.Echo;
+import org.agilewiki.jactor.benchmarks.Ping;
+import org.agilewiki.jactor.benchmarks.Runner;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.parallel.JAResponseCounter;
+
+/**
+ * Sends a ping to every echo actor and waits for all the responses, once per round.
+ */
+public class FanOutDriver extends JLPCActor implements Runner {
+    private final Echo[] echoes;
+
+    private final int rounds;
+
+    /**
+     * Create a FanOutDriver.
+     *
+     * @param echoes The targets of the pings.
+     * @param rounds The number of rounds per run.
+     */
+    public FanOutDriver(Echo[] echoes, int rounds) {
+        this.echoes = echoes;
+        this.rounds = rounds;
+    }
+
+    @Override
+    public void run(RP rp) throws Exception {
+        (new JAIterator() {
+            int i;
+
+            @Override
+            protected void process(RP rp1) throws Exception {
+                if (i == rounds) rp1.processResponse(JANull.jan);
+                else {
+                    i += 1;
+                    JAResponseCounter rc = new JAResponseCounter(echoes.length, rp1);
+                    int j = 0;
+                    while (j < echoes.length) {
+                        Ping.req.send(FanOutDriver.this, echoes[j], rc);
+                        j += 1;
+                    }
+                }
+            }
+        }).iterate(rp);
+    }
+}
@@ -0,0 +1,34 @@
+package org.agilewiki.jactor.benchmarks.scaling;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.benchmarks.Parallel;
+
+/**
+ * One driver per thread, each creating its share of the actors and sending each of them a request,
+ * as in the advanced/many test. Actor and mailbox creation are included in the measurement.
+ */
+public class ManyActors extends Workload {
+    @Override
+    public String getName() {
+        return "many";
+    }
+
+    @Override
+    public Actor setup(MailboxFactory mailboxFactory, int threads, int actors,
+                       long messagesPerRun) throws Exception {
+        int count = Math.max(1, actors / threads);
+        messages = 2L * count * threads;
+        Actor[] drivers = new Actor[threads];
+        int i = 0;
+        while (i < threads) {
+            ManyDriver driver = new ManyDriver(count);
+            driver.initialize(mailboxFactory.createAsyncMailbox());
+            drivers[i] = driver;
+            i += 1;
+        }
+        Parallel parallel = new Parallel(drivers);
+        parallel.initialize(mailboxFactory.createMailbox());
+        return parallel;
+    }
+}
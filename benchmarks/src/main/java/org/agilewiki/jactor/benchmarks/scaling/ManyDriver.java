@@ -0,0 +1,43 @@
+package org.agilewiki.jactor.benchmarks.scaling;
+
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.benchmarks.Echo;
+import org.agilewiki.jactor.benchmarks.Ping;
+import org.agilewiki.jactor.benchmarks.Runner;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.parallel.JAResponseCounter;
+
+/**
+ * Creates new echo actors, alternating between synchronous and asynchronous mailboxes,
+ * and pings each of them once.
+ */
+public class ManyDriver extends JLPCActor implements Runner {
+    private final int count;
+
+    /**
+     * Create a ManyDriver.
+     *
+     * @param count The number of actors created per run.
+     */
+    public ManyDriver(int count) {
+        this.count = count;
+    }
+
+    @Override
+    public void run(RP rp) throws Exception {
+        MailboxFactory mailboxFactory = getMailboxFactory();
+        JAResponseCounter rc = new JAResponseCounter(count, rp);
+        int i = 0;
+        while (i < count) {
+            Echo echo = new Echo();
+            if ((i & 1) == 0) {
+                echo.initialize(mailboxFactory.createMailbox());
+            } else {
+                echo.initialize(mailboxFactory.createAsyncMailbox());
+            }
+            Ping.req.send(this, echo, rc);
+            i += 1;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.agilewiki.jactor.benchmarks.scaling;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+
+/**
+ * Measures the elapsed time, the bytes allocated by all threads and the GC time.
+ */
+public class Meter {
+    private final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private long startNanos;
+
+    private HashMap<Long, Long> startAllocated;
+
+    private long startGCMillis;
+
+    /**
+     * The elapsed time in nanoseconds.
+     */
+    public long nanos;
+
+    /**
+     * The bytes allocated by all threads.
+     */
+    public long allocated;
+
+    /**
+     * The time spent in GC, in milliseconds.
+     */
+    public long gcMillis;
+
+    /**
+     * Begin measuring.
+     */
+    public void start() {
+        startGCMillis = gcMillis();
+        startAllocated = allocatedBytes();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * End measuring.
+     */
+    public void stop() {
+        nanos = System.nanoTime() - startNanos;
+        HashMap<Long, Long> stopAllocated = allocatedBytes();
+        allocated = 0;
+        for (Long threadId : stopAllocated.keySet()) {
+            Long b = startAllocated.get(threadId);
+            allocated += stopAllocated.get(threadId) - (b == null ? 0L : b);
+        }
+        gcMillis = gcMillis() - startGCMillis;
+    }
+
+    /**
+     * Returns the bytes allocated by each live thread.
+     * Threads are tracked individually, as threads which exit must not be counted.
+     *
+     * @return The bytes allocated, keyed by thread id.
+     */
+    private HashMap<Long, Long> allocatedBytes() {
+        long[] threadIds = threadMXBean.getAllThreadIds();
+        long[] allocated = threadMXBean.getThreadAllocatedBytes(threadIds);
+        HashMap<Long, Long> bytes = new HashMap<Long, Long>();
+        int i = 0;
+        while (i < threadIds.length) {
+            if (allocated[i] >= 0)
+                bytes.put(threadIds[i], allocated[i]);
+            i += 1;
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the total time spent in GC.
+     *
+     * @return The total time spent in GC, in milliseconds.
+     */
+    private long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            long t = gc.getCollectionTime();
+            if (t > 0)
+                total += t;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,37 @@
+package org.agilewiki.jactor.benchmarks.scaling;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.benchmarks.Echo;
+import org.agilewiki.jactor.benchmarks.Parallel;
+
+/**
+ * Pairs of actors, each with its own mailbox, exchanging one request at a time.
+ */
+public class PingPong extends Workload {
+    @Override
+    public String getName() {
+        return "pingpong";
+    }
+
+    @Override
+    public Actor setup(MailboxFactory mailboxFactory, int threads, int actors,
+                       long messagesPerRun) throws Exception {
+        int pairs = Math.max(1, actors / 2);
+        int rounds = rounds(pairs, messagesPerRun);
+        messages = 2L * pairs * rounds;
+        Actor[] drivers = new Actor[pairs];
+        int i = 0;
+        while (i < pairs) {
+            Echo echo = new Echo();
+            echo.initialize(mailboxFactory.createMailbox());
+            PingPongDriver driver = new PingPongDriver(echo, rounds);
+            driver.initialize(mailboxFactory.createAsyncMailbox());
+            drivers[i] = driver;
+            i += 1;
+        }
+        Parallel parallel = new Parallel(drivers);
+        parallel.initialize(mailboxFactory.createMailbox());
+        return parallel;
+    }
+}
@@ -0,0 +1,45 @@
+package org.agilewiki.jactor.benchmarks.scaling;
+
+import org.agilewiki.jactor.JAIterator;
+import org.agilewiki.jactor.JANull;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.benchmarks.Echo;
+import org.agilewiki.jactor.benchmarks.Ping;
+import org.agilewiki.jactor.benchmarks.Runner;
+import org.agilewiki.jactor.lpc.JLPCActor;
+
+/**
+ * Sends pings to an echo actor, one at a time.
+ */
+public class PingPongDriver extends JLPCActor implements Runner {
+    private final Echo echo;
+
+    private final int rounds;
+
+    /**
+     * Create a PingPongDriver.
+     *
+     * @param echo   The target of the pings.
+     * @param rounds The number of pings per run.
+     */
+    public PingPongDriver(Echo echo, int rounds) {
+        this.echo = echo;
+        this.rounds = rounds;
+    }
+
+    @Override
+    public void run(RP rp) throws Exception {
+        (new JAIterator() {
+            int i;
+
+            @Override
+            protected void process(RP rp1) throws Exception {
+                if (i == rounds) rp1.processResponse(JANull.jan);
+                else {
+                    i += 1;
+                    Ping.req.send(PingPongDriver.this, echo, rp1);
+                }
+            }
+        }).iterate(rp);
+    }
+}
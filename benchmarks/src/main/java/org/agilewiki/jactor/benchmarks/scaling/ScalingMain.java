@@ -0,0 +1,106 @@
+package org.agilewiki.jactor.benchmarks.scaling;
+
+import java.io.FileWriter;
+import java.io.PrintWriter;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.JAFuture;
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.benchmarks.Run;
+
+/**
+ * <p>
+ * Measures how throughput scales with the number of threads (1, 2, 4 ... maxThreads) and
+ * the number of actors (10, 100 ... maxActors) for the pingpong, fanout and many workloads.
+ * Throughput, bytes allocated per message and GC time are printed and written to a CSV file.
+ * </p>
+ * <pre>
+ *     java -Xmx8g -cp target/benchmarks.jar org.agilewiki.jactor.benchmarks.scaling.ScalingMain \
+ *         [workloads [maxThreads [maxActors [messagesPerRun [csvFile]]]]]
+ * </pre>
+ * <p>
+ * Workloads is a comma-separated list, defaulting to pingpong,fanout,many.
+ * </p>
+ */
+public class ScalingMain {
+    private final static String HEADER =
+            "workload,threads,actors,messages,seconds,msgs_per_sec,bytes_per_msg,gc_ms";
+
+    /**
+     * The number of measured runs at each point.
+     */
+    private final static int RUNS = 3;
+
+    public static void main(String[] args) throws Exception {
+        String workloads = args.length > 0 ? args[0] : "pingpong,fanout,many";
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) :
+                Runtime.getRuntime().availableProcessors();
+        int maxActors = args.length > 2 ? Integer.parseInt(args[2]) : 1000000;
+        long messagesPerRun = args.length > 3 ? Long.parseLong(args[3]) : 2000000L;
+        String csvFile = args.length > 4 ? args[4] : "scaling.csv";
+        PrintWriter csv = new PrintWriter(new FileWriter(csvFile));
+        try {
+            csv.println(HEADER);
+            System.out.println(HEADER);
+            for (String name : workloads.split(",")) {
+                int threads = 1;
+                while (true) {
+                    int actors = 10;
+                    while (actors <= maxActors) {
+                        report(csv, workload(name), threads, actors, messagesPerRun);
+                        actors *= 10;
+                    }
+                    if (threads == maxThreads)
+                        break;
+                    threads = Math.min(threads * 2, maxThreads);
+                }
+            }
+        } finally {
+            csv.close();
+        }
+    }
+
+    private static Workload workload(String name) {
+        if ("pingpong".equals(name))
+            return new PingPong();
+        if ("fanout".equals(name))
+            return new FanOut();
+        if ("many".equals(name))
+            return new ManyActors();
+        throw new IllegalArgumentException("unknown workload: " + name);
+    }
+
+    private static void report(PrintWriter csv, Workload workload, int threads, int actors,
+                               long messagesPerRun) throws Exception {
+        Meter meter = new Meter();
+        MailboxFactory mailboxFactory = JAMailboxFactory.newMailboxFactory(threads);
+        try {
+            Actor actor = workload.setup(mailboxFactory, threads, actors, messagesPerRun);
+            JAFuture future = new JAFuture();
+            Run.req.send(future, actor);
+            meter.start();
+            int i = 0;
+            while (i < RUNS) {
+                Run.req.send(future, actor);
+                i += 1;
+            }
+            meter.stop();
+        } finally {
+            mailboxFactory.close();
+        }
+        long messages = workload.messages * RUNS;
+        double seconds = meter.nanos / 1000000000.0;
+        String line = workload.getName() +
+                "," + threads +
+                "," + actors +
+                "," + messages +
+                "," + String.format("%.3f", seconds) +
+                "," + (long) (messages / seconds) +
+                "," + String.format("%.1f", (double) meter.allocated / messages) +
+                "," + meter.gcMillis;
+        csv.println(line);
+        csv.flush();
+        System.out.println(line);
+    }
+}
@@ -0,0 +1,44 @@
+package org.agilewiki.jactor.benchmarks.scaling;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.MailboxFactory;
+
+/**
+ * A workload whose throughput is measured by ScalingMain.
+ */
+abstract public class Workload {
+    /**
+     * The number of messages passed in each run.
+     */
+    public long messages;
+
+    /**
+     * Returns the name of the workload.
+     *
+     * @return The name used in the report.
+     */
+    abstract public String getName();
+
+    /**
+     * Create the actors used by the workload.
+     *
+     * @param mailboxFactory  The mailbox factory.
+     * @param threads         The number of threads used by the mailbox factory.
+     * @param actors          The number of actors.
+     * @param messagesPerRun  The approximate number of messages to be passed in each run.
+     * @return The actor to which Run requests are sent.
+     */
+    abstract public Actor setup(MailboxFactory mailboxFactory, int threads, int actors,
+                                long messagesPerRun) throws Exception;
+
+    /**
+     * Returns the number of times each actor is to be messaged in a run.
+     *
+     * @param actors         The number of actors.
+     * @param messagesPerRun The approximate number of messages to be passed in each run.
+     * @return The number of rounds, at least 1.
+     */
+    protected int rounds(int actors, long messagesPerRun) {
+        return (int) Math.max(1L, messagesPerRun / (2L * actors));
+    }
+}
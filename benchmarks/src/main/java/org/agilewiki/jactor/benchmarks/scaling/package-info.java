@@ -0,0 +1,8 @@
+/**
+ * <p>
+ * A scaling-curve suite, measuring throughput, allocation and GC time
+ * across thread counts and actor counts.
+ * </p>
+ */
+
+package org.agilewiki.jactor.benchmarks.scaling;
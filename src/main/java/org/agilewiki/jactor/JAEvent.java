@@ -76,6 +76,7 @@ public class JAEvent {
 
     /**
      * Sends a request without having to wait for a response.
+     * Any response is discarded.
      *
      * @param actor   The target actor.
      * @param request The request.
@@ -83,6 +84,6 @@ public class JAEvent {
     public void sendEvent(final Actor actor,
                           final Request request)
             throws Exception {
-        actor.acceptRequest(requestSource, request, JANoResponse.nrp);
+        actor.acceptEvent(requestSource, request);
     }
 }
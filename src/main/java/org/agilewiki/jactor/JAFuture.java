@@ -56,6 +56,11 @@ final public class JAFuture {
      */
     private transient Object result;
 
+    /**
+     * The request awaiting a response, or null.
+     */
+    private volatile JARequest pending;
+
     /**
      * Receives the response as a bufferedEvent.
      */
@@ -63,6 +68,7 @@ final public class JAFuture {
         @Override
         public void putBufferedEvents(final List<JAMessage> bufferedEvents) {
             final JAResponse japcResponse = (JAResponse) bufferedEvents.get(0);
+            pending = null;
             result = japcResponse.getUnwrappedResponse();
             done.release();
         }
@@ -101,6 +107,7 @@ final public class JAFuture {
             final ArrayList<JAMessage> bufferedEvents = new ArrayList<JAMessage>(
                     1);
             bufferedEvents.add(japcRequest);
+            pending = japcRequest;
             destination.putBufferedEvents(bufferedEvents);
         }
     };
@@ -131,4 +138,19 @@ final public class JAFuture {
             throw (Error) result;
         return result;
     }
+
+    /**
+     * Cancels the request awaiting a response, if any. May be called from any thread.
+     * A request which has not yet been dispatched is skipped,
+     * and send throws a CancellationException.
+     *
+     * @return False when no request was awaiting a response.
+     */
+    public boolean cancel() {
+        final JARequest r = pending;
+        if (r == null)
+            return false;
+        r.cancel();
+        return true;
+    }
 }
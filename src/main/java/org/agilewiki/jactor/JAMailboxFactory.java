@@ -29,8 +29,11 @@ import java.util.Timer;
 
 import org.agilewiki.jactor.concurrent.JAThreadManager;
 import org.agilewiki.jactor.concurrent.ThreadManager;
+import org.agilewiki.jactor.lpc.CommandeerPolicy;
 import org.agilewiki.jactor.lpc.JLPCMailbox;
 import org.agilewiki.jactor.lpc.Request;
+import org.agilewiki.jactor.scheduler.JAScheduler;
+import org.agilewiki.jactor.scheduler.Scheduler;
 
 /**
  * <p>
@@ -49,15 +52,44 @@ import org.agilewiki.jactor.lpc.Request;
 public class JAMailboxFactory implements MailboxFactory {
     private final List<Closable> closables = new ArrayList<Closable>();
     private Timer timer = null;
+    private Scheduler scheduler = null;
+    private boolean closed = false;
+    private volatile CommandeerPolicy commandeerPolicy = null;
 
+    @Deprecated
     @Override
-    public Timer timer() throws Exception {
+    public synchronized Timer timer() throws Exception {
         if (timer == null) {
             timer = new Timer();
         }
         return timer;
     }
 
+    @Override
+    public synchronized Scheduler scheduler() {
+        if (closed)
+            throw new IllegalStateException("closed");
+        if (scheduler == null) {
+            scheduler = new JAScheduler(this);
+        }
+        return scheduler;
+    }
+
+    @Override
+    public CommandeerPolicy getCommandeerPolicy() {
+        return commandeerPolicy;
+    }
+
+    /**
+     * Set the policy which decides when a mailbox is commandeered by a sender.
+     * By default mailboxes are always commandeered when not busy.
+     *
+     * @param commandeerPolicy The commandeer policy, or null for the default behavior.
+     */
+    public void setCommandeerPolicy(final CommandeerPolicy commandeerPolicy) {
+        this.commandeerPolicy = commandeerPolicy;
+    }
+
     /**
      * The thread manager.
      */
@@ -114,6 +146,11 @@ public class JAMailboxFactory implements MailboxFactory {
         }
         if (timer != null)
             timer.cancel();
+        synchronized (this) {
+            closed = true;
+            if (scheduler != null)
+                scheduler.close();
+        }
         threadManager.close();
     }
 
@@ -123,7 +160,7 @@ public class JAMailboxFactory implements MailboxFactory {
      * @return A new mailbox.
      */
     @Override
-    final public Mailbox createMailbox() {
+    public Mailbox createMailbox() {
         final JLPCMailbox mailbox = new JLPCMailbox(this);
         return mailbox;
     }
@@ -134,7 +171,7 @@ public class JAMailboxFactory implements MailboxFactory {
      * @return A new asynchronous mailbox.
      */
     @Override
-    final public Mailbox createAsyncMailbox() {
+    public Mailbox createAsyncMailbox() {
         final JLPCMailbox mailbox = new JLPCMailbox(this, true);
         return mailbox;
     }
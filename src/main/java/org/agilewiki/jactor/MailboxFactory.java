@@ -26,7 +26,9 @@ package org.agilewiki.jactor;
 import java.util.Timer;
 
 import org.agilewiki.jactor.concurrent.ThreadManager;
+import org.agilewiki.jactor.lpc.CommandeerPolicy;
 import org.agilewiki.jactor.lpc.Request;
+import org.agilewiki.jactor.scheduler.Scheduler;
 
 /**
  * Creates Mailboxes and provides access to the thread manager.
@@ -67,5 +69,28 @@ public interface MailboxFactory {
     public void logException(final boolean fatal, final String msg,
             final Throwable exception);
 
+    /**
+     * Returns a java.util.Timer.
+     *
+     * @return The timer.
+     * @deprecated Use the scheduler, which scales to many more pending timeouts.
+     */
+    @Deprecated
     public Timer timer() throws Exception;
+
+    /**
+     * Returns the scheduler, which delivers timer events to the mailboxes of actors.
+     *
+     * @return The scheduler.
+     * @throws IllegalStateException When the mailbox factory has been closed.
+     */
+    public Scheduler scheduler();
+
+    /**
+     * Returns the policy which decides when a mailbox is commandeered by a sender,
+     * or null when mailboxes are always commandeered.
+     *
+     * @return The commandeer policy, or null.
+     */
+    public CommandeerPolicy getCommandeerPolicy();
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.apc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.agilewiki.jactor.bufferedEvents.BufferedEventsDestination;
+import org.agilewiki.jactor.bufferedEvents.BufferedEventsQueue;
+import org.agilewiki.jactor.events.EventProcessor;
+import org.agilewiki.jactor.events.EventQueue;
+import org.agilewiki.jactor.scheduler.Timeout;
+
+/**
+ * Returns a TimeoutException in place of the response to a request
+ * which has not been answered in time.
+ * Whichever of the response and the timeout claims the request first is returned,
+ * and the other is discarded.
+ */
+final class Deadline implements Runnable {
+    /**
+     * Passes a single response straight to its destination,
+     * as the timer thread has no buffered events queue of its own.
+     */
+    private final static BufferedEventsQueue<JAMessage> direct =
+            new BufferedEventsQueue<JAMessage>() {
+                @Override
+                public void sendPendingEvents() {
+                }
+
+                @Override
+                public void setInitialBufferCapacity(int initialBufferCapacity) {
+                }
+
+                @Override
+                public void send(BufferedEventsDestination<JAMessage> destination,
+                                 JAMessage event) {
+                    List<JAMessage> bufferedEvents = new ArrayList<JAMessage>(1);
+                    bufferedEvents.add(event);
+                    destination.putBufferedEvents(bufferedEvents);
+                }
+
+                @Override
+                public void putBufferedEvents(List<JAMessage> bufferedEvents) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public EventQueue<List<JAMessage>> getEventQueue() {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void setActiveEventProcessor(
+                        EventProcessor<JAMessage> activeEventProcessor) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public boolean isEmpty() {
+                    return true;
+                }
+
+                @Override
+                public boolean dispatchEvents() {
+                    return false;
+                }
+            };
+
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    private final long millis;
+
+    private JARequest jaRequest;
+
+    /**
+     * The scheduled timeout, cancelled when the response wins.
+     */
+    volatile Timeout timeout;
+
+    /**
+     * Create a Deadline.
+     *
+     * @param jaRequest The request.
+     * @param timeout   The timeout in milliseconds.
+     */
+    Deadline(JARequest jaRequest, long timeout) {
+        this.jaRequest = jaRequest;
+        millis = timeout;
+    }
+
+    /**
+     * Claims the right to return the response.
+     *
+     * @return True when this is the first claim.
+     */
+    boolean claim() {
+        if (!claimed.compareAndSet(false, true))
+            return false;
+        jaRequest = null;
+        Timeout t = timeout;
+        if (t != null)
+            t.cancel();
+        return true;
+    }
+
+    @Override
+    public void run() {
+        JARequest r = jaRequest;
+        jaRequest = null;
+        if (!claimed.compareAndSet(false, true))
+            return;
+        r.cancel();
+        r.response(direct, new TimeoutException(
+                "no response within " + millis + " ms to " +
+                        r.getUnwrappedRequest().getClass().getName()));
+    }
+}
@@ -24,6 +24,7 @@
 package org.agilewiki.jactor.apc;
 
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 import org.agilewiki.jactor.ExceptionHandler;
 import org.agilewiki.jactor.MailboxFactory;
@@ -33,6 +34,7 @@ import org.agilewiki.jactor.bufferedEvents.JABufferedEventsQueue;
 import org.agilewiki.jactor.concurrent.ThreadManager;
 import org.agilewiki.jactor.events.EventProcessor;
 import org.agilewiki.jactor.events.EventQueue;
+import org.agilewiki.jactor.lpc.JLPCActor;
 
 /**
  * An implementation of APCMailbox.
@@ -74,35 +76,14 @@ public class JAPCMailbox implements APCMailbox {
                     @Override
                     public void processEvent(final JAMessage event) {
                         if (event instanceof JARequest) {
-                            currentRequest = (JARequest) event;
-                            try {
-                                setExceptionHandler(null);
-                                currentRequest.getUnwrappedRequest()
-                                        .processRequest(
-                                                currentRequest
-                                                        .getDestinationActor(),
-                                                currentRequest);
-                            } catch (final Throwable ex) {
-                                if (exceptionHandler == null) {
-                                    if (currentRequest.isEvent()) {
-                                        mailboxFactory.eventException(
-                                                currentRequest
-                                                        .getUnwrappedRequest(),
-                                                ex);
-                                    } else
-                                        response(currentRequest, ex);
-                                } else
-                                    try {
-                                        exceptionHandler.process(ex);
-                                    } catch (final Throwable ex2) {
-                                        if (currentRequest.isEvent()) {
-                                            mailboxFactory.eventException(
-                                                    currentRequest
-                                                            .getUnwrappedRequest(),
-                                                    ex2);
-                                        } else
-                                            response(currentRequest, ex);
-                                    }
+                            JARequest jaRequest = (JARequest) event;
+                            final JLPCActor actor = jaRequest
+                                    .getDestinationActor();
+                            if (!actor.dispatch(JAPCMailbox.this, jaRequest))
+                                return;
+                            while (jaRequest != null) {
+                                processRequest(jaRequest);
+                                jaRequest = actor.released(JAPCMailbox.this);
                             }
                         } else {
                             final JAResponse jaResponse = (JAResponse) event;
@@ -110,6 +91,7 @@ public class JAPCMailbox implements APCMailbox {
                             try {
                                 final Object response = jaResponse
                                         .getUnwrappedResponse();
+                                jaRequest.received();
                                 jaRequest.restoreSourceMailbox();
                                 if (response instanceof Throwable) {
                                     processException(jaRequest.sourceRequest,
@@ -131,6 +113,58 @@ public class JAPCMailbox implements APCMailbox {
                         }
                     }
 
+                    /**
+                     * Processes a request dispatched to its destination actor.
+                     */
+                    private void processRequest(final JARequest jaRequest) {
+                        currentRequest = jaRequest;
+                        if (currentRequest.isCancelled()) {
+                            skip(currentRequest);
+                            return;
+                        }
+                        try {
+                            setExceptionHandler(null);
+                            currentRequest.getUnwrappedRequest()
+                                    .processRequest(
+                                            currentRequest
+                                                    .getDestinationActor(),
+                                            currentRequest);
+                        } catch (final Throwable ex) {
+                            if (exceptionHandler == null) {
+                                if (currentRequest.isEvent()) {
+                                    mailboxFactory.eventException(
+                                            currentRequest
+                                                    .getUnwrappedRequest(),
+                                            ex);
+                                } else
+                                    response(currentRequest, ex);
+                            } else
+                                try {
+                                    exceptionHandler.process(ex);
+                                } catch (final Throwable ex2) {
+                                    if (currentRequest.isEvent()) {
+                                        mailboxFactory.eventException(
+                                                currentRequest
+                                                        .getUnwrappedRequest(),
+                                                ex2);
+                                    } else
+                                        response(currentRequest, ex);
+                                }
+                        }
+                    }
+
+                    /**
+                     * Skips a cancelled request, returning a CancellationException.
+                     */
+                    private void skip(final JARequest jaRequest) {
+                        if (jaRequest.isEvent())
+                            currentRequest = null;
+                        else
+                            response(jaRequest, new CancellationException(
+                                    jaRequest.getUnwrappedRequest().getClass()
+                                            .getName()));
+                    }
+
                     private void processException(final JARequest jaRequest,
                             Throwable ex) {
                         if (exceptionHandler != null)
@@ -267,7 +301,8 @@ public class JAPCMailbox implements APCMailbox {
             final Object unwrappedResponse) {
         if (jaRequest.isActive()) {
             jaRequest.inactive();
-            jaRequest.response(bufferedEventQueue, unwrappedResponse);
+            if (jaRequest.claimResponse())
+                jaRequest.response(bufferedEventQueue, unwrappedResponse);
         }
     }
 
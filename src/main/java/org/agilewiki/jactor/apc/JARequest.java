@@ -30,6 +30,7 @@ import org.agilewiki.jactor.bufferedEvents.BufferedEventsQueue;
 import org.agilewiki.jactor.lpc.JLPCActor;
 import org.agilewiki.jactor.lpc.Request;
 import org.agilewiki.jactor.lpc.RequestSource;
+import org.agilewiki.jactor.scheduler.Scheduler;
 
 /**
  * Requests sent to a JAPCMailbox are wrapped by an JARequest.
@@ -61,6 +62,11 @@ public abstract class JARequest extends RP implements JAMessage {
      */
     private boolean active = true;
 
+    /**
+     * Set true when the request has been cancelled. May be set by any thread.
+     */
+    private volatile boolean cancelled;
+
     public Mailbox sourceMailbox;
 
     public JARequest sourceRequest;
@@ -69,11 +75,23 @@ public abstract class JARequest extends RP implements JAMessage {
 
     public RP rp;
 
+    /**
+     * The actor which awaits the response, or null.
+     */
+    private JLPCActor awaitingActor;
+
+    /**
+     * Returns a TimeoutException if no response is sent in time, or null.
+     */
+    private Deadline deadline;
+
     protected final void reset() {
-        mailbox = null;
+        if (deadline == null) {
+            mailbox = null;
+            destinationActor = null;
+            unwrappedRequest = null;
+        }
         requestSource = null;
-        destinationActor = null;
-        unwrappedRequest = null;
         sourceMailbox = null;
         sourceRequest = null;
         sourceExceptionHandler = null;
@@ -127,6 +145,53 @@ public abstract class JARequest extends RP implements JAMessage {
         return active;
     }
 
+    /**
+     * Schedules a TimeoutException to be returned in place of the response
+     * if no response has been sent before the timeout expires.
+     *
+     * @param scheduler The scheduler.
+     * @param timeout   The timeout in milliseconds.
+     */
+    final public void deadline(Scheduler scheduler, long timeout) {
+        deadline = new Deadline(this, timeout);
+        deadline.timeout = scheduler.schedule(deadline, timeout);
+    }
+
+    /**
+     * Claims the right to return the response. Always true unless the request has a deadline,
+     * in which case only one of the response and the TimeoutException is returned.
+     *
+     * @return True when the response is to be returned.
+     */
+    final public boolean claimResponse() {
+        return deadline == null || deadline.claim();
+    }
+
+    /**
+     * Cancels the request. If it has not yet been dispatched, it is skipped and a
+     * CancellationException is returned in place of the response. Requests sent
+     * on its behalf are cancelled as well.
+     */
+    final public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Returns true when the request, or any request on whose behalf it was sent,
+     * has been cancelled.
+     *
+     * @return True when cancelled.
+     */
+    final public boolean isCancelled() {
+        JARequest r = this;
+        while (r != null) {
+            if (r.cancelled)
+                return true;
+            r = r.sourceRequest;
+        }
+        return false;
+    }
+
     /**
      * Sets active to false--a response has been returned.
      */
@@ -147,6 +212,25 @@ public abstract class JARequest extends RP implements JAMessage {
         requestSource.responseFrom(eventQueue, japcResponse);
     }
 
+    /**
+     * Marks the request as sent by an actor which awaits the response.
+     *
+     * @param actor The actor which awaits the response.
+     */
+    final public void awaitedBy(JLPCActor actor) {
+        awaitingActor = actor;
+    }
+
+    /**
+     * Notifies the actor which awaited the response, if any, that the response has arrived.
+     */
+    final public void received() {
+        if (awaitingActor != null) {
+            awaitingActor.responded();
+            awaitingActor = null;
+        }
+    }
+
     public void restoreSourceMailbox() {
         if (sourceMailbox != null) {
             sourceMailbox.setCurrentRequest(sourceRequest);
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.concurrent;
+
+/**
+ * Padding ahead of the tail, one 64 byte cache line.
+ */
+abstract class SpscQueuePad0 {
+    long p00, p01, p02, p03, p04, p05, p06;
+}
+
+/**
+ * The tail of the queue, only accessed by the producer.
+ */
+abstract class SpscQueueTail<E> extends SpscQueuePad0 {
+    JASpscQueue.Node<E> tail;
+}
+
+/**
+ * Padding between the tail and the head.
+ */
+abstract class SpscQueuePad1<E> extends SpscQueueTail<E> {
+    long p10, p11, p12, p13, p14, p15, p16;
+}
+
+/**
+ * The head of the queue, only accessed by the consumer.
+ */
+abstract class SpscQueueHead<E> extends SpscQueuePad1<E> {
+    JASpscQueue.Node<E> head;
+}
+
+/**
+ * <p>
+ * An unbounded linked queue with a single producer and a single consumer.
+ * No atomic operations are used: the only shared write is the link to a new node,
+ * which is a volatile write. The head and tail are kept on separate cache lines.
+ * </p>
+ * <p>
+ * Only one thread may call offer and only one thread may call poll and isEmpty.
+ * </p>
+ *
+ * @param <E> The type of element.
+ */
+final public class JASpscQueue<E> extends SpscQueueHead<E> {
+    /**
+     * Padding after the head.
+     */
+    long p20, p21, p22, p23, p24, p25, p26;
+
+    /**
+     * Create a JASpscQueue.
+     */
+    public JASpscQueue() {
+        Node<E> stub = new Node<E>(null);
+        head = stub;
+        tail = stub;
+    }
+
+    /**
+     * Add an element to the tail of the queue.
+     * Must only be called by the producer.
+     *
+     * @param element The element, which may not be null.
+     */
+    public void offer(final E element) {
+        if (element == null)
+            throw new IllegalArgumentException("may not be null");
+        final Node<E> node = new Node<E>(element);
+        tail.next = node;
+        tail = node;
+    }
+
+    /**
+     * Remove the element at the head of the queue.
+     * Must only be called by the consumer.
+     *
+     * @return The element, or null when the queue is empty.
+     */
+    public E poll() {
+        final Node<E> next = head.next;
+        if (next == null)
+            return null;
+        final E element = next.element;
+        next.element = null;
+        head = next;
+        return element;
+    }
+
+    /**
+     * Returns true when there are no elements in the queue.
+     * Must only be called by the consumer.
+     *
+     * @return True when the queue is empty.
+     */
+    public boolean isEmpty() {
+        return head.next == null;
+    }
+
+    /**
+     * A link in the queue.
+     */
+    static final class Node<E> {
+        E element;
+        volatile Node<E> next;
+
+        Node(final E element) {
+            this.element = element;
+        }
+    }
+}
@@ -31,26 +31,49 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * A high performance implementation of ThreadManager.
+ * Padding ahead of the fields of JAThreadManager, one 64 byte cache line.
  */
-final public class JAThreadManager implements ThreadManager {
-    final Logger logger = LoggerFactory.getLogger(JAThreadManager.class);
+abstract class ThreadManagerPad0 {
+    long p00, p01, p02, p03, p04, p05, p06;
+}
+
+/**
+ * The fields of JAThreadManager which are read on every task.
+ */
+abstract class ThreadManagerFields extends ThreadManagerPad0 {
+    /**
+     * The tasks queue holds the tasks waiting to be processed.
+     * It is padded and allocated ahead of the semaphore, so that its head and tail
+     * do not share a cache line with the state of the semaphore.
+     */
+    final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>() {
+        long p00, p01, p02, p03, p04, p05, p06;
+    };
 
     /**
      * The taskRequest semaphore is used to wake up a thread
      * when there is a task to process.
      */
-    final private Semaphore taskRequest = new Semaphore(0);
+    final Semaphore taskRequest = new Semaphore(0);
 
     /**
-     * The tasks queue holds the tasks waiting to be processed.
+     * When closing is true, concurrent exit as they finish their assigned tasks.
      */
-    final private ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+    volatile boolean closing;
+}
 
+/**
+ * A high performance implementation of ThreadManager.
+ * The fields read on every task are padded, so they do not share a cache line
+ * with the objects written on every task.
+ */
+final public class JAThreadManager extends ThreadManagerFields implements ThreadManager {
     /**
-     * When closing is true, concurrent exit as they finish their assigned tasks.
+     * Padding after the fields read on every task.
      */
-    private Boolean closing = false;
+    long p10, p11, p12, p13, p14, p15, p16;
+
+    final Logger logger = LoggerFactory.getLogger(JAThreadManager.class);
 
     /**
      * The threadCount is the number of threads used.
@@ -23,10 +23,41 @@
  */
 package org.agilewiki.jactor.events;
 
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.agilewiki.jactor.concurrent.JAMpscQueue;
 import org.agilewiki.jactor.concurrent.ThreadManager;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.atomic.AtomicReference;
+/**
+ * Padding ahead of the fields written by other threads, one 64 byte cache line.
+ */
+abstract class EventQueuePad0 {
+    long p00, p01, p02, p03, p04, p05, p06;
+}
+
+/**
+ * The fields of JAEventQueue which are written by other threads.
+ */
+abstract class EventQueueHot<E> extends EventQueuePad0 {
+    /**
+     * Set to null when idle, set to this when under internal control,
+     * and is otherwise under external control.
+     */
+    volatile EventQueue<E> control;
+
+    /**
+     * Set true when something has been added to the queue.
+     */
+    volatile boolean notEmpty;
+}
+
+/**
+ * Padding between the fields written by other threads and the
+ * fields which are only read once the queue is created.
+ */
+abstract class EventQueuePad1<E> extends EventQueueHot<E> {
+    long p10, p11, p12, p13, p14, p15, p16;
+}
 
 /**
  * An JAEventQueue receives messages, queues them,
@@ -34,17 +65,15 @@ import java.util.concurrent.atomic.AtomicReference;
  *
  * @param <E> The type of event.
  */
-final public class JAEventQueue<E> implements EventQueue<E> {
+final public class JAEventQueue<E> extends EventQueuePad1<E> implements EventQueue<E> {
+    private static final AtomicReferenceFieldUpdater<EventQueueHot, EventQueue> CONTROL =
+            AtomicReferenceFieldUpdater.newUpdater(EventQueueHot.class, EventQueue.class, "control");
+
     /**
      * Inhibits the acquireControl operation.
      */
     private boolean autonomous;
 
-    /**
-     * Set true when something has been added to the queue.
-     */
-    private volatile boolean notEmpty;
-
     /**
      * Provides a thread for processing dispatched events.
      */
@@ -58,13 +87,7 @@ final public class JAEventQueue<E> implements EventQueue<E> {
     /**
      * A queue of pending events.
      */
-    private ConcurrentLinkedQueue<E> queue = new ConcurrentLinkedQueue<E>();
-
-    /**
-     * Set to null when idle, set to this when under internal control,
-     * and is otherwise under external control.
-     */
-    private AtomicReference<EventQueue<E>> atomicControl = new AtomicReference<EventQueue<E>>();
+    private final JAMpscQueue<E> queue = new JAMpscQueue<E>();
 
     /**
      * The task is used to process the events in the queue.
@@ -75,13 +98,12 @@ final public class JAEventQueue<E> implements EventQueue<E> {
         public void run() {
             if (commandeer(JAEventQueue.this))
                 while (true) {
-                    E event = queue.peek();
-                    if (event == null) {
-                        atomicControl.set(null);
-                        if (queue.peek() == null || !commandeer(JAEventQueue.this))
+                    if (queue.isEmpty()) {
+                        control = null;
+                        if (queue.isEmpty() || !commandeer(JAEventQueue.this))
                             return;
-                        if (queue.peek() == null) {
-                            atomicControl.set(null);
+                        if (queue.isEmpty()) {
+                            control = null;
                             return;
                         }
                     }
@@ -109,9 +131,9 @@ final public class JAEventQueue<E> implements EventQueue<E> {
      * @return True if control was taken.
      */
     private boolean commandeer(EventQueue<E> eventQueue) {
-        if (atomicControl.get() != null)
+        if (control != null)
             return false;
-        return atomicControl.compareAndSet(null, eventQueue);
+        return CONTROL.compareAndSet(this, null, eventQueue);
     }
 
     /**
@@ -136,10 +158,10 @@ final public class JAEventQueue<E> implements EventQueue<E> {
      */
     @Override
     public void relinquishControl() {
-        EventQueue<E> c = atomicControl.get();
+        EventQueue<E> c = control;
         if (c == this)
             return;
-        atomicControl.set(null);
+        control = null;
         if (notEmpty) {
             threadManager.process(task);
         }
@@ -152,7 +174,7 @@ final public class JAEventQueue<E> implements EventQueue<E> {
      */
     @Override
     public EventQueue<E> getController() {
-        EventQueue<E> c = atomicControl.get();
+        EventQueue<E> c = control;
         if (c == null)
             return this;
         return c;
@@ -174,7 +196,7 @@ final public class JAEventQueue<E> implements EventQueue<E> {
      */
     @Override
     public boolean isEmpty() {
-        return queue.peek() == null;
+        return queue.isEmpty();
     }
 
     /**
@@ -186,8 +208,9 @@ final public class JAEventQueue<E> implements EventQueue<E> {
     @Override
     public void putEvent(E event) {
         queue.offer(event);
-        notEmpty = true;
-        if (atomicControl.get() == null)
+        if (!notEmpty)
+            notEmpty = true;
+        if (control == null)
             threadManager.process(task);
     }
 
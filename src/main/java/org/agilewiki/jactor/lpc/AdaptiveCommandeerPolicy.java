@@ -0,0 +1,93 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.lpc;
+
+import org.agilewiki.jactor.Mailbox;
+
+/**
+ * <p>
+ * A CommandeerPolicy which only commandeers a target mailbox when it has no backlog,
+ * and only while the sending thread is within its budget of nested commandeers.
+ * Otherwise the request or event is passed to the target's thread.
+ * </p>
+ * <p>
+ * A budget of 0 disables commandeering.
+ * </p>
+ */
+public class AdaptiveCommandeerPolicy extends JACommandeerPolicy {
+    /**
+     * When true, only commandeer mailboxes with no pending messages.
+     */
+    private final boolean idleOnly;
+
+    /**
+     * The maximum number of mailboxes a thread may hold by commandeering at one time.
+     */
+    private final int budget;
+
+    /**
+     * The number of mailboxes the current thread holds by commandeering.
+     */
+    private final ThreadLocal<int[]> depth = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+
+    /**
+     * Create an AdaptiveCommandeerPolicy.
+     *
+     * @param idleOnly When true, only commandeer mailboxes with no pending messages.
+     * @param budget   The maximum number of mailboxes a thread may hold by commandeering at one time.
+     */
+    public AdaptiveCommandeerPolicy(boolean idleOnly, int budget) {
+        if (budget < 0)
+            throw new IllegalArgumentException("budget may not be negative");
+        this.idleOnly = idleOnly;
+        this.budget = budget;
+    }
+
+    @Override
+    protected boolean allow(Mailbox source, Mailbox target) {
+        if (budget == 0)
+            return false;
+        if (idleOnly && !target.isEmpty())
+            return false;
+        return depth.get()[0] < budget;
+    }
+
+    @Override
+    public void acquired(Mailbox target) {
+        super.acquired(target);
+        if (budget > 0)
+            depth.get()[0] += 1;
+    }
+
+    @Override
+    public void released(Mailbox target) {
+        if (budget > 0)
+            depth.get()[0] -= 1;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.lpc;
+
+import org.agilewiki.jactor.Mailbox;
+
+/**
+ * <p>
+ * Decides when a request or event sent to an actor with a different mailbox
+ * is processed on the sender's thread, by commandeering the target mailbox,
+ * rather than being passed to the target's thread.
+ * </p>
+ * <p>
+ * Commandeering works well for ping-pong, but when it succeeds the sender's thread
+ * also processes the target's whole backlog, which serializes work when the target is busy.
+ * </p>
+ */
+public interface CommandeerPolicy {
+    /**
+     * Returns true when the target mailbox should be commandeered.
+     *
+     * @param source The sender's mailbox.
+     * @param target The target's mailbox.
+     * @return True when an attempt should be made to commandeer the target mailbox.
+     */
+    public boolean commandeer(Mailbox source, Mailbox target);
+
+    /**
+     * Called when the target mailbox was commandeered.
+     *
+     * @param target The target's mailbox.
+     */
+    public void acquired(Mailbox target);
+
+    /**
+     * Called when the target mailbox could not be commandeered, as it was busy.
+     *
+     * @param target The target's mailbox.
+     */
+    public void failed(Mailbox target);
+
+    /**
+     * Called after a commandeered mailbox is relinquished.
+     *
+     * @param target The target's mailbox.
+     */
+    public void released(Mailbox target);
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.lpc;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.agilewiki.jactor.Mailbox;
+
+/**
+ * A CommandeerPolicy which always tries to commandeer the target mailbox,
+ * the default behavior, and counts the outcomes.
+ * Subclasses override allow to decline commandeering.
+ */
+public class JACommandeerPolicy implements CommandeerPolicy {
+    /**
+     * The number of times a target mailbox was commandeered.
+     */
+    private final AtomicLong acquiredCount = new AtomicLong();
+
+    /**
+     * The number of times a target mailbox was busy.
+     */
+    private final AtomicLong failedCount = new AtomicLong();
+
+    /**
+     * The number of times commandeering was declined.
+     */
+    private final AtomicLong declinedCount = new AtomicLong();
+
+    @Override
+    final public boolean commandeer(Mailbox source, Mailbox target) {
+        if (allow(source, target))
+            return true;
+        declinedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Returns true when an attempt may be made to commandeer the target mailbox.
+     *
+     * @param source The sender's mailbox.
+     * @param target The target's mailbox.
+     * @return True, unless overridden.
+     */
+    protected boolean allow(Mailbox source, Mailbox target) {
+        return true;
+    }
+
+    @Override
+    public void acquired(Mailbox target) {
+        acquiredCount.incrementAndGet();
+    }
+
+    @Override
+    public void failed(Mailbox target) {
+        failedCount.incrementAndGet();
+    }
+
+    @Override
+    public void released(Mailbox target) {
+    }
+
+    /**
+     * Returns the number of times a target mailbox was commandeered.
+     *
+     * @return The number of successes.
+     */
+    public long getAcquiredCount() {
+        return acquiredCount.get();
+    }
+
+    /**
+     * Returns the number of times a target mailbox could not be commandeered as it was busy.
+     *
+     * @return The number of failures.
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * Returns the number of times commandeering was declined by the policy.
+     *
+     * @return The number of declines.
+     */
+    public long getDeclinedCount() {
+        return declinedCount.get();
+    }
+}
@@ -23,14 +23,19 @@
  */
 package org.agilewiki.jactor.lpc;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.agilewiki.jactor.Actor;
 import org.agilewiki.jactor.ExceptionHandler;
+import org.agilewiki.jactor.JAEvent;
 import org.agilewiki.jactor.JANoResponse;
 import org.agilewiki.jactor.Mailbox;
 import org.agilewiki.jactor.MailboxFactory;
 import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.apc.APCMailbox;
 import org.agilewiki.jactor.apc.APCRequestSource;
 import org.agilewiki.jactor.apc.JAMessage;
 import org.agilewiki.jactor.apc.JARequest;
@@ -71,8 +76,35 @@ abstract public class JLPCActor implements TargetActor, RequestProcessor,
         RequestSource {
     /**
      * The inbox and outbox of the actor.
+     * Volatile, as the actor may migrate to another mailbox.
      */
-    private Mailbox mailbox;
+    private volatile Mailbox mailbox;
+
+    /**
+     * The route by which requests are sent to the actor, replaced when the actor migrates,
+     * or null until the actor first migrates.
+     */
+    private volatile MailboxRoute route;
+
+    /**
+     * The mailbox to which the actor moves once the current request has been processed, or null.
+     */
+    private Mailbox moving;
+
+    /**
+     * The number of requests sent by the actor for which no response has yet arrived.
+     */
+    private int outstanding;
+
+    /**
+     * The request last sent by the actor which awaits a response, or null.
+     */
+    private JARequest awaited;
+
+    /**
+     * The number of requests and events processed, used to measure load.
+     */
+    private int processedCount;
 
     /**
      * The parent actor, for dependency injection.
@@ -191,6 +223,250 @@ abstract public class JLPCActor implements TargetActor, RequestProcessor,
         return mailbox;
     }
 
+    /**
+     * <p>
+     * Moves the actor to another mailbox.
+     * Must be called while the actor is processing a request or event,
+     * and only at a quiescent point where the actor has no outstanding requests
+     * of its own, as their responses would be processed by the old mailbox.
+     * </p>
+     * <p>
+     * The move takes place once the current request has been processed,
+     * so until then the actor remains on the old mailbox. The rest of the request
+     * may send events, but not requests which await a response.
+     * </p>
+     * <p>
+     * Requests already sent to the old mailbox are forwarded to the new one
+     * when dispatched. Requests sent directly to the new mailbox are held until
+     * the forwarded requests have all been processed, so the order of the requests
+     * from each sender is preserved. The actor can not migrate again until the
+     * forwarded requests have been processed.
+     * </p>
+     * <p>
+     * Routes are only tracked once an actor has migrated, so actors which never
+     * migrate do not pay for them. Requests which a sender had buffered but not yet
+     * sent when the actor first migrates may still be processed after the sender's
+     * later requests.
+     * </p>
+     *
+     * @param newMailbox The new mailbox.
+     * @throws IllegalStateException When the actor is not processing a request,
+     *                               has outstanding requests or is still migrating.
+     */
+    final public void migrate(final Mailbox newMailbox) {
+        if (newMailbox == null)
+            throw new IllegalArgumentException("may not be null");
+        if (mailbox == null)
+            throw new IllegalStateException("no mailbox");
+        final JARequest currentRequest = mailbox.getCurrentRequest();
+        if (currentRequest == null
+                || currentRequest.getDestinationActor() != this)
+            throw new IllegalStateException("not processing a request");
+        if (outstanding > 0)
+            throw new IllegalStateException("awaiting "
+                    + outstanding + " responses");
+        if (moving != null)
+            throw new IllegalStateException("already migrating");
+        final MailboxRoute r = route;
+        if (r != null && r.previous != null && r.previous.pending.get() > 0)
+            throw new IllegalStateException("still migrating");
+        if (newMailbox == mailbox)
+            return;
+        moving = newMailbox;
+    }
+
+    /**
+     * Completes a migration once the request which called migrate has been processed.
+     * Any requests still held from the previous migration are passed on to the new mailbox.
+     */
+    private void move() {
+        final Mailbox newMailbox = moving;
+        moving = null;
+        MailboxRoute old = route;
+        if (old == null)
+            old = new MailboxRoute(mailbox, null);
+        old.pending.incrementAndGet();
+        route = new MailboxRoute(newMailbox, old);
+        mailbox = newMailbox;
+        old.previous = null;
+        final ArrayDeque<JARequest> held = old.held;
+        old.held = null;
+        if (held != null && !held.isEmpty()) {
+            final List<JAMessage> bufferedEvents = new ArrayList<JAMessage>(
+                    held.size());
+            for (final JARequest jaRequest : held) {
+                jaRequest.mailbox = newMailbox;
+                bufferedEvents.add(jaRequest);
+            }
+            newMailbox.putBufferedEvents(bufferedEvents);
+        }
+        drain(old, newMailbox);
+    }
+
+    /**
+     * Sends a Drain event by way of an old route, directly to the current mailbox.
+     * The old route must already count the event as pending.
+     * Once the event is processed, the new mailbox knows whether the old route has drained
+     * without depending on further requests to arrive.
+     *
+     * @param old     The old route.
+     * @param current The current mailbox.
+     */
+    private void drain(final MailboxRoute old, final Mailbox current) {
+        final JAEventRequest jaRequest = new JAEventRequest(
+                JAEvent.requestSource, this, Drain.req, current);
+        jaRequest.route = old;
+        final List<JAMessage> bufferedEvents = new ArrayList<JAMessage>(1);
+        bufferedEvents.add(jaRequest);
+        current.putBufferedEvents(bufferedEvents);
+    }
+
+    /**
+     * Returns the current route, counting the request about to be sent by way of it,
+     * or null when the actor has never migrated.
+     * Should the actor migrate before the count is seen, the count is passed to a Drain event
+     * and the current route is used instead, as the old route may have drained already.
+     *
+     * @return The route by which to send the request, or null.
+     */
+    private MailboxRoute enter() {
+        MailboxRoute r = route;
+        if (r == null)
+            return null;
+        while (true) {
+            r.pending.incrementAndGet();
+            final MailboxRoute current = route;
+            if (current == r)
+                return r;
+            drain(r, current.mailbox);
+            r = current;
+        }
+    }
+
+    /**
+     * Returns true while requests can not be processed synchronously,
+     * as requests sent by way of an old route have yet to be processed.
+     *
+     * @return True while migrating.
+     */
+    final public boolean isMigrating() {
+        final MailboxRoute r = route;
+        return r != null && r.previous != null;
+    }
+
+    /**
+     * Returns true while requests sent asynchronously by way of the current route
+     * have yet to be dispatched. A request from another mailbox must then be sent
+     * asynchronously as well, as it could otherwise overtake requests its sender
+     * has buffered but not yet sent. Always false for an actor which has never migrated.
+     *
+     * @return True while asynchronous requests are in flight.
+     */
+    private boolean isInFlight() {
+        final MailboxRoute r = route;
+        return r != null && r.pending.get() > 0;
+    }
+
+    /**
+     * Called by a mailbox before it dispatches a request to this actor.
+     * Requests sent by way of an old route are forwarded to the current mailbox,
+     * and requests sent directly to the current mailbox are held while the old route drains.
+     *
+     * @param dispatcher The dispatching mailbox.
+     * @param jaRequest  The request.
+     * @return False when the request has been forwarded or held.
+     */
+    final public boolean dispatch(final APCMailbox dispatcher,
+            final JARequest jaRequest) {
+        final MailboxRoute current = route;
+        if (current == null) {
+            processedCount += 1;
+            return true;
+        }
+        final MailboxRoute r = jaRequest instanceof RoutedRequest ?
+                ((RoutedRequest) jaRequest).route : null;
+        if (r == current) {
+            if (r.previous != null) {
+                if (r.held == null)
+                    r.held = new ArrayDeque<JARequest>();
+                r.held.add(jaRequest);
+                return false;
+            }
+        } else if (current.mailbox != dispatcher) {
+            jaRequest.mailbox = current.mailbox;
+            final List<JAMessage> bufferedEvents = new ArrayList<JAMessage>(1);
+            bufferedEvents.add(jaRequest);
+            current.mailbox.putBufferedEvents(bufferedEvents);
+            return false;
+        }
+        if (r != null)
+            r.pending.decrementAndGet();
+        processedCount += 1;
+        return true;
+    }
+
+    /**
+     * Called by a mailbox after it has processed a request for this actor.
+     * Completes a migration started by that request. Once the requests sent
+     * by way of the old route have all been processed, returns the requests
+     * which were held in the meantime, one at a time.
+     *
+     * @param dispatcher The dispatching mailbox.
+     * @return The next request to be processed, or null.
+     */
+    final public JARequest released(final APCMailbox dispatcher) {
+        if (moving != null)
+            move();
+        final MailboxRoute current = route;
+        if (current == null)
+            return null;
+        final MailboxRoute previous = current.previous;
+        if (previous == null || current.mailbox != dispatcher
+                || previous.pending.get() > 0)
+            return null;
+        final ArrayDeque<JARequest> held = current.held;
+        final JARequest jaRequest = held == null ? null : held.poll();
+        if (jaRequest == null) {
+            current.held = null;
+            current.previous = null;
+            return null;
+        }
+        current.pending.decrementAndGet();
+        processedCount += 1;
+        return jaRequest;
+    }
+
+    /**
+     * Called by a mailbox when the response to a request sent by this actor arrives.
+     */
+    final public void responded() {
+        outstanding -= 1;
+    }
+
+    /**
+     * Notes that a request sent by this actor awaits a response.
+     *
+     * @param jaRequest The request.
+     * @throws IllegalStateException When the actor is migrating.
+     */
+    private void awaiting(final JARequest jaRequest) {
+        if (moving != null)
+            throw new IllegalStateException("migrating");
+        jaRequest.awaitedBy(this);
+        outstanding += 1;
+        awaited = jaRequest;
+    }
+
+    /**
+     * Returns the number of requests and events processed. Updates are not synchronized,
+     * so when read by another thread the count is only approximate.
+     *
+     * @return The number of requests and events processed.
+     */
+    final public int getProcessedCount() {
+        return processedCount;
+    }
+
     /**
      * Enqueues the response in the responder's outbox.
      *
@@ -214,6 +490,8 @@ abstract public class JLPCActor implements TargetActor, RequestProcessor,
     final public void send(
             final BufferedEventsDestination<JAMessage> destination,
             final JARequest japcRequest) {
+        if (!japcRequest.isEvent())
+            awaiting(japcRequest);
         mailbox.send(destination, japcRequest);
     }
 
@@ -239,7 +517,22 @@ abstract public class JLPCActor implements TargetActor, RequestProcessor,
     final public void acceptRequest(final APCRequestSource apcRequestSource,
             final Request request, final RP rp) throws Exception {
         final RequestSource rs = (RequestSource) apcRequestSource;
+        final long timeout = request.getTimeout();
+        if (timeout > 0) {
+            final MailboxRoute r = enter();
+            final Mailbox mb = r == null ? mailbox : r.mailbox;
+            final AsyncRequest asyncRequest = new AsyncRequest(rs, this,
+                    request, rp, mb);
+            asyncRequest.route = r;
+            asyncRequest.deadline(getMailboxFactory().scheduler(), timeout);
+            rs.send(mb, asyncRequest);
+            return;
+        }
         final Mailbox sourceMailbox = rs.getMailbox();
+        if (isMigrating()) {
+            asyncSend(rs, request, rp);
+            return;
+        }
         if (sourceMailbox == mailbox) {
             syncSend(rs, request, rp);
             return;
@@ -254,32 +547,53 @@ abstract public class JLPCActor implements TargetActor, RequestProcessor,
     private void acceptOtherRequest(final Mailbox sourceMailbox,
             final RequestSource rs, final Request request, final RP rp)
             throws Exception {
-        final EventQueue<List<JAMessage>> eventQueue = mailbox
-                .getEventQueue();
+        final Mailbox mb = mailbox;
+        final EventQueue<List<JAMessage>> eventQueue = mb.getEventQueue();
         final EventQueue<List<JAMessage>> srcController = sourceMailbox
                 .getEventQueue().getController();
         if (eventQueue.getController() == srcController) {
             syncSend(rs, request, rp);
             return;
         }
+        if (isInFlight()) {
+            asyncSend(rs, request, rp);
+            return;
+        }
+        final CommandeerPolicy policy = mb.getMailboxFactory().getCommandeerPolicy();
+        if (policy != null && !policy.commandeer(sourceMailbox, mb)) {
+            asyncSend(rs, request, rp);
+            return;
+        }
         if (!eventQueue.acquireControl(srcController)) {
+            if (policy != null)
+                policy.failed(mb);
             asyncSend(rs, request, rp);
             return;
         }
+        if (policy != null)
+            policy.acquired(mb);
         try {
-            syncSend(rs, request, rp);
+            if (mailbox != mb || isMigrating())
+                asyncSend(rs, request, rp);
+            else
+                syncSend(rs, request, rp);
         } finally {
-            mailbox.dispatchEvents();
-            mailbox.sendPendingMessages();
+            mb.dispatchEvents();
+            mb.sendPendingMessages();
             eventQueue.relinquishControl();
+            if (policy != null)
+                policy.released(mb);
         }
     }
 
     private void asyncSend(final RequestSource rs, final Request request,
             final RP rp) throws Exception {
+        final MailboxRoute r = enter();
+        final Mailbox mb = r == null ? mailbox : r.mailbox;
         final AsyncRequest asyncRequest = new AsyncRequest(rs, this, request,
-                rp, mailbox);
-        rs.send(mailbox, asyncRequest);
+                rp, mb);
+        asyncRequest.route = r;
+        rs.send(mb, asyncRequest);
     }
 
     private void syncSend(final RequestSource rs, final Request request,
@@ -287,11 +601,14 @@ abstract public class JLPCActor implements TargetActor, RequestProcessor,
         final SyncRequest syncRequest = new SyncRequest(rs, JLPCActor.this,
                 request, rp, mailbox);
         mailbox.setCurrentRequest(syncRequest);
+        processedCount += 1;
         try {
             setExceptionHandler(null);
             request.processRequest(this, syncRequest);
             if (!syncRequest.sync) {
                 syncRequest.async = true;
+                if (rs instanceof JLPCActor)
+                    ((JLPCActor) rs).awaiting(syncRequest);
                 syncRequest.restoreSourceMailbox();
             }
         } catch (final TransparentException tx) {
@@ -307,6 +624,9 @@ abstract public class JLPCActor implements TargetActor, RequestProcessor,
                 throw (Exception) ex;
             }
             throw (Error) ex;
+        } finally {
+            if (moving != null)
+                move();
         }
     }
 
@@ -324,6 +644,10 @@ abstract public class JLPCActor implements TargetActor, RequestProcessor,
         final ExceptionHandler sourceExceptionHandler = rs
                 .getExceptionHandler();
         final Mailbox sourceMailbox = rs.getMailbox();
+        if (isMigrating()) {
+            asyncSendEvent(rs, request);
+            return;
+        }
         if (sourceMailbox == mailbox) {
             syncSendEvent(rs, request, sourceExceptionHandler);
             return;
@@ -332,24 +656,42 @@ abstract public class JLPCActor implements TargetActor, RequestProcessor,
             asyncSendEvent(rs, request);
             return;
         }
-        final EventQueue<List<JAMessage>> eventQueue = mailbox
-                .getEventQueue();
+        final Mailbox mb = mailbox;
+        final EventQueue<List<JAMessage>> eventQueue = mb.getEventQueue();
         final EventQueue<List<JAMessage>> srcController = sourceMailbox
                 .getEventQueue().getController();
         if (eventQueue.getController() == srcController) {
             syncSendEvent(rs, request, sourceExceptionHandler);
             return;
         }
+        if (isInFlight()) {
+            asyncSendEvent(rs, request);
+            return;
+        }
+        final CommandeerPolicy policy = mb.getMailboxFactory().getCommandeerPolicy();
+        if (policy != null && !policy.commandeer(sourceMailbox, mb)) {
+            asyncSendEvent(rs, request);
+            return;
+        }
         if (!eventQueue.acquireControl(srcController)) {
+            if (policy != null)
+                policy.failed(mb);
             asyncSendEvent(rs, request);
             return;
         }
+        if (policy != null)
+            policy.acquired(mb);
         try {
-            syncSendEvent(rs, request, sourceExceptionHandler);
+            if (mailbox != mb || isMigrating())
+                asyncSendEvent(rs, request);
+            else
+                syncSendEvent(rs, request, sourceExceptionHandler);
         } finally {
-            mailbox.dispatchEvents();
-            mailbox.sendPendingMessages();
+            mb.dispatchEvents();
+            mb.sendPendingMessages();
             eventQueue.relinquishControl();
+            if (policy != null)
+                policy.released(mb);
         }
     }
 
@@ -360,9 +702,12 @@ abstract public class JLPCActor implements TargetActor, RequestProcessor,
      * @param request The request.
      */
     private void asyncSendEvent(final RequestSource rs, final Request request) {
+        final MailboxRoute r = enter();
+        final Mailbox mb = r == null ? mailbox : r.mailbox;
         final JAEventRequest jaRequest = new JAEventRequest(rs, this, request,
-                mailbox);
-        rs.send(mailbox, jaRequest);
+                mb);
+        jaRequest.route = r;
+        rs.send(mb, jaRequest);
     }
 
     /**
@@ -379,6 +724,7 @@ abstract public class JLPCActor implements TargetActor, RequestProcessor,
         final JAEventRequest jaRequest = new JAEventRequest(rs, this, request,
                 mailbox);
         mailbox.setCurrentRequest(jaRequest);
+        processedCount += 1;
         try {
             setExceptionHandler(null);
             request.processRequest(this, JANoResponse.nrp);
@@ -394,6 +740,9 @@ abstract public class JLPCActor implements TargetActor, RequestProcessor,
             else {
                 getMailboxFactory().eventException(request, ex);
             }
+        } finally {
+            if (moving != null)
+                move();
         }
         oldSourceMailbox.setCurrentRequest(oldSourceRequest);
         oldSourceMailbox.setExceptionHandler(sourceExceptionHandler);
@@ -412,6 +761,29 @@ abstract public class JLPCActor implements TargetActor, RequestProcessor,
         actor.acceptRequest(this, request, rp);
     }
 
+    /**
+     * Send a request to another actor, returning the request so that it can be cancelled
+     * by calling its cancel method from any thread. When a cancelled request has not yet
+     * been dispatched, a CancellationException is returned in place of the response and
+     * is handled like any other exception. Requests sent on its behalf are cancelled as well.
+     *
+     * @param actor   The target actor.
+     * @param request The request.
+     * @param rp      The response processor.
+     * @return The request, or null when it has already been processed.
+     * @throws Exception Any uncaught exceptions raised while processing the request.
+     */
+    final protected JARequest sendCancellable(final Actor actor,
+            final Request request, final RP rp) throws Exception {
+        awaited = null;
+        try {
+            actor.acceptRequest(this, request, rp);
+            return awaited;
+        } finally {
+            awaited = null;
+        }
+    }
+
     /**
      * Send a request to another actor and discard any response.
      *
@@ -477,8 +849,7 @@ final class SyncRequest extends JARequest {
                     .getExceptionHandler();
             restoreSourceMailbox();
             if (response instanceof Throwable) {
-                mailbox.setCurrentRequest(oldCurrent);
-                mailbox.setExceptionHandler(oldExceptionHandler);
+                restoreMailbox(oldCurrent, oldExceptionHandler);
                 if (response instanceof Exception) {
                     throw (Exception) response;
                 }
@@ -489,8 +860,7 @@ final class SyncRequest extends JARequest {
             } catch (final Throwable e) {
                 throw new TransparentException(e);
             }
-            mailbox.setCurrentRequest(oldCurrent);
-            mailbox.setExceptionHandler(oldExceptionHandler);
+            restoreMailbox(oldCurrent, oldExceptionHandler);
         } else {
             if (response instanceof Throwable) {
                 Throwable ex = (Throwable) response;
@@ -511,9 +881,41 @@ final class SyncRequest extends JARequest {
         }
         reset();
     }
+
+    /**
+     * Restores the state of the destination mailbox after the response has been processed.
+     * When the source shares the mailbox, the source request remains current.
+     *
+     * @param oldCurrent          The current request of the destination mailbox.
+     * @param oldExceptionHandler The exception handler of the destination mailbox.
+     */
+    private void restoreMailbox(final JARequest oldCurrent,
+            final ExceptionHandler oldExceptionHandler) {
+        if (mailbox == sourceMailbox)
+            return;
+        mailbox.setCurrentRequest(oldCurrent);
+        mailbox.setExceptionHandler(oldExceptionHandler);
+    }
+}
+
+/**
+ * A request which may be sent by way of a route.
+ */
+abstract class RoutedRequest extends JARequest {
+    /**
+     * The route by which the request was sent to the destination actor,
+     * or null when the actor had not yet migrated.
+     */
+    MailboxRoute route;
+
+    RoutedRequest(final RequestSource requestSource,
+            final JLPCActor destinationActor, final Request unwrappedRequest,
+            final RP rp, final Mailbox mailbox) {
+        super(requestSource, destinationActor, unwrappedRequest, rp, mailbox);
+    }
 }
 
-final class AsyncRequest extends JARequest {
+final class AsyncRequest extends RoutedRequest {
     public AsyncRequest(final RequestSource requestSource,
             final JLPCActor destinationActor, final Request unwrappedRequest,
             final RP rp, final Mailbox mailbox) {
@@ -532,7 +934,7 @@ final class AsyncRequest extends JARequest {
     }
 }
 
-final class JAEventRequest extends JARequest {
+final class JAEventRequest extends RoutedRequest {
     public JAEventRequest(final RequestSource requestSource,
             final JLPCActor destinationActor, final Request unwrappedRequest,
             final Mailbox mailbox) {
@@ -554,3 +956,59 @@ final class JAEventRequest extends JARequest {
         return true;
     }
 }
+
+/**
+ * Does nothing. Sent by way of an old route to find when it has drained.
+ */
+final class Drain extends Request<Object, JLPCActor> {
+    public final static Drain req = new Drain();
+
+    @Override
+    public boolean isTargetType(final Actor targetActor) {
+        return targetActor instanceof JLPCActor;
+    }
+
+    @Override
+    public void processRequest(final JLPCActor targetActor, final RP rp)
+            throws Exception {
+        rp.processResponse(null);
+    }
+}
+
+/**
+ * <p>
+ * The path by which requests reach an actor, replaced each time the actor migrates.
+ * </p>
+ * <p>
+ * Requests sent by way of a route are counted until dispatched. After a migration,
+ * the new mailbox holds the requests sent directly to it until the requests sent
+ * by way of the old route have been forwarded and processed.
+ * </p>
+ */
+final class MailboxRoute {
+    /**
+     * The mailbox to which requests are sent.
+     */
+    final Mailbox mailbox;
+
+    /**
+     * The number of requests sent by way of the route and not yet dispatched.
+     */
+    final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * The route which was replaced, until it has drained and the held requests are released.
+     */
+    volatile MailboxRoute previous;
+
+    /**
+     * Requests held while the previous route drains.
+     * Only accessed by the thread of the route's mailbox.
+     */
+    ArrayDeque<JARequest> held;
+
+    MailboxRoute(final Mailbox mailbox, final MailboxRoute previous) {
+        this.mailbox = mailbox;
+        this.previous = previous;
+    }
+}
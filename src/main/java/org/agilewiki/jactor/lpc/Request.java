@@ -41,6 +41,19 @@ abstract public class Request<RESPONSE_TYPE, TARGET_TYPE extends TargetActor> {
      */
     abstract public boolean isTargetType(Actor targetActor);
 
+    /**
+     * Returns the number of milliseconds to wait for a response, or 0 to wait indefinitely.
+     * When no response is sent in time, a TimeoutException is returned in its place
+     * and the request is cancelled. A late response is discarded.
+     * A request with a timeout is always sent asynchronously.
+     * Events are not timed.
+     *
+     * @return The timeout in milliseconds, or 0.
+     */
+    public long getTimeout() {
+        return 0;
+    }
+
     /**
      * Searches the parent stack for the matching TARGET_TYPE.
      *
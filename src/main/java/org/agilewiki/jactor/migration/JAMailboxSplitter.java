@@ -0,0 +1,169 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.migration;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+import org.agilewiki.jactor.Mailbox;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Migrate;
+import org.agilewiki.jactor.scheduler.Timeout;
+
+/**
+ * <p>
+ * Splits hot shared mailboxes apart. On each split, the load of each registered actor
+ * is the number of requests and events it has processed since the previous split.
+ * When the actors sharing a mailbox have a combined load of at least minLoad,
+ * and more than one of them is busy, the busiest is sent a Migrate event
+ * to move it to a new mailbox.
+ * </p>
+ * <p>
+ * Only register actors which never have outstanding requests of their own between
+ * requests, as a Migrate event may arrive at any time.
+ * </p>
+ */
+public class JAMailboxSplitter
+        extends JLPCActor
+        implements MailboxSplitter {
+    /**
+     * The minimum combined load of a mailbox before it is split.
+     */
+    private final int minLoad;
+
+    /**
+     * The registered actors.
+     */
+    private final ArrayList<JLPCActor> actors = new ArrayList<JLPCActor>();
+
+    /**
+     * The processed count of each actor at the previous split.
+     */
+    private int[] lastCounts = new int[4];
+
+    /**
+     * Runs split periodically, or null.
+     */
+    private Timeout timeout;
+
+    /**
+     * Create a JAMailboxSplitter.
+     *
+     * @param minLoad The minimum combined load of a mailbox before it is split.
+     */
+    public JAMailboxSplitter(int minLoad) {
+        if (minLoad < 1)
+            throw new IllegalArgumentException("minLoad must be at least 1");
+        this.minLoad = minLoad;
+    }
+
+    /**
+     * Register an actor whose mailbox may be split.
+     * (Not thread safe!)
+     *
+     * @param actor The actor.
+     */
+    public void register(JLPCActor actor) {
+        if (actor == null)
+            throw new IllegalArgumentException("may not be null");
+        if (actors.size() == lastCounts.length) {
+            int[] c = new int[lastCounts.length * 2];
+            System.arraycopy(lastCounts, 0, c, 0, lastCounts.length);
+            lastCounts = c;
+        }
+        lastCounts[actors.size()] = actor.getProcessedCount();
+        actors.add(actor);
+    }
+
+    /**
+     * Split mailboxes periodically.
+     *
+     * @param period The time between splits, in milliseconds.
+     */
+    public void start(long period) {
+        if (timeout != null)
+            throw new IllegalStateException("already started");
+        timeout = getMailboxFactory().scheduler().
+                scheduleAtFixedRate(this, Split.req, period, period);
+    }
+
+    /**
+     * Stop splitting mailboxes periodically.
+     */
+    public void stop() {
+        if (timeout == null)
+            return;
+        timeout.cancel();
+        timeout = null;
+    }
+
+    @Override
+    public int split()
+            throws Exception {
+        IdentityHashMap<Mailbox, Load> loads = new IdentityHashMap<Mailbox, Load>();
+        int i = 0;
+        while (i < actors.size()) {
+            JLPCActor actor = actors.get(i);
+            int count = actor.getProcessedCount();
+            int load = count - lastCounts[i];
+            lastCounts[i] = count;
+            Mailbox mailbox = actor.getMailbox();
+            Load l = loads.get(mailbox);
+            if (l == null) {
+                l = new Load();
+                loads.put(mailbox, l);
+            }
+            l.add(actor, load);
+            i += 1;
+        }
+        int moved = 0;
+        for (Load l : loads.values()) {
+            if (l.total >= minLoad && l.busy > 1) {
+                new Migrate(getMailboxFactory().createMailbox()).sendEvent(this, l.hottest);
+                moved += 1;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * The combined load of the actors sharing a mailbox.
+     */
+    private static final class Load {
+        int total;
+        int busy;
+        int max;
+        JLPCActor hottest;
+
+        void add(JLPCActor actor, int load) {
+            total += load;
+            if (load > 0)
+                busy += 1;
+            if (hottest == null || load > max) {
+                max = load;
+                hottest = actor;
+            }
+        }
+    }
+}
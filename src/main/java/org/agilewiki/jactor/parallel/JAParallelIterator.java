@@ -0,0 +1,264 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.parallel;
+
+import java.util.Iterator;
+
+import org.agilewiki.jactor.ExceptionHandler;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+
+/**
+ * <p>
+ * A parallel-for over the items of an Iterator, keeping at most limit requests in flight.
+ * The process method is called once for each item, and a new item is processed
+ * as each response is received. Responses are folded into a result by a Reducer,
+ * so only the result and the count of requests in flight are held, regardless
+ * of the number of items.
+ * </p>
+ * <pre>
+ * (new JAParallelIterator&lt;Integer, Integer, Integer&gt;() {
+ *     protected void process(Integer item, RP&lt;Integer&gt; rp) throws Exception {
+ *         Square square = new Square(item);
+ *         square.send(Driver.this, workers[item % workers.length], rp);
+ *     }
+ * }).iterate(this, items.iterator(), 8, sum, rp);
+ * </pre>
+ * <p>
+ * A failed item is passed to Reducer.reduceException, which either fails the iteration
+ * or skips the item. Once the iteration fails, no further items are processed.
+ * The source actor's exception handler is replaced until the iteration completes.
+ * </p>
+ *
+ * @param <ITEM_TYPE>     The type of the items.
+ * @param <RESPONSE_TYPE> The type of response returned for each item.
+ * @param <RESULT_TYPE>   The type of the aggregated result.
+ */
+abstract public class JAParallelIterator<ITEM_TYPE, RESPONSE_TYPE, RESULT_TYPE>
+        extends RP<RESPONSE_TYPE> {
+    /**
+     * Catches the exceptions returned for the items.
+     */
+    private final ExceptionHandler itemExceptionHandler = new ExceptionHandler() {
+        @Override
+        public void process(Throwable exception) throws Exception {
+            itemException(exception);
+        }
+    };
+
+    /**
+     * The actor sending the requests.
+     */
+    private JLPCActor source;
+
+    /**
+     * The exception handler of the source actor, restored when done.
+     */
+    private ExceptionHandler previousExceptionHandler;
+
+    private Iterator<ITEM_TYPE> items;
+
+    /**
+     * The maximum number of requests in flight.
+     */
+    private int limit;
+
+    /**
+     * The number of requests in flight.
+     */
+    private int inFlight;
+
+    /**
+     * True while new items are being processed, so that synchronous
+     * responses do not recurse.
+     */
+    private boolean filling;
+
+    /**
+     * True when the result has been returned or the iteration has failed.
+     */
+    private boolean done;
+
+    private Reducer<RESPONSE_TYPE, RESULT_TYPE> reducer;
+
+    private RESULT_TYPE result;
+
+    /**
+     * The mechanism for responding when finished.
+     */
+    private RP<RESULT_TYPE> xrp;
+
+    /**
+     * Iterates over the items.
+     *
+     * @param source  The actor sending the requests.
+     * @param items   The items to be processed.
+     * @param limit   The maximum number of requests in flight.
+     * @param reducer Folds the responses into the result.
+     * @param rp      The response processor.
+     * @throws Exception Any exception which fails the iteration.
+     */
+    public void iterate(JLPCActor source,
+                        Iterator<ITEM_TYPE> items,
+                        int limit,
+                        Reducer<RESPONSE_TYPE, RESULT_TYPE> reducer,
+                        RP<RESULT_TYPE> rp)
+            throws Exception {
+        if (limit < 1)
+            throw new IllegalArgumentException("limit must be at least 1");
+        this.source = source;
+        this.items = items;
+        this.limit = limit;
+        this.reducer = reducer;
+        xrp = rp;
+        inFlight = 0;
+        done = false;
+        result = reducer.initialResult();
+        previousExceptionHandler = source.getExceptionHandler();
+        fill();
+    }
+
+    /**
+     * Returns the number of requests in flight.
+     *
+     * @return The number of requests in flight.
+     */
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Process an item, passing the response to the response processor.
+     *
+     * @param item              The item.
+     * @param responseProcessor Processes the response.
+     * @throws Exception Any uncaught exceptions raised when processing the item.
+     */
+    abstract protected void process(ITEM_TYPE item, RP<RESPONSE_TYPE> responseProcessor)
+            throws Exception;
+
+    /**
+     * Processes items until the limit is reached or the items are exhausted,
+     * then completes when nothing remains in flight.
+     *
+     * @throws Exception Any exception which fails the iteration.
+     */
+    private void fill() throws Exception {
+        filling = true;
+        try {
+            while (!done && inFlight < limit && items.hasNext()) {
+                ITEM_TYPE item = items.next();
+                inFlight += 1;
+                source.setExceptionHandler(itemExceptionHandler);
+                try {
+                    process(item, this);
+                } catch (Exception ex) {
+                    if (done)
+                        throw ex;
+                    itemException(ex);
+                }
+            }
+        } finally {
+            filling = false;
+        }
+        if (!done && inFlight == 0)
+            complete();
+    }
+
+    /**
+     * Receives and processes a response.
+     *
+     * @param response The response.
+     * @throws Exception Any uncaught exceptions raised when processing the response.
+     */
+    @Override
+    public void processResponse(RESPONSE_TYPE response) throws Exception {
+        if (done)
+            return;
+        inFlight -= 1;
+        try {
+            result = reducer.reduce(result, response);
+        } catch (Exception ex) {
+            fail(ex);
+        }
+        if (!filling)
+            fill();
+    }
+
+    /**
+     * Processes the exception returned for an item.
+     *
+     * @param exception The exception.
+     * @throws Exception Any exception which fails the iteration.
+     */
+    private void itemException(Throwable exception) throws Exception {
+        if (done)
+            return;
+        inFlight -= 1;
+        try {
+            result = reducer.reduceException(result, exception);
+        } catch (Exception ex) {
+            fail(ex);
+        }
+        if (!filling)
+            fill();
+    }
+
+    /**
+     * Returns the result.
+     *
+     * @throws Exception Any exceptions raised while processing the external response.
+     */
+    private void complete() throws Exception {
+        RP<RESULT_TYPE> x = xrp;
+        RESULT_TYPE r = result;
+        restore();
+        x.processResponse(r);
+    }
+
+    /**
+     * Fails the iteration.
+     *
+     * @param ex The exception returned to the source.
+     * @throws Exception Always.
+     */
+    private void fail(Exception ex) throws Exception {
+        restore();
+        throw ex;
+    }
+
+    /**
+     * Marks the iteration as done and restores the source actor's exception handler.
+     */
+    private void restore() {
+        done = true;
+        source.setExceptionHandler(previousExceptionHandler);
+        source = null;
+        previousExceptionHandler = null;
+        items = null;
+        reducer = null;
+        result = null;
+        xrp = null;
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.parallel;
+
+import java.util.List;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.ExceptionHandler;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * <p>
+ * Sends a request to many actors and folds their responses into a single result
+ * using a Reducer. Like JAResponseCounter3, instances are reused via a pool.
+ * </p>
+ * <p>
+ * The result is returned once all the responses have been received,
+ * or as soon as the required number of branches have succeeded.
+ * Need 1 gives any-success, need n gives first-n and need 0 waits for all the branches.
+ * Once the result has been returned, any further sends are skipped
+ * and late responses are discarded.
+ * </p>
+ * <p>
+ * A failed branch is passed to Reducer.reduceException, which either fails
+ * the scatter-gather or skips the branch. If all the branches have completed
+ * and fewer than need have succeeded, the last exception is rethrown, or an
+ * IllegalStateException is thrown when no branch failed, as when need exceeds
+ * the number of branches.
+ * </p>
+ * <pre>
+ * JAScatterGather sg;
+ * int ps = pool.size();
+ * if (ps == 0)
+ *     sg = new JAScatterGather(pool);
+ * else
+ *     sg = pool.remove(ps - 1);
+ * sg.setup(this, 1, reducer, rp);
+ * int i = 0;
+ * while (i &lt; actors.length) {
+ *     sg.send(actors[i], request);
+ *     i += 1;
+ * }
+ * sg.finished();
+ * </pre>
+ * <p>
+ * The source actor's exception handler is replaced until the result is returned.
+ * </p>
+ *
+ * @param <RESPONSE_TYPE> The type of response returned by each branch.
+ * @param <RESULT_TYPE>   The type of the aggregated result.
+ */
+public class JAScatterGather<RESPONSE_TYPE, RESULT_TYPE> extends RP<RESPONSE_TYPE> {
+    /**
+     * Instances which are free for reuse.
+     */
+    private final List<JAScatterGather> pool;
+
+    /**
+     * Catches the exceptions returned by the branches.
+     */
+    private final ExceptionHandler branchExceptionHandler = new ExceptionHandler() {
+        @Override
+        public void process(Throwable exception) throws Exception {
+            branchException(exception);
+        }
+    };
+
+    /**
+     * The actor sending the requests.
+     */
+    private JLPCActor source;
+
+    /**
+     * The exception handler of the source actor, restored when done.
+     */
+    private ExceptionHandler previousExceptionHandler;
+
+    /**
+     * The number of successful branches needed, or 0 for all.
+     */
+    private int need;
+
+    /**
+     * The number of requests sent.
+     */
+    private int sent;
+
+    /**
+     * The number of responses and exceptions received.
+     */
+    private int received;
+
+    /**
+     * The number of successful responses received.
+     */
+    private int succeeded;
+
+    /**
+     * True when all requests have been sent.
+     */
+    private boolean finished;
+
+    /**
+     * True when the result has been returned or the scatter-gather has failed.
+     */
+    private boolean done;
+
+    /**
+     * The exception of the last failed branch.
+     */
+    private Throwable lastException;
+
+    private Reducer<RESPONSE_TYPE, RESULT_TYPE> reducer;
+
+    private RESULT_TYPE result;
+
+    /**
+     * The mechanism for responding when finished.
+     */
+    private RP<RESULT_TYPE> xrp;
+
+    /**
+     * Create a JAScatterGather.
+     *
+     * @param pool Where the instance is placed when it is free for reuse.
+     */
+    public JAScatterGather(List<JAScatterGather> pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Initialize.
+     *
+     * @param source  The actor sending the requests.
+     * @param need    The number of successful branches needed, or 0 for all.
+     * @param reducer Folds the responses into the result.
+     * @param xrp     The external RP.
+     */
+    public void setup(JLPCActor source,
+                      int need,
+                      Reducer<RESPONSE_TYPE, RESULT_TYPE> reducer,
+                      RP<RESULT_TYPE> xrp) {
+        if (need < 0)
+            throw new IllegalArgumentException("need may not be negative");
+        this.source = source;
+        this.need = need;
+        this.reducer = reducer;
+        this.xrp = xrp;
+        sent = 0;
+        received = 0;
+        succeeded = 0;
+        finished = false;
+        done = false;
+        lastException = null;
+        result = reducer.initialResult();
+        previousExceptionHandler = source.getExceptionHandler();
+        source.setExceptionHandler(branchExceptionHandler);
+    }
+
+    /**
+     * Returns true once the result has been returned or the scatter-gather has failed.
+     *
+     * @return True when no more requests need be sent.
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Send a request to one branch, unless the scatter-gather is already done.
+     *
+     * @param actor   The target actor.
+     * @param request The request.
+     * @throws Exception Any exception which fails the scatter-gather.
+     */
+    public void send(Actor actor, Request<RESPONSE_TYPE, ?> request)
+            throws Exception {
+        if (done)
+            return;
+        sent += 1;
+        source.setExceptionHandler(branchExceptionHandler);
+        try {
+            request.send(source, actor, this);
+        } catch (Exception ex) {
+            if (done)
+                throw ex;
+            branchException(ex);
+        }
+    }
+
+    /**
+     * Signals that all requests have been sent.
+     *
+     * @throws Exception Any exception which fails the scatter-gather.
+     */
+    public void finished() throws Exception {
+        finished = true;
+        if (done)
+            release();
+        else if (received == sent)
+            allReceived();
+    }
+
+    /**
+     * Receives and processes a response.
+     *
+     * @param response The response.
+     * @throws Exception Any uncaught exceptions raised when processing the response.
+     */
+    @Override
+    public void processResponse(RESPONSE_TYPE response) throws Exception {
+        received += 1;
+        if (done) {
+            release();
+            return;
+        }
+        try {
+            result = reducer.reduce(result, response);
+        } catch (Exception ex) {
+            fail(ex);
+        }
+        succeeded += 1;
+        if (succeeded == need)
+            complete();
+        else if (finished && received == sent)
+            allReceived();
+    }
+
+    /**
+     * Processes the exception returned by a branch.
+     *
+     * @param exception The exception.
+     * @throws Exception Any exception which fails the scatter-gather.
+     */
+    private void branchException(Throwable exception) throws Exception {
+        received += 1;
+        if (done) {
+            release();
+            return;
+        }
+        lastException = exception;
+        try {
+            result = reducer.reduceException(result, exception);
+        } catch (Exception ex) {
+            fail(ex);
+        }
+        if (finished && received == sent)
+            allReceived();
+    }
+
+    /**
+     * Completes the scatter-gather once every branch has responded.
+     *
+     * @throws Exception The last exception, or an IllegalStateException,
+     *                   when too few branches succeeded.
+     */
+    private void allReceived() throws Exception {
+        if (succeeded < need) {
+            if (lastException != null)
+                fail(lastException);
+            fail(new IllegalStateException(succeeded + " of " + sent +
+                    " branches succeeded, " + need + " needed"));
+        }
+        complete();
+    }
+
+    /**
+     * Returns the result.
+     *
+     * @throws Exception Any exceptions raised while processing the external response.
+     */
+    private void complete() throws Exception {
+        RP<RESULT_TYPE> x = xrp;
+        RESULT_TYPE r = result;
+        restore();
+        x.processResponse(r);
+    }
+
+    /**
+     * Fails the scatter-gather.
+     *
+     * @param ex The exception returned to the source.
+     * @throws Exception Always.
+     */
+    private void fail(Throwable ex) throws Exception {
+        finished = true;
+        restore();
+        if (ex instanceof Exception)
+            throw (Exception) ex;
+        throw (Error) ex;
+    }
+
+    /**
+     * Marks the scatter-gather as done and restores the source actor's exception handler.
+     */
+    private void restore() {
+        done = true;
+        source.setExceptionHandler(previousExceptionHandler);
+        xrp = null;
+        result = null;
+        lastException = null;
+        release();
+    }
+
+    /**
+     * Returns the instance to the pool once it is done
+     * and no further responses are expected.
+     */
+    private void release() {
+        if (source != null && finished && received == sent) {
+            source = null;
+            previousExceptionHandler = null;
+            reducer = null;
+            pool.add(this);
+        }
+    }
+}
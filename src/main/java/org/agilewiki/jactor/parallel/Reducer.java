@@ -0,0 +1,67 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.parallel;
+
+/**
+ * Folds the responses of a scatter-gather into a single result.
+ *
+ * @param <RESPONSE_TYPE> The type of response returned by each branch.
+ * @param <RESULT_TYPE>   The type of the aggregated result.
+ */
+abstract public class Reducer<RESPONSE_TYPE, RESULT_TYPE> {
+    /**
+     * Returns the result before any response has been received.
+     *
+     * @return The initial result.
+     */
+    abstract public RESULT_TYPE initialResult();
+
+    /**
+     * Folds a response into the result.
+     *
+     * @param result   The result so far.
+     * @param response The response of a branch.
+     * @return The new result.
+     * @throws Exception Any exception raised fails the scatter-gather.
+     */
+    abstract public RESULT_TYPE reduce(RESULT_TYPE result, RESPONSE_TYPE response)
+            throws Exception;
+
+    /**
+     * Applies the exception policy to a branch which has failed.
+     * By default the exception is rethrown, which fails the scatter-gather.
+     * Returning a result instead skips the branch.
+     *
+     * @param result    The result so far.
+     * @param exception The exception raised by the branch.
+     * @return The new result.
+     * @throws Exception The exception which fails the scatter-gather.
+     */
+    public RESULT_TYPE reduceException(RESULT_TYPE result, Throwable exception)
+            throws Exception {
+        if (exception instanceof Exception)
+            throw (Exception) exception;
+        throw (Error) exception;
+    }
+}
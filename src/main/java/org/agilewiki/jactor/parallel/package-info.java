@@ -27,6 +27,11 @@
  * Sending multiple requests to different actors and waiting for the responses only after all the requests have
  * been sent is the simplest form of parallel processing and is the focus of this package.
  * </p>
+ * <p>
+ * The response counters discard the responses. JAScatterGather instead folds the responses into a result
+ * using a Reducer, and can return as soon as enough branches have succeeded.
+ * JAParallelIterator processes the items of an Iterator with a bounded number of requests in flight.
+ * </p>
  */
 
 package org.agilewiki.jactor.parallel;
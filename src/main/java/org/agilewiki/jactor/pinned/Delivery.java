@@ -0,0 +1,67 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.pinned;
+
+/**
+ * An event or task passed to an event loop by another thread.
+ */
+final class Delivery {
+    /**
+     * The queue to which the event is added, or null.
+     */
+    final PinnedEventQueue queue;
+
+    /**
+     * The event.
+     */
+    final Object event;
+
+    /**
+     * The task to be run, or null.
+     */
+    final Runnable task;
+
+    /**
+     * Create a Delivery of an event.
+     *
+     * @param queue The queue to which the event is added.
+     * @param event The event.
+     */
+    Delivery(final PinnedEventQueue queue, final Object event) {
+        this.queue = queue;
+        this.event = event;
+        this.task = null;
+    }
+
+    /**
+     * Create a Delivery of a task.
+     *
+     * @param task The task to be run.
+     */
+    Delivery(final Runnable task) {
+        this.queue = null;
+        this.event = null;
+        this.task = task;
+    }
+}
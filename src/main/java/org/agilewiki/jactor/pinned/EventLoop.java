@@ -0,0 +1,219 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.pinned;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.LockSupport;
+
+import org.agilewiki.jactor.concurrent.JAMpscQueue;
+import org.agilewiki.jactor.concurrent.JASpscQueue;
+
+/**
+ * <p>
+ * A single-threaded event loop, which processes the events of the mailboxes bound to it.
+ * </p>
+ * <p>
+ * Events from other event loops of the same thread manager arrive through
+ * one single-producer single-consumer queue per loop. Events from any other thread
+ * arrive through a multi-producer queue.
+ * </p>
+ */
+final class EventLoop implements Runnable {
+    /**
+     * The event loop of the current thread, or null.
+     */
+    private static final ThreadLocal<EventLoop> current = new ThreadLocal<EventLoop>();
+
+    /**
+     * The index of this event loop.
+     */
+    final int index;
+
+    /**
+     * The thread manager which owns this event loop.
+     */
+    final JAPinnedThreadManager threadManager;
+
+    /**
+     * The thread of this event loop.
+     */
+    volatile Thread thread;
+
+    /**
+     * Set while the thread is parked, or about to be.
+     */
+    private volatile boolean sleeping;
+
+    /**
+     * The event queues with pending events.
+     */
+    private final ArrayDeque<PinnedEventQueue> ready = new ArrayDeque<PinnedEventQueue>();
+
+    /**
+     * The deliveries from each of the event loops, indexed by the index of the sending loop.
+     */
+    private final JASpscQueue<Delivery>[] inboxes;
+
+    /**
+     * The deliveries from threads which are not event loops of the thread manager.
+     */
+    private final JAMpscQueue<Delivery> external = new JAMpscQueue<Delivery>();
+
+    /**
+     * Create an EventLoop.
+     *
+     * @param threadManager The thread manager which owns this event loop.
+     * @param index         The index of this event loop.
+     * @param loopCount     The number of event loops.
+     */
+    @SuppressWarnings("unchecked")
+    EventLoop(final JAPinnedThreadManager threadManager, final int index,
+            final int loopCount) {
+        this.threadManager = threadManager;
+        this.index = index;
+        inboxes = new JASpscQueue[loopCount];
+        int i = 0;
+        while (i < loopCount) {
+            inboxes[i] = new JASpscQueue<Delivery>();
+            i += 1;
+        }
+    }
+
+    /**
+     * Returns true when called on the thread of this event loop.
+     *
+     * @return True when called on the thread of this event loop.
+     */
+    boolean isCurrent() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Schedule an event queue with pending events.
+     * Must only be called on the thread of this event loop.
+     *
+     * @param queue The event queue.
+     */
+    void ready(final PinnedEventQueue queue) {
+        ready.add(queue);
+    }
+
+    /**
+     * Pass an event or task to this event loop from another thread.
+     *
+     * @param delivery The event or task.
+     */
+    void post(final Delivery delivery) {
+        final EventLoop source = current.get();
+        if (source != null && source.threadManager == threadManager)
+            inboxes[source.index].offer(delivery);
+        else
+            external.offer(delivery);
+        if (sleeping)
+            LockSupport.unpark(thread);
+    }
+
+    @Override
+    public void run() {
+        current.set(this);
+        while (!threadManager.closing) {
+            final boolean received = receive();
+            final PinnedEventQueue queue = ready.poll();
+            if (queue != null) {
+                try {
+                    queue.run();
+                } catch (final Throwable e) {
+                    threadManager.logException(false,
+                            "Exception thrown while processing events", e);
+                }
+            } else if (!received) {
+                sleeping = true;
+                if (isIdle() && !threadManager.closing)
+                    LockSupport.park(this);
+                sleeping = false;
+            }
+        }
+    }
+
+    /**
+     * Take the deliveries from other threads.
+     *
+     * @return True when there were any deliveries.
+     */
+    private boolean receive() {
+        boolean received = false;
+        int i = 0;
+        while (i < inboxes.length) {
+            final JASpscQueue<Delivery> inbox = inboxes[i];
+            Delivery delivery = inbox.poll();
+            while (delivery != null) {
+                deliver(delivery);
+                received = true;
+                delivery = inbox.poll();
+            }
+            i += 1;
+        }
+        Delivery delivery = external.poll();
+        while (delivery != null) {
+            deliver(delivery);
+            received = true;
+            delivery = external.poll();
+        }
+        return received;
+    }
+
+    /**
+     * Add a delivered event to its queue, or run a delivered task.
+     *
+     * @param delivery The event or task.
+     */
+    @SuppressWarnings("unchecked")
+    private void deliver(final Delivery delivery) {
+        if (delivery.task == null) {
+            delivery.queue.putLocal(delivery.event);
+            return;
+        }
+        try {
+            delivery.task.run();
+        } catch (final Throwable e) {
+            threadManager.logException(false,
+                    "Exception thrown by a task's run method", e);
+        }
+    }
+
+    /**
+     * Returns true when there are no deliveries pending.
+     *
+     * @return True when there are no deliveries pending.
+     */
+    private boolean isIdle() {
+        int i = 0;
+        while (i < inboxes.length) {
+            if (!inboxes[i].isEmpty())
+                return false;
+            i += 1;
+        }
+        return external.isEmpty();
+    }
+}
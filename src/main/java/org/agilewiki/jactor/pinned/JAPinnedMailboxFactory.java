@@ -0,0 +1,161 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.pinned;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.Mailbox;
+import org.agilewiki.jactor.apc.JAMessage;
+import org.agilewiki.jactor.bufferedEvents.JABufferedEventsQueue;
+import org.agilewiki.jactor.lpc.JLPCMailbox;
+
+/**
+ * <p>
+ * A thread-per-core MailboxFactory. Mailboxes are partitioned across a number of
+ * single-threaded event loops, and each mailbox is permanently bound to its event loop.
+ * </p>
+ * <p>
+ * Requests between mailboxes on the same event loop are processed without any atomic
+ * operations, and are usually processed synchronously by commandeering the target mailbox.
+ * Messages between event loops pass through single-producer single-consumer queues.
+ * A target mailbox on another event loop is never commandeered.
+ * </p>
+ * <pre>
+ *         JAPinnedMailboxFactory mailboxFactory = JAPinnedMailboxFactory.newPinnedMailboxFactory(4);
+ *         try {
+ *             Mailbox mailbox = mailboxFactory.createMailbox(0);
+ *             ...
+ *         } finally {
+ *             mailboxFactory.close();
+ *         }
+ * </pre>
+ * <p>
+ * Java provides no way to bind a thread to a core, so the operating system
+ * is relied on to keep each event loop on its core.
+ * </p>
+ */
+public class JAPinnedMailboxFactory extends JAMailboxFactory {
+    /**
+     * The event loops.
+     */
+    private final JAPinnedThreadManager threadManager;
+
+    /**
+     * The event loop for the next mailbox created without an explicit event loop.
+     */
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Create a JAPinnedMailboxFactory.
+     *
+     * @param threadManager The event loops.
+     */
+    public JAPinnedMailboxFactory(final JAPinnedThreadManager threadManager) {
+        super(threadManager);
+        this.threadManager = threadManager;
+    }
+
+    /**
+     * Create a JAPinnedMailboxFactory.
+     *
+     * @param loopCount The number of event loops.
+     * @return A new JAPinnedMailboxFactory.
+     */
+    public static JAPinnedMailboxFactory newPinnedMailboxFactory(final int loopCount) {
+        return new JAPinnedMailboxFactory(
+                JAPinnedThreadManager.newThreadManager(loopCount));
+    }
+
+    /**
+     * Returns the number of event loops.
+     *
+     * @return The number of event loops.
+     */
+    public int getLoopCount() {
+        return threadManager.getLoopCount();
+    }
+
+    /**
+     * Returns the event loop for the next mailbox, in rotation.
+     */
+    private int nextLoop() {
+        return (next.getAndIncrement() & Integer.MAX_VALUE) % threadManager.getLoopCount();
+    }
+
+    /**
+     * Create a mailbox, bound to the next event loop in rotation.
+     *
+     * @return A new mailbox.
+     */
+    @Override
+    public Mailbox createMailbox() {
+        return createMailbox(nextLoop(), false);
+    }
+
+    /**
+     * Create an asynchronous mailbox, bound to the next event loop in rotation.
+     *
+     * @return A new asynchronous mailbox.
+     */
+    @Override
+    public Mailbox createAsyncMailbox() {
+        return createMailbox(nextLoop(), true);
+    }
+
+    /**
+     * Create a mailbox bound to the given event loop.
+     *
+     * @param loop The index of the event loop.
+     * @return A new mailbox.
+     */
+    public Mailbox createMailbox(final int loop) {
+        return createMailbox(loop, false);
+    }
+
+    /**
+     * Create an asynchronous mailbox bound to the given event loop.
+     *
+     * @param loop The index of the event loop.
+     * @return A new asynchronous mailbox.
+     */
+    public Mailbox createAsyncMailbox(final int loop) {
+        return createMailbox(loop, true);
+    }
+
+    /**
+     * Create a mailbox bound to the given event loop.
+     *
+     * @param loop  The index of the event loop.
+     * @param async Set to true when requests from other mailboxes
+     *              are to be processed asynchronously.
+     * @return A new mailbox.
+     */
+    private Mailbox createMailbox(final int loop, final boolean async) {
+        return new JLPCMailbox(new JABufferedEventsQueue<JAMessage>(
+                new PinnedEventQueue<List<JAMessage>>(threadManager, loop, async)),
+                this);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.pinned;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+
+import org.agilewiki.jactor.concurrent.JAThreadFactory;
+import org.agilewiki.jactor.concurrent.ThreadManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * A ThreadManager made up of single-threaded event loops. The event queues of pinned mailboxes
+ * are each bound to one event loop, so their events are always processed on the same thread.
+ * </p>
+ * <p>
+ * Tasks passed to process are run by the event loops in turn.
+ * </p>
+ */
+final public class JAPinnedThreadManager implements ThreadManager {
+    final Logger logger = LoggerFactory.getLogger(JAPinnedThreadManager.class);
+
+    /**
+     * When closing is true, the event loops exit.
+     */
+    volatile boolean closing;
+
+    /**
+     * The event loops.
+     */
+    private EventLoop[] loops;
+
+    /**
+     * The event loop to be given the next task, approximately.
+     */
+    private int next;
+
+    /**
+     * Create a JAPinnedThreadManager.
+     *
+     * @param loopCount The number of event loops.
+     * @return A new JAPinnedThreadManager.
+     */
+    public static JAPinnedThreadManager newThreadManager(final int loopCount) {
+        return newThreadManager(loopCount, new JAThreadFactory());
+    }
+
+    /**
+     * Create a JAPinnedThreadManager.
+     *
+     * @param loopCount     The number of event loops.
+     * @param threadFactory Used to create the threads.
+     * @return A new JAPinnedThreadManager.
+     */
+    public static JAPinnedThreadManager newThreadManager(final int loopCount,
+            final ThreadFactory threadFactory) {
+        final JAPinnedThreadManager threadManager = new JAPinnedThreadManager();
+        threadManager.start(loopCount, threadFactory);
+        return threadManager;
+    }
+
+    /**
+     * Create and start the event loops, one thread each.
+     *
+     * @param threadCount   The number of event loops.
+     * @param threadFactory Used to create the threads.
+     */
+    @Override
+    public void start(final int threadCount, final ThreadFactory threadFactory) {
+        if (threadCount < 1)
+            throw new IllegalArgumentException("threadCount must be at least 1");
+        if (loops != null)
+            throw new IllegalStateException("already started");
+        loops = new EventLoop[threadCount];
+        int i = 0;
+        while (i < threadCount) {
+            final EventLoop loop = new EventLoop(this, i, threadCount);
+            loop.thread = threadFactory.newThread(loop);
+            loops[i] = loop;
+            i += 1;
+        }
+        i = 0;
+        while (i < threadCount) {
+            loops[i].thread.start();
+            i += 1;
+        }
+    }
+
+    /**
+     * Returns the number of event loops.
+     *
+     * @return The number of event loops.
+     */
+    public int getLoopCount() {
+        return loops.length;
+    }
+
+    /**
+     * Returns an event loop.
+     *
+     * @param index The index of the event loop.
+     * @return The event loop.
+     */
+    EventLoop getLoop(final int index) {
+        if (index < 0 || index >= loops.length)
+            throw new IllegalArgumentException("no such event loop: " + index);
+        return loops[index];
+    }
+
+    /**
+     * Begin running a task on one of the event loops.
+     *
+     * @param task A task to be processed on another thread.
+     */
+    @Override
+    public void process(final Runnable task) {
+        final int n = next;
+        next = n + 1;
+        loops[(n & Integer.MAX_VALUE) % loops.length].post(new Delivery(task));
+    }
+
+    /**
+     * Stop the event loops.
+     * This method only returns after all the threads have died,
+     * other than the thread calling close.
+     */
+    @Override
+    public void close() {
+        closing = true;
+        final Thread ct = Thread.currentThread();
+        for (final EventLoop loop : loops) {
+            LockSupport.unpark(loop.thread);
+        }
+        for (final EventLoop loop : loops) {
+            if (ct != loop.thread) {
+                try {
+                    loop.thread.join();
+                } catch (final InterruptedException e) {
+                }
+            }
+        }
+    }
+
+    @Override
+    public void logException(final boolean fatal, final String msg,
+            final Throwable exception) {
+        if (fatal)
+            logger.error(msg, exception);
+        else
+            logger.warn(msg, exception);
+    }
+}
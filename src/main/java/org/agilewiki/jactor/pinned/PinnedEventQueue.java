@@ -0,0 +1,214 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.pinned;
+
+import java.util.ArrayDeque;
+
+import org.agilewiki.jactor.events.EventProcessor;
+import org.agilewiki.jactor.events.EventQueue;
+
+/**
+ * <p>
+ * An event queue which is permanently bound to one event loop of a JAPinnedThreadManager,
+ * so its events are always processed on the same thread.
+ * </p>
+ * <p>
+ * Events put on the queue by the thread of its event loop are queued without any atomic
+ * operations or memory barriers. Events from other threads are first passed to the event loop.
+ * The queue can only be commandeered by the thread of its own event loop.
+ * </p>
+ *
+ * @param <E> The type of event.
+ */
+final public class PinnedEventQueue<E> implements EventQueue<E> {
+    /**
+     * The event loop which processes the events.
+     */
+    private final EventLoop loop;
+
+    /**
+     * Inhibits the acquireControl operation.
+     */
+    private final boolean autonomous;
+
+    /**
+     * The pending events, only accessed by the thread of the event loop.
+     */
+    private final ArrayDeque<E> queue = new ArrayDeque<E>();
+
+    /**
+     * Set to null when idle, set to this when under internal control,
+     * and is otherwise under external control.
+     * Only updated by the thread of the event loop.
+     */
+    private EventQueue<E> control;
+
+    /**
+     * Set true while the queue is waiting to be run by the event loop.
+     */
+    private boolean scheduled;
+
+    /**
+     * Process the dispatched events.
+     */
+    private EventProcessor<E> eventProcessor;
+
+    /**
+     * Creates a PinnedEventQueue.
+     *
+     * @param threadManager Provides the event loops.
+     * @param loop          The index of the event loop which is to process the events.
+     * @param autonomous    Inhibits the acquireControl operation when true.
+     */
+    public PinnedEventQueue(final JAPinnedThreadManager threadManager,
+            final int loop, final boolean autonomous) {
+        this.loop = threadManager.getLoop(loop);
+        this.autonomous = autonomous;
+    }
+
+    /**
+     * Add an event, on the thread of the event loop.
+     *
+     * @param event The event.
+     */
+    void putLocal(final E event) {
+        queue.add(event);
+        schedule();
+    }
+
+    /**
+     * Have the event loop run the queue, unless it is controlled or already scheduled.
+     */
+    private void schedule() {
+        if (control == null && !scheduled && !queue.isEmpty()) {
+            scheduled = true;
+            loop.ready(this);
+        }
+    }
+
+    /**
+     * Process the pending events, on the thread of the event loop.
+     */
+    void run() {
+        scheduled = false;
+        if (control != null)
+            return;
+        control = this;
+        try {
+            while (!queue.isEmpty())
+                eventProcessor.haveEvents();
+        } finally {
+            control = null;
+        }
+    }
+
+    /**
+     * Gain control of the queue.
+     * Only the thread of the event loop can gain control.
+     *
+     * @param controller A queue.
+     * @return True when control was acquired.
+     */
+    @Override
+    public boolean acquireControl(final EventQueue<E> controller) {
+        if (autonomous || control != null || !loop.isCurrent())
+            return false;
+        control = controller.getController();
+        return true;
+    }
+
+    /**
+     * Relinquish foreign control over the queue.
+     */
+    @Override
+    public void relinquishControl() {
+        if (control == this)
+            return;
+        control = null;
+        schedule();
+    }
+
+    /**
+     * Returns the controlling queue.
+     * When called by another thread, the result is never
+     * a queue controlled by the calling thread.
+     *
+     * @return The controlling queue.
+     */
+    @Override
+    public EventQueue<E> getController() {
+        final EventQueue<E> c = control;
+        if (c == null)
+            return this;
+        return c;
+    }
+
+    /**
+     * Specifies the object which will process the dispatched events.
+     *
+     * @param eventProcessor Processes the dispatched events.
+     */
+    @Override
+    public void setActiveEventProcessor(final EventProcessor<E> eventProcessor) {
+        this.eventProcessor = eventProcessor;
+    }
+
+    /**
+     * The isEmpty method returns true when there are no pending events,
+     * though the results are only approximate when called by another thread.
+     */
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    /**
+     * The putEvent method adds an event to the queue of events to be processed.
+     *
+     * @param event The event to be processed.
+     */
+    @Override
+    public void putEvent(final E event) {
+        if (loop.isCurrent())
+            putLocal(event);
+        else
+            loop.post(new Delivery(this, event));
+    }
+
+    /**
+     * The dispatchEvents method processes any events in the queue.
+     * True is returned if any events were actually processed.
+     */
+    @Override
+    public boolean dispatchEvents() {
+        E event = queue.poll();
+        if (event == null)
+            return false;
+        while (event != null) {
+            eventProcessor.processEvent(event);
+            event = queue.poll();
+        }
+        return true;
+    }
+}
@@ -26,12 +26,26 @@ package org.agilewiki.jactor.properties;
 import org.agilewiki.jactor.Actor;
 import org.agilewiki.jactor.lpc.JLPCActor;
 
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * <p>
  * GetProperties first checks the component's own table of name/value pairs. If the property is not
  * found and its parent also has a Properties component, then the request is passed up to
  * the parent.
+ * </p>
+ * <p>
+ * Resolved values are cached. Each component has a version which every change to its
+ * properties increments, and a cached value is stamped with the versions of the components
+ * searched to find it. So a change made by an ancestor is seen on the next read, while
+ * changes elsewhere leave the cache alone, and a read checks the versions rather than
+ * searching the table of each ancestor. Properties which are not found are not cached,
+ * so looking up names which are never set does not grow the cache.
+ * Properties are expected to change rarely relative to how often they are read.
+ * </p>
  */
 public class JAProperties
         extends JLPCActor
@@ -55,23 +69,77 @@ public class JAProperties
         ((Properties) targetActor).setProperty(propertyName, propertyValue);
     }
 
+    /**
+     * Incremented whenever a property of this component is changed.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * This component and the Properties components it inherits from, nearest first,
+     * or null until first needed. Only the last may be other than a JAProperties.
+     */
+    private volatile Properties[] chain;
+
     /**
      * Table of registered actors.
      */
     private ConcurrentSkipListMap<String, Object> properties =
             new ConcurrentSkipListMap<String, Object>();
 
+    /**
+     * The resolved values, by property name.
+     */
+    private ConcurrentHashMap<String, Resolved> cache =
+            new ConcurrentHashMap<String, Resolved>();
+
     @Override
     public Object getProperty(String propertyName)
             throws Exception {
-        if (properties.containsKey(propertyName))
-            return properties.get(propertyName);
-        Actor targetActor = getParent();
-        if (targetActor != null)
-            targetActor = targetActor.getMatch(Properties.class);
-        if (targetActor == null)
-            return null;
-        return ((Properties) targetActor).getProperty(propertyName);
+        Resolved resolved = cache.get(propertyName);
+        if (resolved != null && resolved.isCurrent())
+            return resolved.value;
+        Properties[] c = chain();
+        long[] versions = new long[c.length];
+        int i = 0;
+        while (i < c.length) {
+            Properties p = c[i];
+            if (!(p instanceof JAProperties))
+                return p.getProperty(propertyName);
+            JAProperties jap = (JAProperties) p;
+            versions[i] = jap.version.get();
+            Object value = jap.properties.get(propertyName);
+            i += 1;
+            if (value != null) {
+                cache.put(propertyName, new Resolved(value, c, versions, i));
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns this component and the Properties components it inherits from, nearest first.
+     *
+     * @return The components to be searched for a property.
+     */
+    private Properties[] chain() {
+        Properties[] c = chain;
+        if (c != null)
+            return c;
+        ArrayList<Properties> list = new ArrayList<Properties>();
+        Properties p = this;
+        while (p != null) {
+            list.add(p);
+            if (!(p instanceof JAProperties))
+                break;
+            Actor targetActor = ((JAProperties) p).getParent();
+            if (targetActor != null)
+                targetActor = targetActor.getMatch(Properties.class);
+            p = (Properties) targetActor;
+        }
+        c = list.toArray(new Properties[list.size()]);
+        chain = c;
+        return c;
     }
 
     /**
@@ -82,6 +150,44 @@ public class JAProperties
      */
     @Override
     public void setProperty(String propertyName, Object propertyValue) {
-        properties.put(propertyName, propertyValue);
+        Object old = properties.put(propertyName, propertyValue);
+        if (!propertyValue.equals(old))
+            version.incrementAndGet();
+    }
+
+    /**
+     * A cached value and the versions of the components searched to resolve it.
+     */
+    private static final class Resolved {
+        final Object value;
+        final Properties[] chain;
+        final long[] versions;
+
+        /**
+         * The number of components searched.
+         */
+        final int depth;
+
+        Resolved(Object value, Properties[] chain, long[] versions, int depth) {
+            this.value = value;
+            this.chain = chain;
+            this.versions = versions;
+            this.depth = depth;
+        }
+
+        /**
+         * Returns true when none of the components searched has changed since.
+         *
+         * @return True when the value is current.
+         */
+        boolean isCurrent() {
+            int i = 0;
+            while (i < depth) {
+                if (((JAProperties) chain[i]).version.get() != versions[i])
+                    return false;
+                i += 1;
+            }
+            return true;
+        }
     }
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.pubsub.publisher;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+import org.agilewiki.jactor.pubsub.subscriber.Subscriber;
+
+/**
+ * Carries a published event to a group of subscribers which share a mailbox,
+ * so that only one message is passed to that mailbox.
+ * The batch is sent as an event to the first subscriber of the group,
+ * which then passes the published request as an event to each member locally.
+ */
+final class BatchEvent extends Request<Object, Subscriber> {
+    /**
+     * The request being published.
+     */
+    private final Request publishRequest;
+
+    /**
+     * The subscribers sharing a mailbox.
+     */
+    private final Subscriber[] members;
+
+    /**
+     * Create a BatchEvent request.
+     *
+     * @param publishRequest The request being published.
+     * @param members        The subscribers sharing a mailbox.
+     */
+    BatchEvent(Request publishRequest, Subscriber[] members) {
+        this.publishRequest = publishRequest;
+        this.members = members;
+    }
+
+    /**
+     * Returns true when targetActor is an instanceof TARGET_TYPE
+     *
+     * @param targetActor The actor to be called.
+     * @return True when targetActor is an instanceof TARGET_TYPE.
+     */
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Subscriber;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        int n = members.length;
+        int i = 0;
+        while (i < n) {
+            members[i].acceptEvent(targetActor, publishRequest);
+            i += 1;
+        }
+        rp.processResponse(null);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.pubsub.publisher;
+
+/**
+ * The delivery metrics of a subscriber, as captured by a publisher
+ * which is monitoring its subscribers.
+ */
+final public class DeliveryMetrics {
+    private final long delivered;
+    private final int inFlight;
+    private final long totalLatencyNanos;
+    private final long maxLatencyNanos;
+    private final long lastLatencyNanos;
+    private final long oldestInFlightNanos;
+
+    DeliveryMetrics(long delivered,
+                    int inFlight,
+                    long totalLatencyNanos,
+                    long maxLatencyNanos,
+                    long lastLatencyNanos,
+                    long oldestInFlightNanos) {
+        this.delivered = delivered;
+        this.inFlight = inFlight;
+        this.totalLatencyNanos = totalLatencyNanos;
+        this.maxLatencyNanos = maxLatencyNanos;
+        this.lastLatencyNanos = lastLatencyNanos;
+        this.oldestInFlightNanos = oldestInFlightNanos;
+    }
+
+    /**
+     * Returns the number of requests to which the subscriber has responded.
+     *
+     * @return The number of completed deliveries.
+     */
+    public long getDelivered() {
+        return delivered;
+    }
+
+    /**
+     * Returns the number of requests sent to the subscriber which have yet to be responded to.
+     *
+     * @return The number of deliveries in flight.
+     */
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Returns the mean time from publish to response.
+     *
+     * @return The mean latency in nanoseconds, or 0 when nothing has been delivered.
+     */
+    public long getMeanLatencyNanos() {
+        if (delivered == 0)
+            return 0;
+        return totalLatencyNanos / delivered;
+    }
+
+    /**
+     * Returns the longest time from publish to response.
+     *
+     * @return The maximum latency in nanoseconds.
+     */
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos;
+    }
+
+    /**
+     * Returns the time from publish to response of the last completed delivery.
+     *
+     * @return The last latency in nanoseconds.
+     */
+    public long getLastLatencyNanos() {
+        return lastLatencyNanos;
+    }
+
+    /**
+     * Returns how long the oldest delivery in flight has been waiting.
+     *
+     * @return The age in nanoseconds, or 0 when nothing is in flight.
+     */
+    public long getOldestInFlightNanos() {
+        return oldestInFlightNanos;
+    }
+}
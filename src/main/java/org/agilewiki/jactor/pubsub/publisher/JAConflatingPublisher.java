@@ -0,0 +1,249 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.pubsub.publisher;
+
+import org.agilewiki.jactor.ExceptionHandler;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.Request;
+import org.agilewiki.jactor.pubsub.subscriber.Subscriber;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * <p>
+ * A publisher for last-value-wins topics.
+ * </p>
+ * <p>
+ * Each subscriber has at most one Conflatable request in flight. Requests published
+ * while a subscriber is busy are held, one per conflation key, and a later request
+ * replaces a held request with the same key. When the subscriber responds, the
+ * earliest held key is delivered next. So a slow subscriber sees only the latest value
+ * of each key, and what is held for it is bounded by the number of keys.
+ * </p>
+ * <p>
+ * Publish responds as soon as the request has been delivered or held, with the number
+ * of subscribers targeted, rather than waiting for the subscribers to respond.
+ * Requests which are not Conflatable are published as by JAPublisher,
+ * and so may overtake held requests.
+ * </p>
+ * <p>
+ * A subscriber which never responds is never sent another Conflatable request.
+ * A subscriber which fails is sent the next held request all the same, and the
+ * failure is passed to the mailbox factory as an event exception.
+ * </p>
+ */
+public class JAConflatingPublisher extends JAPublisher {
+    /**
+     * The delivery state of each subscriber which has been sent a Conflatable request.
+     */
+    private HashMap<Subscriber, Lane> lanes = new HashMap<Subscriber, Lane>();
+
+    /**
+     * The number of held requests replaced by later ones.
+     */
+    private long conflatedCount;
+
+    /**
+     * Returns the number of held requests which have been replaced by later ones.
+     *
+     * @return The number of requests conflated.
+     */
+    public long getConflatedCount() {
+        return conflatedCount;
+    }
+
+    /**
+     * Unsubscribe from the publisher.
+     * Any requests held for the subscriber are dropped.
+     *
+     * @param subscriber The subscribing actor.
+     * @return True when an actor is unsubscribed.
+     */
+    @Override
+    public boolean unsubscribe(Subscriber subscriber)
+            throws Exception {
+        if (!super.unsubscribe(subscriber))
+            return false;
+        Lane lane = lanes.remove(subscriber);
+        if (lane != null)
+            lane.close();
+        return true;
+    }
+
+    /**
+     * Publish a request to all the appropriate subscribers.
+     * A Conflatable request is delivered to, or held for, each subscriber,
+     * and the response is returned without waiting for the subscribers.
+     *
+     * @param publishRequest The request to be published.
+     * @param rp             The response processor.
+     */
+    @Override
+    public void publish(Request publishRequest, RP rp)
+            throws Exception {
+        if (!(publishRequest instanceof Conflatable)) {
+            super.publish(publishRequest, rp);
+            return;
+        }
+        rp.processResponse(conflate(publishRequest));
+    }
+
+    /**
+     * Publish a request as an event to all the appropriate subscribers.
+     * A Conflatable request is delivered to, or held for, each subscriber.
+     *
+     * @param publishRequest The request to be published.
+     * @return The number of subscribers to which the request was sent or for which it is held.
+     */
+    @Override
+    public int publishEvent(Request publishRequest)
+            throws Exception {
+        if (!(publishRequest instanceof Conflatable))
+            return super.publishEvent(publishRequest);
+        return conflate(publishRequest);
+    }
+
+    /**
+     * Deliver or hold a Conflatable request for each target.
+     *
+     * @param publishRequest The request to be published.
+     * @return The number of subscribers targeted.
+     */
+    private int conflate(Request publishRequest)
+            throws Exception {
+        Object key = ((Conflatable) publishRequest).getConflationKey();
+        Subscriber[] targets = targets(publishRequest);
+        int n = targets.length;
+        int i = 0;
+        while (i < n) {
+            Subscriber subscriber = targets[i];
+            Lane lane = lanes.get(subscriber);
+            if (lane == null) {
+                lane = new Lane(subscriber);
+                lanes.put(subscriber, lane);
+            }
+            lane.offer(key, publishRequest);
+            i += 1;
+        }
+        return n;
+    }
+
+    /**
+     * The request in flight to a subscriber and the requests held for it.
+     * The lane is also the exception handler for the request in flight,
+     * as a subscriber on another mailbox returns its exceptions asynchronously.
+     */
+    private final class Lane extends RP implements ExceptionHandler {
+        private final Subscriber subscriber;
+
+        /**
+         * The held requests, by key, in the order the keys were first held.
+         */
+        private final LinkedHashMap<Object, Request> held = new LinkedHashMap<Object, Request>();
+
+        /**
+         * True while a request is in flight.
+         */
+        private boolean busy;
+
+        /**
+         * The request in flight, or null.
+         */
+        private Request inFlight;
+
+        /**
+         * True once the subscriber has unsubscribed.
+         */
+        private boolean closed;
+
+        Lane(Subscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void offer(Object key, Request request)
+                throws Exception {
+            if (!busy) {
+                deliver(request);
+                return;
+            }
+            if (held.put(key, request) != null)
+                conflatedCount += 1;
+        }
+
+        void close() {
+            closed = true;
+            held.clear();
+        }
+
+        private void deliver(Request request)
+                throws Exception {
+            busy = true;
+            inFlight = request;
+            ExceptionHandler exceptionHandler = getExceptionHandler();
+            setExceptionHandler(this);
+            try {
+                request.send(JAConflatingPublisher.this, subscriber, this);
+            } catch (Exception ex) {
+                process(ex);
+            } finally {
+                setExceptionHandler(exceptionHandler);
+            }
+        }
+
+        /**
+         * The subscriber has failed, so report the failure and deliver the next held request.
+         *
+         * @param exception The exception raised by the subscriber.
+         */
+        @Override
+        public void process(Throwable exception)
+                throws Exception {
+            getMailboxFactory().eventException(inFlight, exception);
+            processResponse(null);
+        }
+
+        /**
+         * The subscriber has responded, so deliver the next held request.
+         *
+         * @param response The response.
+         */
+        @Override
+        public void processResponse(Object response)
+                throws Exception {
+            inFlight = null;
+            if (closed)
+                return;
+            Iterator<Request> it = held.values().iterator();
+            if (!it.hasNext()) {
+                busy = false;
+                return;
+            }
+            Request next = it.next();
+            it.remove();
+            deliver(next);
+        }
+    }
+}
@@ -0,0 +1,449 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.pubsub.publisher;
+
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.Request;
+import org.agilewiki.jactor.parallel.JAScatterGather;
+import org.agilewiki.jactor.parallel.Reducer;
+import org.agilewiki.jactor.pubsub.subscriber.Subscriber;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * <p>
+ * A publisher which splits its subscribers across a tree of child publishers,
+ * so that the sends of a large fan-out are spread over many threads.
+ * </p>
+ * <p>
+ * Until it has more than capacity subscribers, a partitioned publisher behaves as a
+ * JAPublisher. It then creates fanout children, each on its own asynchronous mailbox,
+ * and moves its subscribers to them by hash of actor name. The children are partitioned
+ * publishers as well, so they split in turn as they grow and the depth of the tree,
+ * and so the latency of a publish, grows with the log of the number of subscribers.
+ * </p>
+ * <p>
+ * Only the leaves of the tree keep the registry and routes of a JAPublisher.
+ * Once split, the root keeps just the subscribers by name, so subscribe, unsubscribe
+ * and getSubscriber still answer immediately, while the publishers in between
+ * keep nothing but their children. Changes are passed down as events,
+ * which the children process before any later publish.
+ * Publish responds with the sum of the counts returned by the children.
+ * </p>
+ * <p>
+ * A slow subscriber threshold is passed down to the children, including those created
+ * by later splits, so the leaves monitor their own subscribers. The delivery metrics
+ * of a split publisher are therefore not gathered: getDeliveryMetrics returns null,
+ * and getSlowSubscribers and getDroppedCount cover only its own subscribers, of which
+ * it has none. A slow subscriber dropped by a leaf is also unsubscribed from the root.
+ * </p>
+ */
+public class JAPartitionedPublisher extends JAPublisher {
+    /**
+     * Sums the counts returned by the children.
+     */
+    private static final Reducer<Integer, Integer> SUM = new Reducer<Integer, Integer>() {
+        @Override
+        public Integer initialResult() {
+            return 0;
+        }
+
+        @Override
+        public Integer reduce(Integer result, Integer response) {
+            return result + response;
+        }
+    };
+
+    /**
+     * The deepest level which may still split, which bounds the tree
+     * even when many actor names share a hash code.
+     */
+    private static final int MAX_LEVEL = 7;
+
+    /**
+     * The number of children created when splitting.
+     */
+    private final int fanout;
+
+    /**
+     * The number of subscribers held before splitting.
+     */
+    private final int capacity;
+
+    /**
+     * The depth of this publisher in the tree, 0 for the root.
+     * Each level partitions on a different hash, so that a child's subscribers
+     * are spread over all of its own children.
+     */
+    private final int level;
+
+    /**
+     * The root of the tree.
+     */
+    private JAPartitionedPublisher root = this;
+
+    /**
+     * The slow subscriber threshold in milliseconds, passed down to the children.
+     */
+    private long thresholdMillis;
+
+    /**
+     * True when slow subscribers are unsubscribed.
+     */
+    private boolean unsubscribeSlow;
+
+    /**
+     * The children, or null before splitting.
+     */
+    private JAPartitionedPublisher[] children;
+
+    /**
+     * The subscribers by actor name, kept by the root once it has split. Null otherwise.
+     */
+    private HashMap<String, Subscriber> names;
+
+    /**
+     * The number of subscribers targeted by each class of request published as an event,
+     * kept by the root once it has split. Null otherwise.
+     */
+    private HashMap<Class, Count> counts;
+
+    private ArrayList<JAScatterGather> gatherPool = new ArrayList<JAScatterGather>();
+
+    /**
+     * Create a JAPartitionedPublisher with a fanout of 16 and a capacity of 1024.
+     */
+    public JAPartitionedPublisher() {
+        this(16, 1024);
+    }
+
+    /**
+     * Create a JAPartitionedPublisher.
+     *
+     * @param fanout   The number of children created when splitting.
+     * @param capacity The number of subscribers held before splitting.
+     */
+    public JAPartitionedPublisher(int fanout, int capacity) {
+        this(fanout, capacity, 0);
+    }
+
+    private JAPartitionedPublisher(int fanout, int capacity, int level) {
+        if (fanout < 2)
+            throw new IllegalArgumentException("fanout must be at least 2");
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be at least 1");
+        this.fanout = fanout;
+        this.capacity = capacity;
+        this.level = level;
+    }
+
+    /**
+     * Returns true once the subscribers have been moved to child publishers.
+     *
+     * @return True when the publisher has been split.
+     */
+    public boolean isSplit() {
+        return children != null;
+    }
+
+    /**
+     * Subscribe to the publisher.
+     *
+     * @param subscriber The subscribing actor.
+     * @return True when a new name has been added.
+     */
+    @Override
+    public boolean subscribe(Subscriber subscriber)
+            throws Exception {
+        if (children == null) {
+            if (!super.subscribe(subscriber))
+                return false;
+            if (subscribers.size() > capacity && level < MAX_LEVEL)
+                split();
+            return true;
+        }
+        if (names != null) {
+            String actorName = subscriber.getActorName();
+            if (names.containsKey(actorName))
+                return false;
+            names.put(actorName, subscriber);
+            count(subscriber, 1);
+        }
+        new Subscribe(subscriber).sendEvent(this, child(subscriber));
+        return true;
+    }
+
+    /**
+     * Unsubscribe from the publisher.
+     *
+     * @param subscriber The subscribing actor.
+     * @return True when an actor is unsubscribed.
+     */
+    @Override
+    public boolean unsubscribe(Subscriber subscriber)
+            throws Exception {
+        if (children == null)
+            return super.unsubscribe(subscriber);
+        if (names != null) {
+            String actorName = subscriber.getActorName();
+            if (names.get(actorName) != subscriber)
+                return false;
+            names.remove(actorName);
+            count(subscriber, -1);
+        }
+        new Unsubscribe(subscriber).sendEvent(this, child(subscriber));
+        return true;
+    }
+
+    /**
+     * Get a subscriber.
+     *
+     * @param subscriberName The name of the subscriber.
+     * @return The subscriber, or null.
+     */
+    @Override
+    public Subscriber getSubscriber(String subscriberName)
+            throws Exception {
+        if (children == null)
+            return super.getSubscriber(subscriberName);
+        if (names == null)
+            return null;
+        return names.get(subscriberName);
+    }
+
+    /**
+     * Returns an immutable snapshot of the subscribers.
+     * Once the root has split, a new snapshot is built on each call.
+     *
+     * @return The subscribers.
+     */
+    @Override
+    public Subscriber[] getSnapshot() {
+        if (names == null)
+            return super.getSnapshot();
+        return names.values().toArray(new Subscriber[names.size()]);
+    }
+
+    /**
+     * Monitor the subscribers, or stop monitoring them.
+     * Once split, the setting is passed down to the children.
+     *
+     * @param thresholdMillis The time after which a subscriber is slow,
+     *                        or 0 to stop monitoring.
+     * @param unsubscribe     True when slow subscribers are to be unsubscribed.
+     */
+    @Override
+    public void setSlowSubscriberThreshold(long thresholdMillis, boolean unsubscribe) {
+        super.setSlowSubscriberThreshold(thresholdMillis, unsubscribe);
+        this.thresholdMillis = thresholdMillis;
+        unsubscribeSlow = unsubscribe;
+        if (children == null)
+            return;
+        int i = 0;
+        while (i < fanout) {
+            passThreshold(children[i]);
+            i += 1;
+        }
+    }
+
+    /**
+     * Sends the slow subscriber threshold to a child.
+     *
+     * @param child The child publisher.
+     */
+    private void passThreshold(JAPartitionedPublisher child) {
+        try {
+            new SlowSubscriberThreshold(thresholdMillis, unsubscribeSlow).sendEvent(this, child);
+        } catch (Exception ex) {
+            throw new UnsupportedOperationException("Unexpected exception", ex);
+        }
+    }
+
+    /**
+     * Unsubscribes a slow subscriber dropped by a leaf from the root as well.
+     *
+     * @param subscriber The subscriber.
+     */
+    @Override
+    protected void dropped(Subscriber subscriber)
+            throws Exception {
+        if (root != this)
+            new Unsubscribe(subscriber).sendEvent(this, root);
+    }
+
+    /**
+     * Publish a request to all the appropriate subscribers.
+     * Once split, the request is passed to every child.
+     *
+     * @param publishRequest The request to be published.
+     * @param rp             The response processor.
+     */
+    @Override
+    public void publish(Request publishRequest, RP rp)
+            throws Exception {
+        if (children == null) {
+            super.publish(publishRequest, rp);
+            return;
+        }
+        JAScatterGather sg;
+        int ps = gatherPool.size();
+        if (ps == 0)
+            sg = new JAScatterGather(gatherPool);
+        else
+            sg = gatherPool.remove(ps - 1);
+        sg.setup(this, 0, SUM, rp);
+        Publish publish = new Publish(publishRequest);
+        int i = 0;
+        while (i < fanout) {
+            sg.send(children[i], publish);
+            i += 1;
+        }
+        sg.finished();
+    }
+
+    /**
+     * Publish a request as an event to all the appropriate subscribers.
+     * Once split, the request is passed to every child as an event.
+     *
+     * @param publishRequest The request to be published.
+     * @return The number of subscribers to which the request is sent.
+     */
+    @Override
+    public int publishEvent(Request publishRequest)
+            throws Exception {
+        if (children == null)
+            return super.publishEvent(publishRequest);
+        PublishEvent publishEvent = new PublishEvent(publishRequest);
+        int i = 0;
+        while (i < fanout) {
+            publishEvent.sendEvent(this, children[i]);
+            i += 1;
+        }
+        return targetCount(publishRequest);
+    }
+
+    /**
+     * Returns the number of subscribers targeted by a request.
+     * Once split, only the root keeps count.
+     *
+     * @param request The request.
+     * @return The number of subscribers for which isTargetType is true.
+     */
+    @Override
+    protected int targetCount(Request request)
+            throws Exception {
+        if (children == null)
+            return super.targetCount(request);
+        if (counts == null)
+            return 0;
+        Count count = counts.get(request.getClass());
+        if (count == null) {
+            count = new Count(request);
+            for (Subscriber subscriber : names.values()) {
+                if (request.isTargetType(subscriber))
+                    count.n += 1;
+            }
+            counts.put(request.getClass(), count);
+        }
+        return count.n;
+    }
+
+    /**
+     * Updates the counts kept by the root for a subscriber which has been added or removed.
+     *
+     * @param subscriber The subscriber.
+     * @param delta      1 when added, -1 when removed.
+     */
+    private void count(Subscriber subscriber, int delta) {
+        for (Count count : counts.values()) {
+            if (count.sample.isTargetType(subscriber))
+                count.n += delta;
+        }
+    }
+
+    /**
+     * Creates the children and moves the subscribers to them,
+     * keeping only the subscribers by name when this is the root.
+     */
+    private void split()
+            throws Exception {
+        Subscriber[] moving = super.getSnapshot();
+        removeAll();
+        if (level == 0) {
+            names = new HashMap<String, Subscriber>();
+            counts = new HashMap<Class, Count>();
+        }
+        children = new JAPartitionedPublisher[fanout];
+        int i = 0;
+        while (i < fanout) {
+            JAPartitionedPublisher child = new JAPartitionedPublisher(fanout, capacity, level + 1);
+            child.initialize(getMailboxFactory().createAsyncMailbox());
+            child.root = root;
+            children[i] = child;
+            if (thresholdMillis > 0)
+                passThreshold(child);
+            i += 1;
+        }
+        i = 0;
+        while (i < moving.length) {
+            Subscriber subscriber = moving[i];
+            if (names != null)
+                names.put(subscriber.getActorName(), subscriber);
+            new Subscribe(subscriber).sendEvent(this, child(subscriber));
+            i += 1;
+        }
+    }
+
+    /**
+     * Returns the child which holds a subscriber.
+     *
+     * @param subscriber The subscriber.
+     * @return The child publisher.
+     */
+    private JAPartitionedPublisher child(Subscriber subscriber)
+            throws Exception {
+        int h = subscriber.getActorName().hashCode() ^ (level * 0x9e3779b9);
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return children[(h & 0x7fffffff) % fanout];
+    }
+
+    /**
+     * The number of subscribers targeted by a class of request.
+     */
+    private static final class Count {
+        /**
+         * A request of the class, used to test subscribers.
+         */
+        final Request sample;
+
+        int n;
+
+        Count(Request sample) {
+            this.sample = sample;
+        }
+    }
+}
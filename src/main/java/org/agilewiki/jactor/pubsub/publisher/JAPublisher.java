@@ -23,27 +23,109 @@
  */
 package org.agilewiki.jactor.pubsub.publisher;
 
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.Mailbox;
 import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
 import org.agilewiki.jactor.lpc.Request;
-import org.agilewiki.jactor.parallel.JAResponseCounter3;
 import org.agilewiki.jactor.pubsub.subscriber.JASubscriber;
 import org.agilewiki.jactor.pubsub.subscriber.Subscriber;
 import org.agilewiki.jactor.pubsub.subscriber.Unsubscribed;
+import org.agilewiki.jactor.scheduler.Timeout;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 
 /**
+ * <p>
  * Implements Publisher.
+ * </p>
+ * <p>
+ * Published requests are routed by class. The first time a request class is published,
+ * the subscribers it targets are found and kept in a route, which is then maintained
+ * as actors subscribe and unsubscribe. So isTargetType must depend only on the class
+ * of the request, and the first request published of each class is retained
+ * for testing new subscribers.
+ * </p>
+ * <p>
+ * Publish iterates over an immutable snapshot of each route. Snapshots are rebuilt
+ * on the first publish after a change, rather than on every change, so that churn
+ * remains cheap, and subscribers which unsubscribe during a publish do not disturb it.
+ * </p>
+ * <p>
+ * The snapshot of a route also groups its subscribers by mailbox. When several subscribers
+ * share a mailbox other than the publisher's, a single batch is sent to that mailbox,
+ * and the request is then passed locally to each subscriber in the batch.
+ * Groups are formed when the snapshot is built, so an actor which later migrates
+ * is still reached, though by way of the mailbox it left.
+ * </p>
+ * <p>
+ * When a slow subscriber threshold is set, publish sends to each subscriber separately
+ * and tracks the time from publish to response and the requests still in flight.
+ * A subscriber is slow when its oldest request in flight, or its last response,
+ * has taken longer than the threshold. Slow subscribers may be unsubscribed
+ * automatically, which releases the publishes waiting on them. Each request in flight
+ * then has a timeout on the mailbox factory's scheduler, so a subscriber is dropped
+ * once a request has been in flight for longer than the threshold, without waiting
+ * for the next publish. The metrics are not thread safe, so they must be read
+ * on the publisher's mailbox.
+ * </p>
  */
 public class JAPublisher
         extends JASubscriber
         implements Publisher {
     /**
-     * Table of subscribers, keyed by actor name.
+     * The subscribers, densely packed.
+     * Unsubscribing moves the last subscriber into the vacated position.
      */
     protected ArrayList<Subscriber> subscribers = new ArrayList<Subscriber>();
 
-    private ArrayList<JAResponseCounter3> pool = new ArrayList<JAResponseCounter3>();
+    /**
+     * The position of each subscriber in the subscribers list, keyed by actor name.
+     */
+    private HashMap<String, Slot> index = new HashMap<String, Slot>();
+
+    /**
+     * An immutable snapshot of the subscribers, or null when it needs to be rebuilt.
+     */
+    private Subscriber[] snapshot;
+
+    /**
+     * The routes, keyed by request class.
+     */
+    private HashMap<Class, Route> routes = new HashMap<Class, Route>();
+
+    /**
+     * The routes, by route number.
+     */
+    private ArrayList<Route> routeList = new ArrayList<Route>();
+
+    private ArrayList<PublishCounter> pool = new ArrayList<PublishCounter>();
+
+    /**
+     * The slow subscriber threshold in nanoseconds, or 0 when subscribers are not monitored.
+     */
+    private long slowThresholdNanos;
+
+    /**
+     * True when slow subscribers are unsubscribed.
+     */
+    private boolean unsubscribeSlow;
+
+    /**
+     * The delivery state of each monitored subscriber.
+     */
+    private HashMap<Subscriber, Tracker> trackers = new HashMap<Subscriber, Tracker>();
+
+    /**
+     * The number of slow subscribers which have been unsubscribed.
+     */
+    private long droppedCount;
 
     /**
      * Subscribe to the publisher.
@@ -55,9 +137,19 @@ public class JAPublisher
     public boolean subscribe(Subscriber subscriber)
             throws Exception {
         String actorName = subscriber.getActorName();
-        if (getSubscriber(actorName) != null)
+        if (index.containsKey(actorName))
             return false;
+        Slot slot = new Slot(subscriber, subscribers.size(), routeList.size());
+        index.put(actorName, slot);
         subscribers.add(subscriber);
+        snapshot = null;
+        int r = 0;
+        while (r < routeList.size()) {
+            Route route = routeList.get(r);
+            if (route.sample.isTargetType(subscriber))
+                route.add(slot);
+            r += 1;
+        }
         return true;
     }
 
@@ -70,7 +162,25 @@ public class JAPublisher
     @Override
     public boolean unsubscribe(Subscriber subscriber)
             throws Exception {
-        return subscribers.remove(subscriber);
+        String actorName = subscriber.getActorName();
+        Slot slot = index.get(actorName);
+        if (slot == null || slot.subscriber != subscriber)
+            return false;
+        index.remove(actorName);
+        snapshot = null;
+        int r = 0;
+        while (r < routeList.size()) {
+            routeList.get(r).remove(slot);
+            r += 1;
+        }
+        trackers.remove(subscriber);
+        int last = subscribers.size() - 1;
+        Subscriber moved = subscribers.remove(last);
+        if (slot.position != last) {
+            subscribers.set(slot.position, moved);
+            index.get(moved.getActorName()).position = slot.position;
+        }
+        return true;
     }
 
     /**
@@ -82,43 +192,292 @@ public class JAPublisher
     @Override
     public Subscriber getSubscriber(String subscriberName)
             throws Exception {
-        int i = 0;
-        while (i < subscribers.size()) {
-            Subscriber s = subscribers.get(i);
-            if (s.getActorName().equals(subscriberName))
-                return s;
-            i += 1;
+        Slot slot = index.get(subscriberName);
+        if (slot == null)
+            return null;
+        return slot.subscriber;
+    }
+
+    /**
+     * Returns an immutable snapshot of the subscribers.
+     * The snapshot is unaffected by subsequent changes, so it can be passed to
+     * and shared by other actors, though it must be obtained on this actor's mailbox.
+     *
+     * @return The subscribers.
+     */
+    public Subscriber[] getSnapshot() {
+        if (snapshot == null)
+            snapshot = subscribers.toArray(new Subscriber[subscribers.size()]);
+        return snapshot;
+    }
+
+    /**
+     * Removes all the subscribers without notifying them, as when they are handed on
+     * to other publishers.
+     */
+    protected void removeAll() {
+        subscribers = new ArrayList<Subscriber>();
+        index = new HashMap<String, Slot>();
+        snapshot = null;
+        routes = new HashMap<Class, Route>();
+        routeList = new ArrayList<Route>();
+        trackers.clear();
+    }
+
+    /**
+     * Monitor the subscribers, or stop monitoring them.
+     *
+     * @param thresholdMillis The time after which a subscriber is slow,
+     *                        or 0 to stop monitoring.
+     * @param unsubscribe     True when slow subscribers are to be unsubscribed.
+     */
+    public void setSlowSubscriberThreshold(long thresholdMillis, boolean unsubscribe) {
+        if (thresholdMillis < 0)
+            throw new IllegalArgumentException("thresholdMillis may not be negative");
+        slowThresholdNanos = thresholdMillis * 1000000L;
+        unsubscribeSlow = unsubscribe;
+        if (thresholdMillis == 0)
+            trackers.clear();
+    }
+
+    /**
+     * Returns the delivery metrics of a monitored subscriber.
+     * Must be called on the publisher's mailbox.
+     *
+     * @param subscriber The subscriber.
+     * @return The metrics, or null when nothing has been sent to the subscriber while monitoring.
+     */
+    public DeliveryMetrics getDeliveryMetrics(Subscriber subscriber) {
+        Tracker tracker = trackers.get(subscriber);
+        if (tracker == null)
+            return null;
+        return tracker.metrics(System.nanoTime());
+    }
+
+    /**
+     * Returns the monitored subscribers which are slow.
+     * Must be called on the publisher's mailbox.
+     *
+     * @return The slow subscribers.
+     */
+    public List<Subscriber> getSlowSubscribers() {
+        ArrayList<Subscriber> slow = new ArrayList<Subscriber>();
+        long now = System.nanoTime();
+        Iterator<Tracker> it = trackers.values().iterator();
+        while (it.hasNext()) {
+            Tracker tracker = it.next();
+            if (tracker.isSlow(now))
+                slow.add(tracker.subscriber);
         }
-        return null;
+        return slow;
+    }
+
+    /**
+     * Returns the number of slow subscribers which have been unsubscribed.
+     * Must be called on the publisher's mailbox.
+     *
+     * @return The number of subscribers dropped.
+     */
+    public long getDroppedCount() {
+        return droppedCount;
     }
 
     /**
      * Publish a request to all the appropriate subscribers.
+     * The request is sent to the subscribers at the time of publication,
+     * even if some of them unsubscribe while it is being sent.
      *
      * @param publishRequest The request to be published.
      * @param rp             The response processor.
      */
     public void publish(Request publishRequest, RP rp)
             throws Exception {
-        JAResponseCounter3 rc;
+        PublishCounter rc;
         int ps = pool.size();
         if (ps == 0)
-            rc = new JAResponseCounter3(pool);
+            rc = new PublishCounter(pool);
         else {
             rc = pool.remove(ps - 1);
         }
         rc.setup(rp);
-        int i = 0;
-        while (i < subscribers.size()) {
-            Subscriber s = subscribers.get(i);
-            if (publishRequest.isTargetType(s)) {
-                rc.sent += 1;
-                publishRequest.send(this, s, rc);
+        if (slowThresholdNanos > 0) {
+            monitoredPublish(publishRequest, rc);
+            return;
+        }
+        Subscriber[][] batches = route(publishRequest).batches();
+        Mailbox mailbox = getMailbox();
+        int b = 0;
+        while (b < batches.length) {
+            Subscriber[] batch = batches[b];
+            if (batch.length == 1 || batch[0].getMailbox() == mailbox) {
+                int i = 0;
+                while (i < batch.length) {
+                    rc.sent(1);
+                    publishRequest.send(this, batch[i], rc);
+                    i += 1;
+                }
+            } else {
+                rc.sent(batch.length);
+                new Batch(publishRequest, batch).send(this, batch[0], rc);
             }
+            b += 1;
+        }
+        rc.finished();
+    }
+
+    /**
+     * Publish a request to each subscriber separately, tracking the deliveries
+     * and dropping slow subscribers when required.
+     *
+     * @param publishRequest The request to be published.
+     * @param rc             The response counter.
+     */
+    private void monitoredPublish(Request publishRequest, PublishCounter rc)
+            throws Exception {
+        Subscriber[] targets = route(publishRequest).snapshot();
+        long now = System.nanoTime();
+        int i = 0;
+        while (i < targets.length) {
+            Subscriber subscriber = targets[i];
             i += 1;
+            Tracker tracker = trackers.get(subscriber);
+            if (tracker == null) {
+                tracker = new Tracker(subscriber);
+                trackers.put(subscriber, tracker);
+            } else if (unsubscribeSlow && tracker.isSlow(now)) {
+                drop(tracker);
+                continue;
+            }
+            rc.sent(1);
+            Delivery delivery = tracker.start(rc, now);
+            if (unsubscribeSlow)
+                delivery.timeout = getMailboxFactory().scheduler().schedule(
+                        this, new Expire(delivery), slowThresholdNanos / 1000000L);
+            try {
+                publishRequest.send(this, subscriber, delivery);
+            } catch (Exception ex) {
+                delivery.cancel();
+                throw ex;
+            }
         }
         rc.finished();
+    }
+
+    /**
+     * A monitored delivery has been in flight for longer than the threshold,
+     * so drop the subscriber if slow subscribers are still being unsubscribed.
+     *
+     * @param delivery The delivery.
+     */
+    private void expired(Delivery delivery)
+            throws Exception {
+        if (delivery.done || !unsubscribeSlow)
+            return;
+        Tracker tracker = delivery.tracker;
+        if (trackers.get(tracker.subscriber) != tracker)
+            return;
+        drop(tracker);
+    }
+
+    /**
+     * Unsubscribe a slow subscriber and release the publishes waiting on it.
+     *
+     * @param tracker The deliveries to the subscriber.
+     */
+    private void drop(Tracker tracker)
+            throws Exception {
+        Subscriber subscriber = tracker.subscriber;
+        if (unsubscribe(subscriber)) {
+            droppedCount += 1;
+            new Unsubscribed(this).sendEvent(this, subscriber);
+            dropped(subscriber);
+        }
+        tracker.release();
+    }
+
+    /**
+     * Called when a slow subscriber has been unsubscribed.
+     *
+     * @param subscriber The subscriber.
+     */
+    protected void dropped(Subscriber subscriber)
+            throws Exception {
+    }
+
+    /**
+     * Publish a request as an event to all the appropriate subscribers.
+     * No responses are returned by the subscribers, so no response counter is needed.
+     *
+     * @param publishRequest The request to be published.
+     * @return The number of subscribers to which the request was sent.
+     */
+    @Override
+    public int publishEvent(Request publishRequest)
+            throws Exception {
+        Route route = route(publishRequest);
+        Subscriber[][] batches = route.batches();
+        Mailbox mailbox = getMailbox();
+        int b = 0;
+        while (b < batches.length) {
+            Subscriber[] batch = batches[b];
+            if (batch.length == 1 || batch[0].getMailbox() == mailbox) {
+                int i = 0;
+                while (i < batch.length) {
+                    batch[i].acceptEvent(this, publishRequest);
+                    i += 1;
+                }
+            } else {
+                batch[0].acceptEvent(this, new BatchEvent(publishRequest, batch));
+            }
+            b += 1;
+        }
+        return route.snapshot().length;
+    }
+
+    /**
+     * Returns an immutable snapshot of the subscribers targeted by a request.
+     *
+     * @param request The request.
+     * @return The subscribers for which isTargetType is true.
+     */
+    protected Subscriber[] targets(Request request)
+            throws Exception {
+        return route(request).snapshot();
+    }
 
+    /**
+     * Returns the number of subscribers targeted by a request.
+     *
+     * @param request The request.
+     * @return The number of subscribers for which isTargetType is true.
+     */
+    protected int targetCount(Request request)
+            throws Exception {
+        return route(request).slots.size();
+    }
+
+    /**
+     * Returns the route for the class of a request, creating it if needed.
+     *
+     * @param request The request.
+     * @return The route.
+     */
+    private Route route(Request request)
+            throws Exception {
+        Route route = routes.get(request.getClass());
+        if (route != null)
+            return route;
+        route = new Route(routeList.size(), request);
+        int i = 0;
+        while (i < subscribers.size()) {
+            Subscriber s = subscribers.get(i);
+            if (request.isTargetType(s))
+                route.add(index.get(s.getActorName()));
+            i += 1;
+        }
+        routes.put(request.getClass(), route);
+        routeList.add(route);
+        return route;
     }
 
     /**
@@ -133,4 +492,284 @@ public class JAPublisher
         Unsubscribed unsubscribed = new Unsubscribed(this);
         publish(unsubscribed, rp);
     }
+
+    /**
+     * The deliveries to a monitored subscriber.
+     */
+    private final class Tracker {
+        final Subscriber subscriber;
+
+        /**
+         * The deliveries in the order sent. Completed deliveries are removed
+         * from the head, so the head is the oldest delivery in flight.
+         */
+        private final ArrayDeque<Delivery> outstanding = new ArrayDeque<Delivery>();
+
+        private int inFlight;
+        private long delivered;
+        private long totalLatencyNanos;
+        private long maxLatencyNanos;
+        private long lastLatencyNanos;
+
+        Tracker(Subscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        Delivery start(PublishCounter rc, long now) {
+            Delivery delivery = new Delivery(this, rc, now);
+            outstanding.addLast(delivery);
+            inFlight += 1;
+            return delivery;
+        }
+
+        void completed(Delivery delivery) {
+            long latency = System.nanoTime() - delivery.start;
+            delivered += 1;
+            totalLatencyNanos += latency;
+            if (latency > maxLatencyNanos)
+                maxLatencyNanos = latency;
+            lastLatencyNanos = latency;
+            inFlight -= 1;
+            trim();
+        }
+
+        void cancelled() {
+            inFlight -= 1;
+            trim();
+        }
+
+        private void trim() {
+            while (!outstanding.isEmpty() && outstanding.peekFirst().done)
+                outstanding.removeFirst();
+        }
+
+        long oldestInFlightNanos(long now) {
+            if (outstanding.isEmpty())
+                return 0;
+            return now - outstanding.peekFirst().start;
+        }
+
+        boolean isSlow(long now) {
+            return lastLatencyNanos > slowThresholdNanos ||
+                    oldestInFlightNanos(now) > slowThresholdNanos;
+        }
+
+        /**
+         * Counts every delivery still in flight as responded to,
+         * so that the publishes waiting on this subscriber can complete.
+         */
+        void release() throws Exception {
+            while (!outstanding.isEmpty()) {
+                Delivery delivery = outstanding.removeFirst();
+                if (!delivery.done) {
+                    delivery.done = true;
+                    delivery.cancelTimeout();
+                    inFlight -= 1;
+                    delivery.rc.processResponse(null);
+                }
+            }
+        }
+
+        DeliveryMetrics metrics(long now) {
+            return new DeliveryMetrics(delivered, inFlight, totalLatencyNanos,
+                    maxLatencyNanos, lastLatencyNanos, oldestInFlightNanos(now));
+        }
+    }
+
+    /**
+     * Receives the response of a subscriber to one monitored delivery.
+     * A response arriving after the delivery has been released is ignored.
+     */
+    private static final class Delivery extends RP {
+        final Tracker tracker;
+        final PublishCounter rc;
+        final long start;
+        boolean done;
+
+        /**
+         * Drops the subscriber should it not respond in time, or null.
+         */
+        Timeout timeout;
+
+        Delivery(Tracker tracker, PublishCounter rc, long start) {
+            this.tracker = tracker;
+            this.rc = rc;
+            this.start = start;
+        }
+
+        void cancelTimeout() {
+            if (timeout != null) {
+                timeout.cancel();
+                timeout = null;
+            }
+        }
+
+        void cancel() {
+            if (done)
+                return;
+            done = true;
+            cancelTimeout();
+            tracker.cancelled();
+        }
+
+        @Override
+        public void processResponse(Object response) throws Exception {
+            if (done)
+                return;
+            done = true;
+            cancelTimeout();
+            tracker.completed(this);
+            rc.processResponse(response);
+        }
+    }
+
+    /**
+     * Sent by the scheduler when a monitored delivery has been in flight for too long.
+     */
+    private static final class Expire extends Request<Object, JAPublisher> {
+        final Delivery delivery;
+
+        Expire(Delivery delivery) {
+            this.delivery = delivery;
+        }
+
+        @Override
+        public boolean isTargetType(Actor targetActor) {
+            return targetActor instanceof JAPublisher;
+        }
+
+        @Override
+        public void processRequest(JLPCActor targetActor, RP rp)
+                throws Exception {
+            ((JAPublisher) targetActor).expired(delivery);
+            rp.processResponse(null);
+        }
+    }
+
+    /**
+     * A subscriber and its positions in the subscribers list and in the routes.
+     */
+    private static final class Slot {
+        final Subscriber subscriber;
+        int position;
+
+        /**
+         * The position in each route, by route number, or -1.
+         */
+        int[] routePositions;
+
+        Slot(Subscriber subscriber, int position, int routeCount) {
+            this.subscriber = subscriber;
+            this.position = position;
+            routePositions = new int[routeCount < 4 ? 4 : routeCount];
+            Arrays.fill(routePositions, -1);
+        }
+
+        int getRoutePosition(int route) {
+            if (route >= routePositions.length)
+                return -1;
+            return routePositions[route];
+        }
+
+        void setRoutePosition(int route, int position) {
+            if (route >= routePositions.length) {
+                int[] rp = new int[routePositions.length * 2 > route ? routePositions.length * 2 : route + 1];
+                Arrays.fill(rp, -1);
+                System.arraycopy(routePositions, 0, rp, 0, routePositions.length);
+                routePositions = rp;
+            }
+            routePositions[route] = position;
+        }
+    }
+
+    /**
+     * The subscribers targeted by a class of request.
+     */
+    private static final class Route {
+        final int id;
+
+        /**
+         * A request of the class, used to test new subscribers.
+         */
+        final Request sample;
+
+        final ArrayList<Slot> slots = new ArrayList<Slot>();
+
+        /**
+         * An immutable snapshot of the subscribers, or null when it needs to be rebuilt.
+         */
+        Subscriber[] snapshot;
+
+        /**
+         * The subscribers of the snapshot, grouped by mailbox.
+         */
+        Subscriber[][] batches;
+
+        Route(int id, Request sample) {
+            this.id = id;
+            this.sample = sample;
+        }
+
+        void add(Slot slot) {
+            slot.setRoutePosition(id, slots.size());
+            slots.add(slot);
+            snapshot = null;
+            batches = null;
+        }
+
+        Subscriber[] snapshot() {
+            if (snapshot == null) {
+                Subscriber[] s = new Subscriber[slots.size()];
+                int i = 0;
+                while (i < s.length) {
+                    s[i] = slots.get(i).subscriber;
+                    i += 1;
+                }
+                snapshot = s;
+            }
+            return snapshot;
+        }
+
+        Subscriber[][] batches() {
+            if (batches == null) {
+                Subscriber[] s = snapshot();
+                LinkedHashMap<Mailbox, ArrayList<Subscriber>> groups =
+                        new LinkedHashMap<Mailbox, ArrayList<Subscriber>>();
+                int i = 0;
+                while (i < s.length) {
+                    Mailbox mailbox = s[i].getMailbox();
+                    ArrayList<Subscriber> group = groups.get(mailbox);
+                    if (group == null) {
+                        group = new ArrayList<Subscriber>();
+                        groups.put(mailbox, group);
+                    }
+                    group.add(s[i]);
+                    i += 1;
+                }
+                Subscriber[][] b = new Subscriber[groups.size()][];
+                i = 0;
+                for (ArrayList<Subscriber> group : groups.values()) {
+                    b[i] = group.toArray(new Subscriber[group.size()]);
+                    i += 1;
+                }
+                batches = b;
+            }
+            return batches;
+        }
+
+        void remove(Slot slot) {
+            int position = slot.getRoutePosition(id);
+            if (position < 0)
+                return;
+            slot.setRoutePosition(id, -1);
+            snapshot = null;
+            batches = null;
+            int last = slots.size() - 1;
+            Slot moved = slots.remove(last);
+            if (position != last) {
+                slots.set(position, moved);
+                moved.setRoutePosition(id, position);
+            }
+        }
+    }
 }
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.pubsub.publisher;
+
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.Request;
+import org.agilewiki.jactor.pubsub.subscriber.Subscriber;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+
+/**
+ * <p>
+ * Implements TopicPublisher.
+ * </p>
+ * <p>
+ * Topic subscriptions are held in a trie of pattern levels, so one publisher can serve
+ * many topics, and the cost of matching a topic depends on its levels and on the
+ * subscriptions which match, not on the total number of subscribers.
+ * Subscriptions made with subscribe(Subscriber) are not topic subscriptions and
+ * receive only the requests published without a topic; unsubscribe(Subscriber)
+ * drops both kinds.
+ * </p>
+ */
+public class JATopicPublisher
+        extends JAPublisher
+        implements TopicPublisher {
+    /**
+     * The topic subscriptions, by pattern level.
+     */
+    private TopicTrie<Entry> trie = new TopicTrie<Entry>();
+
+    /**
+     * The topic subscribers.
+     */
+    private HashMap<Subscriber, Entry> entries = new HashMap<Subscriber, Entry>();
+
+    /**
+     * Incremented on each match, to detect subscribers matched more than once.
+     */
+    private int stamp;
+
+    /**
+     * Receives the entries of a match.
+     */
+    private ArrayList<Entry> matched = new ArrayList<Entry>();
+
+    private ArrayList<PublishCounter> topicPool = new ArrayList<PublishCounter>();
+
+    /**
+     * Subscribe to the topics matching a pattern.
+     *
+     * @param pattern    The topic pattern.
+     * @param subscriber The subscribing actor.
+     * @return True when the subscription has been added.
+     */
+    @Override
+    public boolean subscribe(String pattern, Subscriber subscriber)
+            throws Exception {
+        if (subscriber == null)
+            throw new IllegalArgumentException("may not be null");
+        String[] levels = TopicTrie.pattern(pattern);
+        Entry entry = entries.get(subscriber);
+        if (entry == null) {
+            entry = new Entry(subscriber);
+            entries.put(subscriber, entry);
+        }
+        if (!entry.patterns.add(pattern))
+            return false;
+        trie.add(levels, entry);
+        return true;
+    }
+
+    /**
+     * Drop a subscription to the topics matching a pattern.
+     *
+     * @param pattern    The topic pattern.
+     * @param subscriber The subscribing actor.
+     * @return True when the subscription has been removed.
+     */
+    @Override
+    public boolean unsubscribe(String pattern, Subscriber subscriber)
+            throws Exception {
+        Entry entry = entries.get(subscriber);
+        if (entry == null || !entry.patterns.remove(pattern))
+            return false;
+        trie.remove(TopicTrie.pattern(pattern), entry);
+        if (entry.patterns.isEmpty())
+            entries.remove(subscriber);
+        return true;
+    }
+
+    /**
+     * Unsubscribe from the publisher, dropping any topic subscriptions as well.
+     *
+     * @param subscriber The subscribing actor.
+     * @return True when an actor is unsubscribed.
+     */
+    @Override
+    public boolean unsubscribe(Subscriber subscriber)
+            throws Exception {
+        boolean removed = super.unsubscribe(subscriber);
+        Entry entry = entries.remove(subscriber);
+        if (entry == null)
+            return removed;
+        Iterator<String> it = entry.patterns.iterator();
+        while (it.hasNext()) {
+            trie.remove(TopicTrie.pattern(it.next()), entry);
+        }
+        return true;
+    }
+
+    /**
+     * Publish a request to the appropriate subscribers of a topic.
+     * Each subscriber receives the request once, however many of its patterns match.
+     *
+     * @param topic          The topic name, which may not contain wildcards.
+     * @param publishRequest The request to be published.
+     * @param rp             The response processor.
+     */
+    @Override
+    public void publish(String topic, Request publishRequest, RP rp)
+            throws Exception {
+        Subscriber[] targets = topicTargets(topic, publishRequest);
+        PublishCounter rc;
+        int ps = topicPool.size();
+        if (ps == 0)
+            rc = new PublishCounter(topicPool);
+        else
+            rc = topicPool.remove(ps - 1);
+        rc.setup(rp);
+        int i = 0;
+        while (i < targets.length) {
+            rc.sent(1);
+            publishRequest.send(this, targets[i], rc);
+            i += 1;
+        }
+        rc.finished();
+    }
+
+    /**
+     * Publish a request as an event to the appropriate subscribers of a topic.
+     *
+     * @param topic          The topic name, which may not contain wildcards.
+     * @param publishRequest The request to be published.
+     * @return The number of subscribers to which the request was sent.
+     */
+    @Override
+    public int publishEvent(String topic, Request publishRequest)
+            throws Exception {
+        Subscriber[] targets = topicTargets(topic, publishRequest);
+        int i = 0;
+        while (i < targets.length) {
+            targets[i].acceptEvent(this, publishRequest);
+            i += 1;
+        }
+        return targets.length;
+    }
+
+    /**
+     * Returns the subscribers of a topic which are targeted by a request, each once.
+     *
+     * @param topic   The topic name.
+     * @param request The request.
+     * @return The targets.
+     */
+    private Subscriber[] topicTargets(String topic, Request request)
+            throws Exception {
+        String[] levels = TopicTrie.topic(topic);
+        stamp += 1;
+        trie.match(levels, matched);
+        int n = matched.size();
+        int k = 0;
+        int i = 0;
+        while (i < n) {
+            Entry entry = matched.get(i);
+            if (entry.stamp != stamp) {
+                entry.stamp = stamp;
+                if (request.isTargetType(entry.subscriber)) {
+                    matched.set(k, entry);
+                    k += 1;
+                }
+            }
+            i += 1;
+        }
+        Subscriber[] targets = new Subscriber[k];
+        i = 0;
+        while (i < k) {
+            targets[i] = matched.get(i).subscriber;
+            i += 1;
+        }
+        matched.clear();
+        return targets;
+    }
+
+    /**
+     * The topic subscriptions of a subscriber.
+     */
+    private static final class Entry {
+        final Subscriber subscriber;
+
+        final HashSet<String> patterns = new HashSet<String>();
+
+        /**
+         * The stamp of the last match which reached this entry.
+         */
+        int stamp;
+
+        Entry(Subscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.pubsub.publisher;
+
+import org.agilewiki.jactor.RP;
+
+import java.util.List;
+
+/**
+ * Counts the responses to a publish, where a single response may stand for a batch
+ * of subscribers, and responds with the number of subscribers when the publish is finished.
+ */
+final class PublishCounter extends RP {
+    /**
+     * The number of subscribers to which the request was sent.
+     */
+    private int subscribers;
+
+    /**
+     * The number of messages sent.
+     */
+    private int sent;
+
+    /**
+     * The number of responses received.
+     */
+    private int received;
+
+    /**
+     * True when all messages have been sent.
+     */
+    private boolean complete;
+
+    /**
+     * The mechanism for responding when finished.
+     */
+    private RP xrp;
+
+    /**
+     * The pool to which this counter is returned when finished.
+     */
+    private final List<PublishCounter> pool;
+
+    /**
+     * Create a PublishCounter.
+     *
+     * @param pool The pool to which the counter is returned when finished.
+     */
+    PublishCounter(List<PublishCounter> pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Initialize.
+     *
+     * @param xrp The external RP
+     */
+    void setup(RP xrp) {
+        subscribers = 0;
+        sent = 0;
+        received = 0;
+        complete = false;
+        this.xrp = xrp;
+    }
+
+    /**
+     * Notes that a message has been sent.
+     *
+     * @param count The number of subscribers reached by the message.
+     */
+    void sent(int count) {
+        sent += 1;
+        subscribers += count;
+    }
+
+    /**
+     * Signals that all messages have been sent.
+     *
+     * @throws Exception Any exceptions raised while processing the external response.
+     */
+    void finished() throws Exception {
+        if (received == sent)
+            respond();
+        else
+            complete = true;
+    }
+
+    /**
+     * Receives and processes a response.
+     *
+     * @param response The response.
+     * @throws Exception Any uncaught exceptions raised when processing the response.
+     */
+    @Override
+    public void processResponse(Object response) throws Exception {
+        received += 1;
+        if (complete && received == sent)
+            respond();
+    }
+
+    private void respond() throws Exception {
+        RP rp = xrp;
+        xrp = null;
+        pool.add(this);
+        rp.processResponse(new Integer(subscribers));
+    }
+}
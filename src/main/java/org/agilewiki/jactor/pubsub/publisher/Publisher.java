@@ -66,4 +66,14 @@ public interface Publisher extends Subscriber {
      */
     public void publish(Request publishRequest, RP rp)
             throws Exception;
+
+    /**
+     * Publish a request as an event to all the appropriate subscribers.
+     * No responses are returned by the subscribers.
+     *
+     * @param publishRequest The request to be published.
+     * @return The number of subscribers to which the request was sent.
+     */
+    public int publishEvent(Request publishRequest)
+            throws Exception;
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.pubsub.publisher;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+import org.agilewiki.jactor.pubsub.subscriber.Subscriber;
+
+/**
+ * Subscribe to the topics of a topic publisher which match a pattern.
+ * The result returned is true when a new subscription has been added.
+ */
+public class SubscribeTopic extends Request<Boolean, TopicPublisher> {
+    /**
+     * The topic pattern.
+     */
+    final public String pattern;
+
+    /**
+     * The subscribing actor.
+     */
+    final public Subscriber subscriber;
+
+    /**
+     * Create a SubscribeTopic request.
+     *
+     * @param pattern    The topic pattern.
+     * @param subscriber The subscribing actor.
+     */
+    public SubscribeTopic(String pattern, Subscriber subscriber) {
+        this.pattern = pattern;
+        this.subscriber = subscriber;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        rp.processResponse(((TopicPublisher) targetActor).subscribe(pattern, subscriber));
+    }
+
+    /**
+     * Returns true when targetActor is an instanceof TARGET_TYPE
+     *
+     * @param targetActor The actor to be called.
+     * @return True when targetActor is an instanceof TARGET_TYPE.
+     */
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof TopicPublisher;
+    }
+}
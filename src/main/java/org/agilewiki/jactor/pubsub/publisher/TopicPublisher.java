@@ -0,0 +1,81 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.pubsub.publisher;
+
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.Request;
+import org.agilewiki.jactor.pubsub.subscriber.Subscriber;
+
+/**
+ * <p>
+ * A publisher which also serves hierarchical topics.
+ * </p>
+ * <p>
+ * Topic names are made up of levels separated by periods, e.g. prices.fx.eurusd.
+ * A subscription pattern may use * for exactly one level and, as its last level,
+ * # for zero or more levels. So prices.*.eurusd and prices.# both match prices.fx.eurusd.
+ * </p>
+ */
+public interface TopicPublisher extends Publisher {
+    /**
+     * Subscribe to the topics matching a pattern.
+     *
+     * @param pattern    The topic pattern.
+     * @param subscriber The subscribing actor.
+     * @return True when the subscription has been added.
+     */
+    public boolean subscribe(String pattern, Subscriber subscriber)
+            throws Exception;
+
+    /**
+     * Drop a subscription to the topics matching a pattern.
+     *
+     * @param pattern    The topic pattern.
+     * @param subscriber The subscribing actor.
+     * @return True when the subscription has been removed.
+     */
+    public boolean unsubscribe(String pattern, Subscriber subscriber)
+            throws Exception;
+
+    /**
+     * Publish a request to the appropriate subscribers of a topic.
+     * Each subscriber receives the request once, however many of its patterns match.
+     *
+     * @param topic          The topic name, which may not contain wildcards.
+     * @param publishRequest The request to be published.
+     * @param rp             The response processor.
+     */
+    public void publish(String topic, Request publishRequest, RP rp)
+            throws Exception;
+
+    /**
+     * Publish a request as an event to the appropriate subscribers of a topic.
+     *
+     * @param topic          The topic name, which may not contain wildcards.
+     * @param publishRequest The request to be published.
+     * @return The number of subscribers to which the request was sent.
+     */
+    public int publishEvent(String topic, Request publishRequest)
+            throws Exception;
+}
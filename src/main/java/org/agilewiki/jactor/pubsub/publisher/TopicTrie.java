@@ -0,0 +1,178 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.pubsub.publisher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * A trie of topic patterns, each level of a pattern being one node.
+ * The wildcards * and # are held as ordinary children and expanded while matching,
+ * so the cost of a match depends on the number of levels and the patterns which
+ * match, not on the number of values held.
+ *
+ * @param <V> The type of value held under a pattern.
+ */
+final class TopicTrie<V> {
+    private final Node<V> root = new Node<V>();
+
+    /**
+     * Splits a pattern into levels, validating its wildcards.
+     *
+     * @param pattern The pattern.
+     * @return The levels.
+     */
+    static String[] pattern(String pattern) {
+        String[] levels = levels(pattern);
+        int i = 0;
+        while (i < levels.length) {
+            String level = levels[i];
+            if (level.equals("#")) {
+                if (i != levels.length - 1)
+                    throw new IllegalArgumentException("# must be the last level: " + pattern);
+            } else if (!level.equals("*") && (level.indexOf('*') > -1 || level.indexOf('#') > -1))
+                throw new IllegalArgumentException("wildcards must fill a level: " + pattern);
+            i += 1;
+        }
+        return levels;
+    }
+
+    /**
+     * Splits a topic name into levels, which may not be wildcards.
+     *
+     * @param topic The topic name.
+     * @return The levels.
+     */
+    static String[] topic(String topic) {
+        if (topic != null && (topic.indexOf('*') > -1 || topic.indexOf('#') > -1))
+            throw new IllegalArgumentException("topic may not contain wildcards: " + topic);
+        return levels(topic);
+    }
+
+    private static String[] levels(String name) {
+        if (name == null)
+            throw new IllegalArgumentException("may not be null");
+        String[] levels = name.split("\\.", -1);
+        int i = 0;
+        while (i < levels.length) {
+            if (levels[i].length() == 0)
+                throw new IllegalArgumentException("empty level: " + name);
+            i += 1;
+        }
+        return levels;
+    }
+
+    /**
+     * Add a value under a pattern.
+     * The caller must ensure that the value is not already held under the pattern.
+     *
+     * @param levels The levels of the pattern.
+     * @param value  The value.
+     */
+    void add(String[] levels, V value) {
+        Node<V> node = root;
+        int i = 0;
+        while (i < levels.length) {
+            node = node.child(levels[i], true);
+            i += 1;
+        }
+        node.values.add(value);
+    }
+
+    /**
+     * Remove a value from under a pattern, pruning any nodes left empty.
+     *
+     * @param levels The levels of the pattern.
+     * @param value  The value.
+     * @return True when the value was held under the pattern.
+     */
+    boolean remove(String[] levels, V value) {
+        return remove(root, levels, 0, value);
+    }
+
+    private boolean remove(Node<V> node, String[] levels, int i, V value) {
+        if (i == levels.length)
+            return node.values.remove(value);
+        Node<V> child = node.child(levels[i], false);
+        if (child == null || !remove(child, levels, i + 1, value))
+            return false;
+        if (child.isEmpty())
+            node.children.remove(levels[i]);
+        return true;
+    }
+
+    /**
+     * Collects the values held under every pattern matching a topic.
+     * A value held under several matching patterns is collected once for each.
+     *
+     * @param levels The levels of the topic.
+     * @param out    Receives the values.
+     */
+    void match(String[] levels, ArrayList<V> out) {
+        match(root, levels, 0, out);
+    }
+
+    private void match(Node<V> node, String[] levels, int i, ArrayList<V> out) {
+        Node<V> rest = node.child("#", false);
+        if (rest != null)
+            out.addAll(rest.values);
+        if (i == levels.length) {
+            out.addAll(node.values);
+            return;
+        }
+        Node<V> child = node.child(levels[i], false);
+        if (child != null)
+            match(child, levels, i + 1, out);
+        child = node.child("*", false);
+        if (child != null)
+            match(child, levels, i + 1, out);
+    }
+
+    private static final class Node<V> {
+        final ArrayList<V> values = new ArrayList<V>(1);
+
+        /**
+         * The children by level, or null when there are none.
+         */
+        HashMap<String, Node<V>> children;
+
+        Node<V> child(String level, boolean create) {
+            if (children == null) {
+                if (!create)
+                    return null;
+                children = new HashMap<String, Node<V>>();
+            }
+            Node<V> child = children.get(level);
+            if (child == null && create) {
+                child = new Node<V>();
+                children.put(level, child);
+            }
+            return child;
+        }
+
+        boolean isEmpty() {
+            return values.isEmpty() && (children == null || children.isEmpty());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.router;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * Sends all requests with the same routing key to the same worker.
+ * When workers are added, only about 1/n of the keys move to a different worker.
+ * Requests must implement RoutingKey.
+ */
+public class ConsistentHash extends RoutingStrategy {
+    /**
+     * The number of points on the ring for each worker.
+     */
+    private final int replicas;
+
+    /**
+     * Maps points on the ring to worker indexes.
+     */
+    private final TreeMap<Integer, Integer> ring = new TreeMap<Integer, Integer>();
+
+    /**
+     * The number of workers on the ring.
+     */
+    private int workers;
+
+    /**
+     * Create a ConsistentHash strategy with 100 points on the ring per worker.
+     */
+    public ConsistentHash() {
+        this(100);
+    }
+
+    /**
+     * Create a ConsistentHash strategy.
+     *
+     * @param replicas The number of points on the ring for each worker.
+     */
+    public ConsistentHash(int replicas) {
+        this.replicas = replicas;
+    }
+
+    @Override
+    public int select(Request request, JARouter router) {
+        if (!(request instanceof RoutingKey))
+            throw new IllegalArgumentException(
+                    "request does not have a routing key: " + request.getClass().getName());
+        int n = router.getWorkerCount();
+        while (workers < n) {
+            int r = 0;
+            while (r < replicas) {
+                ring.put(mix(workers * 31 + r * 1000003), workers);
+                r += 1;
+            }
+            workers += 1;
+        }
+        Object key = ((RoutingKey) request).getRoutingKey();
+        Map.Entry<Integer, Integer> e = ring.ceilingEntry(mix(key == null ? 0 : key.hashCode()));
+        if (e == null)
+            e = ring.firstEntry();
+        return e.getValue();
+    }
+
+    /**
+     * Spreads the bits of a hash code.
+     *
+     * @param h A hash code.
+     * @return The mixed hash code.
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
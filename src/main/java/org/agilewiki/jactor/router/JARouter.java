@@ -0,0 +1,201 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.router;
+
+import java.util.ArrayList;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.ExceptionHandler;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * <p>
+ * Forwards requests to a pool of workers, which are typically identical actors
+ * each with its own asynchronous mailbox. The worker is chosen by a RoutingStrategy.
+ * Responses and exceptions from the workers are passed back unchanged.
+ * </p>
+ * <pre>
+ * JARouter router = new JARouter(new RoundRobin());
+ * router.initialize(mailboxFactory.createMailbox());
+ * int i = 0;
+ * while (i &lt; 8) {
+ *     Worker worker = new Worker();
+ *     worker.initialize(mailboxFactory.createAsyncMailbox());
+ *     router.addWorker(worker);
+ *     i += 1;
+ * }
+ * new Route(new Work()).send(this, router, rp);
+ * </pre>
+ */
+public class JARouter
+        extends JLPCActor
+        implements Router {
+    /**
+     * Selects the worker for each request.
+     */
+    private final RoutingStrategy strategy;
+
+    /**
+     * The workers.
+     */
+    private final ArrayList<Actor> workers = new ArrayList<Actor>();
+
+    /**
+     * The number of outstanding requests of each worker,
+     * maintained only when the strategy uses it.
+     */
+    private int[] outstanding = new int[4];
+
+    /**
+     * Create a round-robin router.
+     */
+    public JARouter() {
+        this(new RoundRobin());
+    }
+
+    /**
+     * Create a router.
+     *
+     * @param strategy Selects the worker for each request.
+     */
+    public JARouter(RoutingStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Add a worker to the pool.
+     * (Not thread safe!)
+     *
+     * @param worker The worker.
+     */
+    public void addWorker(Actor worker) {
+        if (worker == null)
+            throw new IllegalArgumentException("may not be null");
+        if (workers.size() == outstanding.length) {
+            int[] o = new int[outstanding.length * 2];
+            System.arraycopy(outstanding, 0, o, 0, outstanding.length);
+            outstanding = o;
+        }
+        workers.add(worker);
+    }
+
+    /**
+     * Returns the number of workers.
+     *
+     * @return The number of workers.
+     */
+    public int getWorkerCount() {
+        return workers.size();
+    }
+
+    /**
+     * Returns a worker.
+     *
+     * @param index The index of the worker.
+     * @return The worker.
+     */
+    public Actor getWorker(int index) {
+        return workers.get(index);
+    }
+
+    /**
+     * Returns the number of requests sent to a worker for which no response
+     * has yet been received. Always 0 unless the strategy uses it.
+     *
+     * @param index The index of the worker.
+     * @return The number of outstanding requests.
+     */
+    public int getOutstanding(int index) {
+        return outstanding[index];
+    }
+
+    /**
+     * Forward a request to one of the workers.
+     *
+     * @param request The request to be forwarded.
+     * @param rp      The response processor.
+     */
+    @Override
+    public void route(Request request, RP rp)
+            throws Exception {
+        if (workers.isEmpty())
+            throw new IllegalStateException("no workers");
+        int index = strategy.select(request, this);
+        Actor worker = workers.get(index);
+        if (!strategy.usesOutstanding()) {
+            request.send(this, worker, rp);
+            return;
+        }
+        final Outstanding o = new Outstanding(index, rp);
+        outstanding[index] += 1;
+        setExceptionHandler(new ExceptionHandler() {
+            @Override
+            public void process(Throwable exception) throws Exception {
+                o.done();
+                if (exception instanceof Exception)
+                    throw (Exception) exception;
+                throw (Error) exception;
+            }
+        });
+        try {
+            request.send(this, worker, o);
+        } catch (Exception ex) {
+            o.done();
+            throw ex;
+        }
+    }
+
+    /**
+     * Decrements the outstanding count of a worker when its response arrives.
+     */
+    private final class Outstanding extends RP {
+        private final int index;
+
+        private RP rp;
+
+        Outstanding(int index, RP rp) {
+            this.index = index;
+            this.rp = rp;
+        }
+
+        /**
+         * Decrement the outstanding count, once.
+         */
+        void done() {
+            if (rp == null)
+                return;
+            rp = null;
+            outstanding[index] -= 1;
+        }
+
+        @Override
+        public void processResponse(Object response) throws Exception {
+            RP r = rp;
+            done();
+            r.processResponse(response);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.router;
+
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * Sends each request to the worker with the fewest outstanding requests.
+ * This is a linear scan, so use RandomTwoChoices for large pools.
+ */
+public class LeastOutstanding extends RoutingStrategy {
+    @Override
+    public boolean usesOutstanding() {
+        return true;
+    }
+
+    @Override
+    public int select(Request request, JARouter router) {
+        int best = 0;
+        int min = router.getOutstanding(0);
+        int i = 1;
+        int n = router.getWorkerCount();
+        while (i < n && min > 0) {
+            int o = router.getOutstanding(i);
+            if (o < min) {
+                best = i;
+                min = o;
+            }
+            i += 1;
+        }
+        return best;
+    }
+}
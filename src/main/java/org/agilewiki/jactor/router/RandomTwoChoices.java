@@ -0,0 +1,71 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.router;
+
+import java.util.Random;
+
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * Picks two workers at random and sends the request to the one
+ * with fewer outstanding requests.
+ */
+public class RandomTwoChoices extends RoutingStrategy {
+    private final Random random;
+
+    /**
+     * Create a RandomTwoChoices strategy.
+     */
+    public RandomTwoChoices() {
+        this(new Random());
+    }
+
+    /**
+     * Create a RandomTwoChoices strategy.
+     *
+     * @param random The source of random numbers.
+     */
+    public RandomTwoChoices(Random random) {
+        this.random = random;
+    }
+
+    @Override
+    public boolean usesOutstanding() {
+        return true;
+    }
+
+    @Override
+    public int select(Request request, JARouter router) {
+        int n = router.getWorkerCount();
+        if (n == 1)
+            return 0;
+        int a = random.nextInt(n);
+        int b = random.nextInt(n - 1);
+        if (b >= a)
+            b += 1;
+        if (router.getOutstanding(b) < router.getOutstanding(a))
+            return b;
+        return a;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.router;
+
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * Selects the worker which is to receive a request.
+ * A routing strategy belongs to a single router.
+ */
+abstract public class RoutingStrategy {
+    /**
+     * Returns true when the router needs to track the number of
+     * outstanding requests of each worker.
+     *
+     * @return True when the outstanding request counts are used.
+     */
+    public boolean usesOutstanding() {
+        return false;
+    }
+
+    /**
+     * Select the worker which is to receive a request.
+     *
+     * @param request The request to be forwarded.
+     * @param router  The router, which has at least one worker.
+     * @return The index of the selected worker.
+     */
+    abstract public int select(Request request, JARouter router)
+            throws Exception;
+}
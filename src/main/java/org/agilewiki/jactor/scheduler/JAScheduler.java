@@ -0,0 +1,332 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.scheduler;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.Closable;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * <p>
+ * A hashed timing wheel. Time is divided into ticks and each timeout is placed
+ * in the wheel slot for its tick, together with the number of full turns of the wheel
+ * still to go. Scheduling and cancelling are O(1), so millions of pending timeouts
+ * are practical, at the cost of firing up to one tick late.
+ * </p>
+ * <p>
+ * New and cancelled timeouts are passed to the scheduler's thread through lock-free queues,
+ * so only that thread touches the wheel. Events are sent to the target actor's mailbox;
+ * tasks are run on the scheduler's thread.
+ * </p>
+ */
+public class JAScheduler implements Scheduler, Closable {
+    private final static int INIT = 0;
+    private final static int CANCELLED = 1;
+    private final static int EXPIRED = 2;
+
+    private final static AtomicIntegerFieldUpdater<Entry> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+    private final MailboxFactory mailboxFactory;
+
+    /**
+     * The duration of a tick in milliseconds.
+     */
+    private final long tickDuration;
+
+    /**
+     * The slots of the wheel, each the head of a doubly linked list.
+     */
+    private final Entry[] wheel;
+
+    private final int mask;
+
+    /**
+     * Timeouts not yet placed in the wheel.
+     */
+    private final ConcurrentLinkedQueue<Entry> added = new ConcurrentLinkedQueue<Entry>();
+
+    /**
+     * Timeouts to be removed from the wheel.
+     */
+    private final ConcurrentLinkedQueue<Entry> cancelled = new ConcurrentLinkedQueue<Entry>();
+
+    /**
+     * When the scheduler started, in nanoseconds.
+     */
+    private final long startTime;
+
+    private final Thread thread;
+
+    private volatile boolean closed;
+
+    /**
+     * The current tick. Only accessed by the scheduler's thread.
+     */
+    private long tick;
+
+    /**
+     * Create a JAScheduler with a tick of 10 milliseconds and 512 slots.
+     *
+     * @param mailboxFactory Used to log exceptions.
+     */
+    public JAScheduler(MailboxFactory mailboxFactory) {
+        this(mailboxFactory, 10, 512);
+    }
+
+    /**
+     * Create a JAScheduler.
+     *
+     * @param mailboxFactory Used to log exceptions.
+     * @param tickDuration   The duration of a tick in milliseconds.
+     * @param wheelSize      The number of slots, rounded up to a power of 2.
+     */
+    public JAScheduler(MailboxFactory mailboxFactory, long tickDuration, int wheelSize) {
+        if (tickDuration < 1)
+            throw new IllegalArgumentException("tickDuration must be at least 1");
+        if (wheelSize < 1 || wheelSize > 1 << 30)
+            throw new IllegalArgumentException("wheelSize out of range");
+        this.mailboxFactory = mailboxFactory;
+        this.tickDuration = tickDuration;
+        int size = 1;
+        while (size < wheelSize)
+            size <<= 1;
+        wheel = new Entry[size];
+        mask = size - 1;
+        startTime = System.nanoTime();
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                work();
+            }
+        }, "JActor scheduler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public Timeout schedule(Actor targetActor, Request event, long delay) {
+        if (targetActor == null || event == null)
+            throw new IllegalArgumentException("may not be null");
+        return add(new Entry(null, targetActor, event, delay, 0));
+    }
+
+    @Override
+    public Timeout scheduleAtFixedRate(Actor targetActor,
+                                       Request event,
+                                       long initialDelay,
+                                       long period) {
+        if (targetActor == null || event == null)
+            throw new IllegalArgumentException("may not be null");
+        if (period < 1)
+            throw new IllegalArgumentException("period must be at least 1");
+        return add(new Entry(null, targetActor, event, initialDelay, period));
+    }
+
+    @Override
+    public Timeout schedule(Runnable task, long delay) {
+        if (task == null)
+            throw new IllegalArgumentException("may not be null");
+        return add(new Entry(task, null, null, delay, 0));
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        thread.interrupt();
+    }
+
+    private Entry add(Entry entry) {
+        if (closed)
+            throw new IllegalStateException("closed");
+        added.add(entry);
+        return entry;
+    }
+
+    /**
+     * Returns the time since the scheduler started, in milliseconds.
+     */
+    private long now() {
+        return (System.nanoTime() - startTime) / 1000000L;
+    }
+
+    private void work() {
+        while (!closed) {
+            long sleep = (tick + 1) * tickDuration - now();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException ex) {
+                    continue;
+                }
+            }
+            removeCancelled();
+            transferAdded();
+            expire(tick & mask);
+            tick += 1;
+        }
+    }
+
+    private void removeCancelled() {
+        Entry entry = cancelled.poll();
+        while (entry != null) {
+            if (entry.slot >= 0)
+                unlink(entry);
+            entry = cancelled.poll();
+        }
+    }
+
+    private void transferAdded() {
+        Entry entry = added.poll();
+        while (entry != null) {
+            if (entry.state != CANCELLED)
+                place(entry, tick);
+            entry = added.poll();
+        }
+    }
+
+    /**
+     * Place a timeout in the wheel.
+     *
+     * @param entry   The timeout.
+     * @param minTick The first tick whose slot has yet to be expired.
+     */
+    private void place(Entry entry, long minTick) {
+        long ticks = entry.deadline / tickDuration;
+        if (ticks < minTick)
+            ticks = minTick;
+        entry.rounds = (ticks - minTick) / wheel.length;
+        int slot = (int) (ticks & mask);
+        entry.slot = slot;
+        entry.prev = null;
+        entry.next = wheel[slot];
+        if (entry.next != null)
+            entry.next.prev = entry;
+        wheel[slot] = entry;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.prev == null)
+            wheel[entry.slot] = entry.next;
+        else
+            entry.prev.next = entry.next;
+        if (entry.next != null)
+            entry.next.prev = entry.prev;
+        entry.prev = null;
+        entry.next = null;
+        entry.slot = -1;
+    }
+
+    /**
+     * Fire the timeouts of a slot which are due on this turn of the wheel.
+     */
+    private void expire(long slot) {
+        Entry entry = wheel[(int) slot];
+        while (entry != null) {
+            Entry next = entry.next;
+            if (entry.rounds > 0)
+                entry.rounds -= 1;
+            else {
+                unlink(entry);
+                fire(entry);
+            }
+            entry = next;
+        }
+    }
+
+    private void fire(Entry entry) {
+        if (entry.period > 0) {
+            if (entry.state != INIT)
+                return;
+            entry.deadline += entry.period;
+            place(entry, tick + 1);
+        } else if (!STATE.compareAndSet(entry, INIT, EXPIRED))
+            return;
+        try {
+            if (entry.task != null)
+                entry.task.run();
+            else
+                entry.event.sendEvent(entry.targetActor);
+        } catch (Throwable ex) {
+            mailboxFactory.logException(false, "Timeout failed", ex);
+        }
+    }
+
+    /**
+     * A pending timeout.
+     */
+    private final class Entry implements Timeout {
+        private final Runnable task;
+        private final Actor targetActor;
+        private final Request event;
+        private final long period;
+
+        /**
+         * When the timeout is due, in milliseconds since the scheduler started.
+         */
+        private long deadline;
+
+        /**
+         * The number of turns of the wheel remaining.
+         */
+        private long rounds;
+
+        /**
+         * The slot holding the entry, or -1.
+         */
+        private int slot = -1;
+
+        private Entry prev;
+        private Entry next;
+
+        volatile int state;
+
+        Entry(Runnable task, Actor targetActor, Request event, long delay, long period) {
+            if (delay < 0)
+                throw new IllegalArgumentException("delay may not be negative");
+            this.task = task;
+            this.targetActor = targetActor;
+            this.event = event;
+            this.period = period;
+            deadline = now() + delay;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, INIT, CANCELLED))
+                return false;
+            cancelled.add(this);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.scheduler;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * Schedules timer events, which are delivered to the mailbox of the target actor.
+ * Delays are in milliseconds.
+ */
+public interface Scheduler {
+    /**
+     * Send an event to an actor after a delay.
+     *
+     * @param targetActor The actor to receive the event.
+     * @param event       The event.
+     * @param delay       The delay in milliseconds.
+     * @return Used to cancel the event.
+     */
+    public Timeout schedule(Actor targetActor, Request event, long delay);
+
+    /**
+     * Send an event to an actor repeatedly until cancelled.
+     *
+     * @param targetActor  The actor to receive the events.
+     * @param event        The event.
+     * @param initialDelay The delay before the first event, in milliseconds.
+     * @param period       The time between events, in milliseconds.
+     * @return Used to cancel the events.
+     */
+    public Timeout scheduleAtFixedRate(Actor targetActor,
+                                       Request event,
+                                       long initialDelay,
+                                       long period);
+
+    /**
+     * Run a task after a delay. The task is run on the scheduler's own thread,
+     * so it must be short and must not block.
+     *
+     * @param task  The task.
+     * @param delay The delay in milliseconds.
+     * @return Used to cancel the task.
+     */
+    public Timeout schedule(Runnable task, long delay);
+
+    /**
+     * Stop the scheduler. Pending events are discarded.
+     */
+    public void close();
+}
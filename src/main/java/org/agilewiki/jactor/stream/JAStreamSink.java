@@ -0,0 +1,149 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.stream;
+
+import org.agilewiki.jactor.lpc.JLPCActor;
+
+/**
+ * <p>
+ * Base class for stream sinks with a fixed credit window.
+ * The full window is requested on subscription, and credit is granted again
+ * each time half the window has been processed, so the source
+ * never has more than a window of elements in flight.
+ * </p>
+ */
+abstract public class JAStreamSink
+        extends JLPCActor
+        implements StreamSink {
+    /**
+     * The maximum number of elements in flight.
+     */
+    private final int window;
+
+    /**
+     * The number of elements to process before granting more credit.
+     */
+    private final int replenish;
+
+    /**
+     * The source, or null.
+     */
+    private StreamSource source;
+
+    /**
+     * The number of elements processed since credit was last granted.
+     */
+    private int processed;
+
+    /**
+     * Create a JAStreamSink.
+     *
+     * @param window The maximum number of elements in flight.
+     */
+    public JAStreamSink(int window) {
+        if (window < 1)
+            throw new IllegalArgumentException("window must be at least 1");
+        this.window = window;
+        replenish = (window + 1) / 2;
+    }
+
+    /**
+     * Subscribe to a stream source.
+     *
+     * @param source The stream source.
+     */
+    protected void subscribeTo(StreamSource source)
+            throws Exception {
+        new SubscribeStream(this).sendEvent(this, source);
+    }
+
+    /**
+     * Cancel the stream. Elements already in flight are discarded.
+     */
+    protected void cancel()
+            throws Exception {
+        if (source == null)
+            return;
+        StreamSource s = source;
+        source = null;
+        CancelStream.req.sendEvent(this, s);
+    }
+
+    @Override
+    public void onSubscribe(StreamSource source)
+            throws Exception {
+        this.source = source;
+        processed = 0;
+        new RequestElements(window).sendEvent(this, source);
+    }
+
+    @Override
+    public void onNext(Object element)
+            throws Exception {
+        if (source == null)
+            return;
+        processElement(element);
+        processed += 1;
+        if (processed == replenish && source != null) {
+            processed = 0;
+            new RequestElements(replenish).sendEvent(this, source);
+        }
+    }
+
+    @Override
+    public void onComplete()
+            throws Exception {
+        source = null;
+        processComplete();
+    }
+
+    @Override
+    public void onError(Throwable exception)
+            throws Exception {
+        source = null;
+        processError(exception);
+    }
+
+    /**
+     * Process an element of the stream.
+     *
+     * @param element The element.
+     */
+    abstract protected void processElement(Object element)
+            throws Exception;
+
+    /**
+     * All the elements have been processed.
+     */
+    abstract protected void processComplete()
+            throws Exception;
+
+    /**
+     * The stream has failed.
+     *
+     * @param exception Why the stream failed.
+     */
+    abstract protected void processError(Throwable exception)
+            throws Exception;
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.stream;
+
+import org.agilewiki.jactor.lpc.JLPCActor;
+
+/**
+ * <p>
+ * Base class for stream sources. The demand method is called whenever the sink
+ * grants more credit, and should emit elements while getCredit returns more than 0
+ * and elements are available. Elements which become available later can be emitted
+ * at any time, so long as there is credit.
+ * </p>
+ * <p>
+ * Only one sink may subscribe. A second sink is sent an IllegalStateException.
+ * </p>
+ */
+abstract public class JAStreamSource
+        extends JLPCActor
+        implements StreamSource {
+    /**
+     * The subscribed sink, or null.
+     */
+    private StreamSink sink;
+
+    /**
+     * The number of elements which may yet be emitted.
+     */
+    private long credit;
+
+    /**
+     * True while demand is running, so that credit granted synchronously does not recurse.
+     */
+    private boolean demanding;
+
+    /**
+     * True once the stream has completed, failed or been cancelled.
+     */
+    private boolean terminated;
+
+    /**
+     * Subscribe a sink to the stream.
+     *
+     * @param sink The subscribing actor.
+     */
+    @Override
+    public void subscribe(StreamSink sink)
+            throws Exception {
+        if (this.sink != null || terminated) {
+            new StreamError(new IllegalStateException("already subscribed")).
+                    sendEvent(this, sink);
+            return;
+        }
+        this.sink = sink;
+        new StreamSubscribed(this).sendEvent(this, sink);
+    }
+
+    /**
+     * Grant the source credit to emit more elements.
+     *
+     * @param n The number of additional elements which may be emitted.
+     */
+    @Override
+    public void request(long n)
+            throws Exception {
+        if (terminated)
+            return;
+        if (n < 1) {
+            error(new IllegalArgumentException("request must be at least 1"));
+            return;
+        }
+        credit += n;
+        if (credit < 0)
+            credit = Long.MAX_VALUE;
+        if (demanding)
+            return;
+        demanding = true;
+        try {
+            demand();
+        } finally {
+            demanding = false;
+        }
+    }
+
+    /**
+     * Stop emitting elements.
+     */
+    @Override
+    public void cancel()
+            throws Exception {
+        if (terminated)
+            return;
+        terminate();
+        cancelled();
+    }
+
+    /**
+     * Returns the number of elements which may yet be emitted.
+     *
+     * @return The credit.
+     */
+    public long getCredit() {
+        return credit;
+    }
+
+    /**
+     * Returns true once the stream has completed, failed or been cancelled.
+     *
+     * @return True when no further elements can be emitted.
+     */
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    /**
+     * Emit an element to the sink.
+     *
+     * @param element The element.
+     */
+    protected void emit(Object element)
+            throws Exception {
+        if (credit < 1)
+            throw new IllegalStateException("no credit");
+        credit -= 1;
+        new NextElement(element).sendEvent(this, sink);
+    }
+
+    /**
+     * Signal the sink that all the elements have been emitted.
+     * When no sink has subscribed, the stream is only terminated.
+     */
+    protected void complete()
+            throws Exception {
+        if (terminated)
+            return;
+        StreamSink s = sink;
+        terminate();
+        if (s != null)
+            StreamComplete.req.sendEvent(this, s);
+    }
+
+    /**
+     * Signal the sink that the stream has failed.
+     * When no sink has subscribed, the stream is only terminated.
+     *
+     * @param exception Why the stream failed.
+     */
+    protected void error(Throwable exception)
+            throws Exception {
+        if (terminated)
+            return;
+        StreamSink s = sink;
+        terminate();
+        if (s != null)
+            new StreamError(exception).sendEvent(this, s);
+    }
+
+    private void terminate() {
+        terminated = true;
+        sink = null;
+        credit = 0;
+    }
+
+    /**
+     * Emit elements while there is credit and elements are available.
+     */
+    abstract protected void demand()
+            throws Exception;
+
+    /**
+     * The sink has cancelled the stream. By default, nothing is done.
+     */
+    protected void cancelled()
+            throws Exception {
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.stream;
+
+import org.agilewiki.jactor.lpc.JLPCActor;
+
+/**
+ * <p>
+ * Connects a StreamPublisher to a stream sink. The credit granted by the sink is passed to
+ * the publisher's subscription, and the publisher's signals are passed to the sink as events,
+ * so the sink processes them on its own mailbox whichever thread the publisher uses.
+ * </p>
+ * <p>
+ * Only one sink may subscribe. A second sink is sent an IllegalStateException.
+ * </p>
+ * <pre>
+ * PublisherAdapter adapter = new PublisherAdapter(publisher);
+ * adapter.initialize(mailboxFactory.createAsyncMailbox());
+ * new SubscribeStream(sink).sendEvent(adapter);
+ * </pre>
+ */
+public class PublisherAdapter
+        extends JLPCActor
+        implements StreamSource {
+    private final StreamPublisher publisher;
+
+    /**
+     * True once a sink has subscribed.
+     */
+    private boolean subscribed;
+
+    /**
+     * True once the sink has cancelled the stream.
+     * A cancel which arrives before onSubscribe is applied by onSubscribe.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * The publisher's subscription, or null until the publisher has called onSubscribe.
+     * Set by the publisher's thread.
+     */
+    private volatile StreamSubscription subscription;
+
+    /**
+     * Create a PublisherAdapter.
+     *
+     * @param publisher The non-actor publisher.
+     */
+    public PublisherAdapter(StreamPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * Subscribe a sink to the publisher.
+     *
+     * @param sink The subscribing actor.
+     */
+    @Override
+    public void subscribe(final StreamSink sink)
+            throws Exception {
+        if (subscribed) {
+            new StreamError(new IllegalStateException("already subscribed")).
+                    sendEvent(this, sink);
+            return;
+        }
+        subscribed = true;
+        publisher.subscribe(new StreamSubscriber() {
+            @Override
+            public void onSubscribe(StreamSubscription subscription) {
+                PublisherAdapter.this.subscription = subscription;
+                if (cancelled) {
+                    subscription.cancel();
+                    return;
+                }
+                try {
+                    new StreamSubscribed(PublisherAdapter.this).sendEvent(sink);
+                } catch (Exception ex) {
+                    throw new UnsupportedOperationException("Unexpected exception", ex);
+                }
+            }
+
+            @Override
+            public void onNext(Object element) {
+                try {
+                    new NextElement(element).sendEvent(sink);
+                } catch (Exception ex) {
+                    throw new UnsupportedOperationException("Unexpected exception", ex);
+                }
+            }
+
+            @Override
+            public void onError(Throwable exception) {
+                try {
+                    new StreamError(exception).sendEvent(sink);
+                } catch (Exception ex) {
+                    throw new UnsupportedOperationException("Unexpected exception", ex);
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                try {
+                    StreamComplete.req.sendEvent(sink);
+                } catch (Exception ex) {
+                    throw new UnsupportedOperationException("Unexpected exception", ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Pass the credit granted by the sink to the publisher.
+     *
+     * @param n The number of additional elements which may be sent.
+     */
+    @Override
+    public void request(long n)
+            throws Exception {
+        StreamSubscription s = subscription;
+        if (s != null && !cancelled)
+            s.request(n);
+    }
+
+    /**
+     * Cancel the publisher's subscription.
+     */
+    @Override
+    public void cancel()
+            throws Exception {
+        if (cancelled)
+            return;
+        cancelled = true;
+        StreamSubscription s = subscription;
+        if (s != null)
+            s.cancel();
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.stream;
+
+import org.agilewiki.jactor.lpc.TargetActor;
+
+/**
+ * An actor which emits a stream of elements to a single sink,
+ * never emitting more elements than the sink has requested.
+ */
+public interface StreamSource extends TargetActor {
+    /**
+     * Subscribe a sink to the stream.
+     *
+     * @param sink The subscribing actor.
+     */
+    public void subscribe(StreamSink sink)
+            throws Exception;
+
+    /**
+     * Grant the source credit to emit more elements.
+     *
+     * @param n The number of additional elements which may be emitted.
+     */
+    public void request(long n)
+            throws Exception;
+
+    /**
+     * Stop emitting elements.
+     */
+    public void cancel()
+            throws Exception;
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2013 Bill La Forge
+ *
+ * This file is part of AgileWiki and is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (LGPL) as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This code is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * or navigate to the following url http://www.gnu.org/licenses/lgpl-2.1.txt
+ *
+ * Note however that only Scala, Java and JavaScript files are being covered by LGPL.
+ * All other files are covered by the Common Public License (CPL).
+ * A copy of this license is also included and can be
+ * found as well at http://www.opensource.org/licenses/cpl1.0.txt
+ */
+package org.agilewiki.jactor.stream;
+
+import org.agilewiki.jactor.lpc.JLPCActor;
+
+/**
+ * <p>
+ * Connects a StreamSubscriber to a stream source. The subscriber's methods are called
+ * by the adapter's mailbox, while the subscription may be used from any thread.
+ * </p>
+ * <pre>
+ * SubscriberAdapter adapter = new SubscriberAdapter(subscriber);
+ * adapter.initialize(mailboxFactory.createAsyncMailbox());
+ * adapter.subscribe(source);
+ * </pre>
+ */
+public class SubscriberAdapter
+        extends JLPCActor
+        implements StreamSink {
+    private final StreamSubscriber subscriber;
+
+    /**
+     * Create a SubscriberAdapter.
+     *
+     * @param subscriber The non-actor subscriber.
+     */
+    public SubscriberAdapter(StreamSubscriber subscriber) {
+        this.subscriber = subscriber;
+    }
+
+    /**
+     * Subscribe to a stream source. May be called from any thread.
+     *
+     * @param source The stream source.
+     */
+    public void subscribe(StreamSource source)
+            throws Exception {
+        new SubscribeStream(this).sendEvent(source);
+    }
+
+    @Override
+    public void onSubscribe(final StreamSource source)
+            throws Exception {
+        subscriber.onSubscribe(new StreamSubscription() {
+            @Override
+            public void request(long n) {
+                try {
+                    new RequestElements(n).sendEvent(source);
+                } catch (Exception ex) {
+                    throw new UnsupportedOperationException("Unexpected exception", ex);
+                }
+            }
+
+            @Override
+            public void cancel() {
+                try {
+                    CancelStream.req.sendEvent(source);
+                } catch (Exception ex) {
+                    throw new UnsupportedOperationException("Unexpected exception", ex);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void onNext(Object element)
+            throws Exception {
+        subscriber.onNext(element);
+    }
+
+    @Override
+    public void onComplete()
+            throws Exception {
+        subscriber.onComplete();
+    }
+
+    @Override
+    public void onError(Throwable exception)
+            throws Exception {
+        subscriber.onError(exception);
+    }
+}
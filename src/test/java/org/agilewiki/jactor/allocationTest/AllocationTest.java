@@ -0,0 +1,122 @@
+package org.agilewiki.jactor.allocationTest;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor.JAEvent;
+import org.agilewiki.jactor.JAFuture;
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.Mailbox;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.SimpleRequest;
+import org.agilewiki.jactor.lpc.Request;
+import org.agilewiki.jactor.pubsub.publisher.JAPublisher;
+import org.agilewiki.jactor.pubsub.publisher.Publish;
+import org.agilewiki.jactor.pubsub.publisher.Subscribe;
+
+/**
+ * Upper bounds on the bytes allocated per message along the hot paths.
+ */
+public class AllocationTest extends TestCase {
+    private final static int COUNT = 100000;
+
+    private final Allocations allocations = new Allocations();
+
+    private MailboxFactory mailboxFactory;
+
+    private JAFuture future;
+
+    @Override
+    protected void setUp() throws Exception {
+        mailboxFactory = JAMailboxFactory.newMailboxFactory(2);
+        future = new JAFuture();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mailboxFactory.close();
+    }
+
+    private Echo echo(Mailbox mailbox) throws Exception {
+        Echo echo = new Echo();
+        echo.initialize(mailbox);
+        return echo;
+    }
+
+    /**
+     * Returns the bytes allocated per message sent by a Loop actor.
+     */
+    private double perMessage(Loop loop) throws Exception {
+        SimpleRequest.req.send(future, loop);
+        allocations.start();
+        SimpleRequest.req.send(future, loop);
+        return (double) allocations.stop() / loop.count;
+    }
+
+    public void testSyncSend() throws Exception {
+        if (!allocations.isSupported())
+            return;
+        Mailbox mailbox = mailboxFactory.createMailbox();
+        Loop loop = new Loop();
+        loop.initialize(mailbox);
+        loop.target = echo(mailbox);
+        loop.request = SimpleRequest.req;
+        loop.count = COUNT;
+        double bytes = perMessage(loop);
+        System.out.println("syncSend bytes per message: " + bytes);
+        assertTrue("syncSend bytes per message: " + bytes, bytes < 80);
+    }
+
+    public void testAsyncRoundTrip() throws Exception {
+        if (!allocations.isSupported())
+            return;
+        Loop loop = new Loop();
+        loop.initialize(mailboxFactory.createAsyncMailbox());
+        loop.target = echo(mailboxFactory.createAsyncMailbox());
+        loop.request = SimpleRequest.req;
+        loop.count = COUNT;
+        double bytes = perMessage(loop);
+        System.out.println("async round trip bytes per message: " + bytes);
+        assertTrue("async round trip bytes per message: " + bytes, bytes < 140);
+    }
+
+    public void testEvent() throws Exception {
+        if (!allocations.isSupported())
+            return;
+        Echo echo = echo(mailboxFactory.createAsyncMailbox());
+        JAEvent event = new JAEvent();
+        SimpleRequest.req.send(future, echo);
+        allocations.start();
+        int i = 0;
+        while (i < COUNT) {
+            event.sendEvent(echo, SimpleRequest.req);
+            i += 1;
+        }
+        SimpleRequest.req.send(future, echo);
+        double bytes = (double) allocations.stop() / COUNT;
+        System.out.println("JAEvent bytes per message: " + bytes);
+        assertTrue("JAEvent bytes per message: " + bytes, bytes < 200);
+    }
+
+    public void testPublish() throws Exception {
+        if (!allocations.isSupported())
+            return;
+        int subscribers = 100;
+        Mailbox mailbox = mailboxFactory.createMailbox();
+        JAPublisher publisher = new JAPublisher();
+        publisher.initialize(mailbox);
+        int i = 0;
+        while (i < subscribers) {
+            Echo echo = echo(mailbox);
+            echo.setActorName("" + i);
+            (new Subscribe(echo)).send(future, publisher);
+            i += 1;
+        }
+        Loop loop = new Loop();
+        loop.initialize(mailbox);
+        loop.target = publisher;
+        loop.request = new Publish(SimpleRequest.req);
+        loop.count = COUNT / subscribers;
+        double bytes = perMessage(loop) / subscribers;
+        System.out.println("publish bytes per subscriber: " + bytes);
+        assertTrue("publish bytes per subscriber: " + bytes, bytes < 80);
+    }
+}
@@ -0,0 +1,60 @@
+package org.agilewiki.jactor.allocationTest;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+
+/**
+ * Counts the bytes allocated by all threads between start and stop.
+ */
+public class Allocations {
+    private final com.sun.management.ThreadMXBean threadMXBean;
+
+    private HashMap<Long, Long> start;
+
+    public Allocations() {
+        java.lang.management.ThreadMXBean tmb = ManagementFactory.getThreadMXBean();
+        if (tmb instanceof com.sun.management.ThreadMXBean &&
+                ((com.sun.management.ThreadMXBean) tmb).isThreadAllocatedMemorySupported()) {
+            threadMXBean = (com.sun.management.ThreadMXBean) tmb;
+            threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        } else
+            threadMXBean = null;
+    }
+
+    /**
+     * Returns true when allocations can be counted by this JVM.
+     */
+    public boolean isSupported() {
+        return threadMXBean != null;
+    }
+
+    public void start() {
+        start = snapshot();
+    }
+
+    /**
+     * Returns the bytes allocated by all threads since start.
+     */
+    public long stop() {
+        HashMap<Long, Long> stop = snapshot();
+        long allocated = 0;
+        for (Long threadId : stop.keySet()) {
+            Long b = start.get(threadId);
+            allocated += stop.get(threadId) - (b == null ? 0L : b);
+        }
+        return allocated;
+    }
+
+    private HashMap<Long, Long> snapshot() {
+        long[] threadIds = threadMXBean.getAllThreadIds();
+        long[] allocated = threadMXBean.getThreadAllocatedBytes(threadIds);
+        HashMap<Long, Long> bytes = new HashMap<Long, Long>();
+        int i = 0;
+        while (i < threadIds.length) {
+            if (allocated[i] >= 0)
+                bytes.put(threadIds[i], allocated[i]);
+            i += 1;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,16 @@
+package org.agilewiki.jactor.allocationTest;
+
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.SimpleRequest;
+import org.agilewiki.jactor.SimpleRequestReceiver;
+import org.agilewiki.jactor.pubsub.subscriber.JASubscriber;
+
+/**
+ * Test code.
+ */
+public class Echo extends JASubscriber implements SimpleRequestReceiver {
+    @Override
+    public void processRequest(SimpleRequest request, RP rp) throws Exception {
+        rp.processResponse(null);
+    }
+}
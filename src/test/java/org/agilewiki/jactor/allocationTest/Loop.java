@@ -0,0 +1,36 @@
+package org.agilewiki.jactor.allocationTest;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.SimpleRequest;
+import org.agilewiki.jactor.SimpleRequestReceiver;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * Sends a request to a target actor count times and responds when all the responses are in.
+ */
+public class Loop extends JLPCActor implements SimpleRequestReceiver {
+    public Actor target;
+    public Request request;
+    public int count;
+
+    @Override
+    public void processRequest(SimpleRequest req, final RP rp) throws Exception {
+        RP counter = new RP() {
+            int received;
+
+            @Override
+            public void processResponse(Object response) throws Exception {
+                received += 1;
+                if (received == count)
+                    rp.processResponse(null);
+            }
+        };
+        int i = 0;
+        while (i < count) {
+            request.send(this, target, counter);
+            i += 1;
+        }
+    }
+}
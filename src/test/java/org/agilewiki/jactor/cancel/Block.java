@@ -0,0 +1,26 @@
+package org.agilewiki.jactor.cancel;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * Blocks the worker's thread until the gate opens.
+ */
+public class Block extends Request<Object, Worker> {
+    public final static Block req = new Block();
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Worker;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        Worker worker = (Worker) targetActor;
+        worker.blocked.countDown();
+        worker.gate.await();
+        rp.processResponse(null);
+    }
+}
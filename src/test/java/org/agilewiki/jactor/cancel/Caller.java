@@ -0,0 +1,24 @@
+package org.agilewiki.jactor.cancel;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.SimpleRequest;
+import org.agilewiki.jactor.SimpleRequestReceiver;
+import org.agilewiki.jactor.apc.JARequest;
+import org.agilewiki.jactor.lpc.JLPCActor;
+
+/**
+ * Sends work to the worker, keeping the request so that it can be cancelled.
+ */
+public class Caller extends JLPCActor implements SimpleRequestReceiver {
+    public final CountDownLatch started = new CountDownLatch(1);
+    public Worker worker;
+    public volatile JARequest sent;
+
+    @Override
+    public void processRequest(SimpleRequest req, RP rp) throws Exception {
+        sent = sendCancellable(worker, Work.req, rp);
+        started.countDown();
+    }
+}
@@ -0,0 +1,112 @@
+package org.agilewiki.jactor.cancel;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.JAFuture;
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.SimpleRequest;
+import org.agilewiki.jactor.lpc.Request;
+
+public class CancelTest extends TestCase {
+    private MailboxFactory mailboxFactory;
+    private Worker worker;
+
+    @Override
+    protected void setUp() throws Exception {
+        mailboxFactory = JAMailboxFactory.newMailboxFactory(4);
+        worker = new Worker();
+        worker.initialize(mailboxFactory.createAsyncMailbox());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mailboxFactory.close();
+    }
+
+    /**
+     * Sends a request on another thread.
+     */
+    private static class Sender extends Thread {
+        final JAFuture future = new JAFuture();
+        final Request request;
+        final Actor actor;
+        Object result;
+
+        Sender(Request request, Actor actor) {
+            this.request = request;
+            this.actor = actor;
+            start();
+        }
+
+        @Override
+        public void run() {
+            try {
+                result = future.send(actor, request);
+            } catch (Exception ex) {
+                result = ex;
+            }
+        }
+    }
+
+    private void block() throws Exception {
+        new Sender(Block.req, worker);
+        assertTrue(worker.blocked.await(5, TimeUnit.SECONDS));
+    }
+
+    public void testQueued() throws Exception {
+        block();
+        Sender sender = new Sender(Work.req, worker);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!sender.future.cancel()) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.yield();
+        }
+        worker.gate.countDown();
+        sender.join(5000);
+        assertTrue(sender.result instanceof CancellationException);
+        assertEquals(0, worker.work.get());
+        assertNull(new JAFuture().send(worker, Work.req));
+        assertEquals(1, worker.work.get());
+    }
+
+    public void testPropagation() throws Exception {
+        Parent parent = new Parent();
+        parent.initialize(mailboxFactory.createAsyncMailbox());
+        parent.worker = worker;
+        block();
+        Sender sender = new Sender(SimpleRequest.req, parent);
+        assertTrue(parent.started.await(5, TimeUnit.SECONDS));
+        parent.request.cancel();
+        worker.gate.countDown();
+        sender.join(5000);
+        assertTrue(sender.result instanceof CancellationException);
+        assertEquals(0, worker.work.get());
+    }
+
+    public void testCaller() throws Exception {
+        Caller caller = new Caller();
+        caller.initialize(mailboxFactory.createAsyncMailbox());
+        caller.worker = worker;
+        block();
+        Sender sender = new Sender(SimpleRequest.req, caller);
+        assertTrue(caller.started.await(5, TimeUnit.SECONDS));
+        assertNotNull(caller.sent);
+        caller.sent.cancel();
+        worker.gate.countDown();
+        sender.join(5000);
+        assertTrue(sender.result instanceof CancellationException);
+        assertEquals(0, worker.work.get());
+    }
+
+    public void testNotCancelled() throws Exception {
+        Parent parent = new Parent();
+        parent.initialize(mailboxFactory.createAsyncMailbox());
+        parent.worker = worker;
+        assertNull(new JAFuture().send(parent, SimpleRequest.req));
+        assertEquals(3, worker.work.get());
+    }
+}
@@ -0,0 +1,29 @@
+package org.agilewiki.jactor.cancel;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.SimpleRequest;
+import org.agilewiki.jactor.SimpleRequestReceiver;
+import org.agilewiki.jactor.apc.JARequest;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.parallel.JAResponseCounter;
+
+/**
+ * Sends work to the worker on behalf of its own request.
+ */
+public class Parent extends JLPCActor implements SimpleRequestReceiver {
+    public final CountDownLatch started = new CountDownLatch(1);
+    public Worker worker;
+    public volatile JARequest request;
+
+    @Override
+    public void processRequest(SimpleRequest req, RP rp) throws Exception {
+        request = getMailbox().getCurrentRequest();
+        JAResponseCounter counter = new JAResponseCounter(3, rp);
+        send(worker, Work.req, counter);
+        send(worker, Work.req, counter);
+        send(worker, Work.req, counter);
+        started.countDown();
+    }
+}
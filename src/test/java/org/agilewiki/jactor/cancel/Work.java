@@ -0,0 +1,24 @@
+package org.agilewiki.jactor.cancel;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * Counts the work done.
+ */
+public class Work extends Request<Object, Worker> {
+    public final static Work req = new Work();
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Worker;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        ((Worker) targetActor).work.incrementAndGet();
+        rp.processResponse(null);
+    }
+}
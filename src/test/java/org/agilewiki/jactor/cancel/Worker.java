@@ -0,0 +1,15 @@
+package org.agilewiki.jactor.cancel;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.agilewiki.jactor.lpc.JLPCActor;
+
+/**
+ * Test code.
+ */
+public class Worker extends JLPCActor {
+    public final CountDownLatch blocked = new CountDownLatch(1);
+    public final CountDownLatch gate = new CountDownLatch(1);
+    public final AtomicInteger work = new AtomicInteger();
+}
@@ -0,0 +1,64 @@
+package org.agilewiki.jactor.concurrent;
+
+import junit.framework.TestCase;
+
+public class MpscQueueTest extends TestCase {
+    public void testOrder() {
+        JAMpscQueue<Integer> queue = new JAMpscQueue<Integer>();
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+        queue.offer(1);
+        queue.offer(2);
+        assertFalse(queue.isEmpty());
+        assertEquals(1, (int) queue.poll());
+        assertEquals(2, (int) queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    /**
+     * Each producer's elements are received in order, and none are lost.
+     */
+    public void testProducers() throws Exception {
+        final JAMpscQueue<int[]> queue = new JAMpscQueue<int[]>();
+        final int producers = 4;
+        final int count = 100000;
+        Thread[] threads = new Thread[producers];
+        int p = 0;
+        while (p < producers) {
+            final int id = p;
+            threads[p] = new Thread() {
+                @Override
+                public void run() {
+                    int i = 0;
+                    while (i < count) {
+                        queue.offer(new int[]{id, i});
+                        i += 1;
+                    }
+                }
+            };
+            threads[p].start();
+            p += 1;
+        }
+        int[] next = new int[producers];
+        int received = 0;
+        long deadline = System.currentTimeMillis() + 30000;
+        while (received < producers * count) {
+            int[] e = queue.poll();
+            if (e == null) {
+                assertTrue(System.currentTimeMillis() < deadline);
+                Thread.yield();
+                continue;
+            }
+            assertEquals(next[e[0]], e[1]);
+            next[e[0]] += 1;
+            received += 1;
+        }
+        p = 0;
+        while (p < producers) {
+            threads[p].join();
+            p += 1;
+        }
+        assertTrue(queue.isEmpty());
+    }
+}
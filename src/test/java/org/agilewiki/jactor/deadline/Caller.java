@@ -0,0 +1,29 @@
+package org.agilewiki.jactor.deadline;
+
+import java.util.concurrent.TimeoutException;
+
+import org.agilewiki.jactor.ExceptionHandler;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.SimpleRequest;
+import org.agilewiki.jactor.SimpleRequestReceiver;
+import org.agilewiki.jactor.lpc.JLPCActor;
+
+/**
+ * Sends a stalled request and reports the timeout.
+ */
+public class Caller extends JLPCActor implements SimpleRequestReceiver {
+    public Staller staller;
+
+    @Override
+    public void processRequest(SimpleRequest request, final RP rp) throws Exception {
+        setExceptionHandler(new ExceptionHandler() {
+            @Override
+            public void process(Throwable exception) throws Exception {
+                if (!(exception instanceof TimeoutException))
+                    throw (Exception) exception;
+                rp.processResponse("timed out");
+            }
+        });
+        send(staller, new Stall(50, true), rp);
+    }
+}
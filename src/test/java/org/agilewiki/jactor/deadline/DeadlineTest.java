@@ -0,0 +1,61 @@
+package org.agilewiki.jactor.deadline;
+
+import java.util.concurrent.TimeoutException;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor.JAFuture;
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.SimpleRequest;
+
+public class DeadlineTest extends TestCase {
+    private MailboxFactory mailboxFactory;
+    private Staller staller;
+
+    @Override
+    protected void setUp() throws Exception {
+        mailboxFactory = JAMailboxFactory.newMailboxFactory(4);
+        staller = new Staller();
+        staller.initialize(mailboxFactory.createAsyncMailbox());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mailboxFactory.close();
+    }
+
+    public void testTimeout() throws Exception {
+        JAFuture future = new JAFuture();
+        try {
+            new Stall(50, true).send(future, staller);
+            fail();
+        } catch (TimeoutException ex) {
+        }
+        Release.req.send(future, staller);
+        assertEquals("done", new Stall(50, false).send(future, staller));
+    }
+
+    public void testInTime() throws Exception {
+        JAFuture future = new JAFuture();
+        assertEquals("done", new Stall(50, false).send(future, staller));
+        Thread.sleep(100);
+        assertEquals("done", new Stall(0, false).send(future, staller));
+    }
+
+    public void testActorSource() throws Exception {
+        Caller caller = new Caller();
+        caller.initialize(mailboxFactory.createMailbox());
+        caller.staller = staller;
+        JAFuture future = new JAFuture();
+        assertEquals("timed out", SimpleRequest.req.send(future, caller));
+        Release.req.send(future, staller);
+        assertEquals("timed out", SimpleRequest.req.send(future, caller));
+    }
+
+    public void testSameMailbox() throws Exception {
+        Caller caller = new Caller();
+        caller.initialize(staller.getMailbox());
+        caller.staller = staller;
+        assertEquals("timed out", SimpleRequest.req.send(new JAFuture(), caller));
+    }
+}
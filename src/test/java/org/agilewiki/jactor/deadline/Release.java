@@ -0,0 +1,26 @@
+package org.agilewiki.jactor.deadline;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * Responds to the stalled request.
+ */
+public class Release extends Request<Object, Staller> {
+    public final static Release req = new Release();
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Staller;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        Staller staller = (Staller) targetActor;
+        staller.stalled.processResponse("late");
+        staller.stalled = null;
+        rp.processResponse(null);
+    }
+}
@@ -0,0 +1,38 @@
+package org.agilewiki.jactor.deadline;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * Responds immediately, or not until released.
+ */
+public class Stall extends Request<String, Staller> {
+    public final long timeout;
+    public final boolean stall;
+
+    public Stall(long timeout, boolean stall) {
+        this.timeout = timeout;
+        this.stall = stall;
+    }
+
+    @Override
+    public long getTimeout() {
+        return timeout;
+    }
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Staller;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        Staller staller = (Staller) targetActor;
+        if (stall)
+            staller.stalled = rp;
+        else
+            rp.processResponse("done");
+    }
+}
@@ -0,0 +1,11 @@
+package org.agilewiki.jactor.deadline;
+
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+
+/**
+ * Holds on to requests until released.
+ */
+public class Staller extends JLPCActor {
+    public RP stalled;
+}
@@ -0,0 +1,119 @@
+package org.agilewiki.jactor.lpc;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor.*;
+
+/**
+ * Test code.
+ */
+public class CommandeerPolicyTest extends TestCase {
+    private JAMailboxFactory mailboxFactory;
+
+    @Override
+    protected void setUp() throws Exception {
+        mailboxFactory = JAMailboxFactory.newMailboxFactory(2);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mailboxFactory.close();
+    }
+
+    private S chain(Mailbox targetMailbox) throws Exception {
+        A a = new A();
+        a.initialize(targetMailbox);
+        S s = new S(a);
+        s.initialize(mailboxFactory.createAsyncMailbox());
+        return s;
+    }
+
+    /**
+     * Once commandeered, the target mailbox stays under the sender's control
+     * for the subsequent requests.
+     */
+    public void testAcquired() throws Exception {
+        JACommandeerPolicy policy = new JACommandeerPolicy();
+        mailboxFactory.setCommandeerPolicy(policy);
+        S s = chain(mailboxFactory.createMailbox());
+        JAFuture future = new JAFuture();
+        assertEquals(10, SimpleRequest.req.send(future, s));
+        assertEquals(1, policy.getAcquiredCount());
+        assertEquals(0, policy.getFailedCount());
+        assertEquals(0, policy.getDeclinedCount());
+    }
+
+    public void testFailed() throws Exception {
+        JACommandeerPolicy policy = new JACommandeerPolicy();
+        mailboxFactory.setCommandeerPolicy(policy);
+        S s = chain(mailboxFactory.createAsyncMailbox());
+        JAFuture future = new JAFuture();
+        assertEquals(10, SimpleRequest.req.send(future, s));
+        assertEquals(0, policy.getAcquiredCount());
+        assertEquals(10, policy.getFailedCount());
+    }
+
+    public void testDeclined() throws Exception {
+        JACommandeerPolicy policy = new AdaptiveCommandeerPolicy(false, 0);
+        mailboxFactory.setCommandeerPolicy(policy);
+        S s = chain(mailboxFactory.createMailbox());
+        JAFuture future = new JAFuture();
+        assertEquals(10, SimpleRequest.req.send(future, s));
+        assertEquals(0, policy.getAcquiredCount());
+        assertEquals(10, policy.getDeclinedCount());
+    }
+
+    /**
+     * With a budget of 1, a thread holding a commandeered mailbox
+     * may not commandeer another.
+     */
+    public void testBudget() throws Exception {
+        JACommandeerPolicy policy = new AdaptiveCommandeerPolicy(true, 1);
+        mailboxFactory.setCommandeerPolicy(policy);
+        A a = new A();
+        a.initialize(mailboxFactory.createMailbox());
+        S s2 = new S(a);
+        s2.initialize(mailboxFactory.createMailbox());
+        S s = new S(s2);
+        s.initialize(mailboxFactory.createAsyncMailbox());
+        JAFuture future = new JAFuture();
+        assertEquals(10, SimpleRequest.req.send(future, s));
+        assertTrue(policy.getAcquiredCount() > 0);
+        assertTrue(policy.getDeclinedCount() > 0);
+    }
+
+    /**
+     * Sends 10 requests, one after the other, to another actor.
+     */
+    class S extends JLPCActor implements SimpleRequestReceiver {
+        Actor n;
+
+        S(Actor n) {
+            this.n = n;
+        }
+
+        @Override
+        public void processRequest(SimpleRequest request, final RP rp) throws Exception {
+            next(0, rp);
+        }
+
+        void next(final int count, final RP rp) throws Exception {
+            if (count == 10) {
+                rp.processResponse(count);
+                return;
+            }
+            SimpleRequest.req.send(this, n, new RP<Object>() {
+                @Override
+                public void processResponse(Object response) throws Exception {
+                    next(count + 1, rp);
+                }
+            });
+        }
+    }
+
+    class A extends JLPCActor implements SimpleRequestReceiver {
+        @Override
+        public void processRequest(SimpleRequest request, RP rp) throws Exception {
+            rp.processResponse(request);
+        }
+    }
+}
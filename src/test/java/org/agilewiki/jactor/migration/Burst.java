@@ -0,0 +1,40 @@
+package org.agilewiki.jactor.migration;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * Sends a run of sequenced events to the counter.
+ */
+public class Burst extends Request<Object, Sender> {
+    private final Counter counter;
+    private final int size;
+    private final CountDownLatch done;
+
+    public Burst(Counter counter, int size, CountDownLatch done) {
+        this.counter = counter;
+        this.size = size;
+        this.done = done;
+    }
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Sender;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        Sender sender = (Sender) targetActor;
+        int i = 0;
+        while (i < size) {
+            new Sequenced(sender, sender.next, done).sendEvent(sender, counter);
+            sender.next += 1;
+            i += 1;
+        }
+        rp.processResponse(null);
+    }
+}
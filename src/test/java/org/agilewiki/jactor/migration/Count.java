@@ -0,0 +1,25 @@
+package org.agilewiki.jactor.migration;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * Increments the counter and returns the mailbox which processed the request.
+ */
+public class Count extends Request<Object, Counter> {
+    public final static Count req = new Count();
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Counter;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        Counter counter = (Counter) targetActor;
+        counter.count.incrementAndGet();
+        rp.processResponse(counter.getMailbox());
+    }
+}
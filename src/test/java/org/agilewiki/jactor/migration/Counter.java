@@ -0,0 +1,18 @@
+package org.agilewiki.jactor.migration;
+
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.agilewiki.jactor.lpc.JLPCActor;
+
+/**
+ * Test code.
+ */
+public class Counter extends JLPCActor {
+    public final CountDownLatch blocked = new CountDownLatch(1);
+    public final CountDownLatch gate = new CountDownLatch(1);
+    public final AtomicInteger count = new AtomicInteger();
+    public final AtomicInteger disorder = new AtomicInteger();
+    final HashMap<Object, Integer> last = new HashMap<Object, Integer>();
+}
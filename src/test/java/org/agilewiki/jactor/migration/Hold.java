@@ -0,0 +1,26 @@
+package org.agilewiki.jactor.migration;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * Blocks the counter's thread until the gate opens.
+ */
+public class Hold extends Request<Object, Counter> {
+    public final static Hold req = new Hold();
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Counter;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        Counter counter = (Counter) targetActor;
+        counter.blocked.countDown();
+        counter.gate.await();
+        rp.processResponse(null);
+    }
+}
@@ -0,0 +1,153 @@
+package org.agilewiki.jactor.migration;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor.JAFuture;
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.Mailbox;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.lpc.Migrate;
+
+public class MigrationTest extends TestCase {
+    private MailboxFactory mailboxFactory;
+
+    @Override
+    protected void setUp() throws Exception {
+        mailboxFactory = JAMailboxFactory.newMailboxFactory(4);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mailboxFactory.close();
+    }
+
+    public void testMigrate() throws Exception {
+        Mailbox shared = mailboxFactory.createMailbox();
+        Counter a = new Counter();
+        a.initialize(shared);
+        Counter b = new Counter();
+        b.initialize(shared);
+        JAFuture future = new JAFuture();
+        assertSame(shared, Count.req.send(future, a));
+        Mailbox mailbox = mailboxFactory.createMailbox();
+        new Migrate(mailbox).send(future, a);
+        assertSame(mailbox, a.getMailbox());
+        assertSame(mailbox, Count.req.send(future, a));
+        assertSame(shared, Count.req.send(future, b));
+        assertEquals(2, a.count.get());
+        assertEquals(1, b.count.get());
+    }
+
+    /**
+     * The actor stays on its old mailbox until the request which migrates it has been processed.
+     */
+    public void testDeferred() throws Exception {
+        Mailbox shared = mailboxFactory.createMailbox();
+        Counter counter = new Counter();
+        counter.initialize(shared);
+        Mailbox mailbox = mailboxFactory.createMailbox();
+        JAFuture future = new JAFuture();
+        assertSame(shared, new Move(mailbox).send(future, counter));
+        assertSame(mailbox, counter.getMailbox());
+        assertSame(mailbox, Count.req.send(future, counter));
+    }
+
+    /**
+     * Requests queued in the old mailbox are forwarded to the new one.
+     */
+    public void testForward() throws Exception {
+        Counter counter = new Counter();
+        counter.initialize(mailboxFactory.createAsyncMailbox());
+        Hold.req.sendEvent(counter);
+        assertTrue(counter.blocked.await(10, TimeUnit.SECONDS));
+        Mailbox mailbox = mailboxFactory.createAsyncMailbox();
+        new Migrate(mailbox).sendEvent(counter);
+        int i = 0;
+        while (i < 10) {
+            Count.req.sendEvent(counter);
+            i += 1;
+        }
+        counter.gate.countDown();
+        JAFuture future = new JAFuture();
+        assertSame(mailbox, Count.req.send(future, counter));
+        assertEquals(11, counter.count.get());
+    }
+
+    /**
+     * The requests from each sender are processed in the order sent,
+     * though the counter migrates while they are in flight.
+     * Routes are only tracked once an actor has migrated, so the counter migrates first.
+     */
+    public void testOrder() throws Exception {
+        Mailbox shared = mailboxFactory.createMailbox();
+        Counter counter = new Counter();
+        counter.initialize(mailboxFactory.createMailbox());
+        JAFuture future = new JAFuture();
+        new Migrate(shared).send(future, counter);
+        Sender[] senders = new Sender[4];
+        int i = 0;
+        while (i < senders.length) {
+            senders[i] = new Sender();
+            if (i == 0)
+                senders[i].initialize(shared);
+            else if (i == 1)
+                senders[i].initialize(mailboxFactory.createMailbox());
+            else
+                senders[i].initialize(mailboxFactory.createAsyncMailbox());
+            i += 1;
+        }
+        int round = 0;
+        while (round < 10) {
+            CountDownLatch done = new CountDownLatch(senders.length * 500);
+            i = 0;
+            while (i < senders.length) {
+                new Burst(counter, 500, done).sendEvent(senders[i]);
+                i += 1;
+            }
+            Mailbox mailbox = round % 2 == 0 ?
+                    mailboxFactory.createAsyncMailbox() :
+                    mailboxFactory.createMailbox();
+            new Migrate(mailbox).send(future, counter);
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertSame(mailbox, counter.getMailbox());
+            round += 1;
+        }
+        assertEquals(0, counter.disorder.get());
+        assertEquals(senders.length * 5000, counter.count.get());
+    }
+
+    /**
+     * The splitter moves one of the actors sharing a hot mailbox, but only when more than one is busy.
+     */
+    public void testSplit() throws Exception {
+        Mailbox shared = mailboxFactory.createMailbox();
+        Counter a = new Counter();
+        a.initialize(shared);
+        Counter b = new Counter();
+        b.initialize(shared);
+        JAMailboxSplitter splitter = new JAMailboxSplitter(10);
+        splitter.initialize(mailboxFactory.createMailbox());
+        splitter.register(a);
+        splitter.register(b);
+        JAFuture future = new JAFuture();
+        int i = 0;
+        while (i < 20) {
+            Count.req.send(future, a);
+            i += 1;
+        }
+        assertEquals(0, (int) Split.req.send(future, splitter));
+        assertSame(shared, a.getMailbox());
+        i = 0;
+        while (i < 20) {
+            Count.req.send(future, a);
+            Count.req.send(future, b);
+            i += 1;
+        }
+        assertEquals(1, (int) Split.req.send(future, splitter));
+        Count.req.send(future, a);
+        assertNotSame(a.getMailbox(), b.getMailbox());
+        assertSame(shared, b.getMailbox());
+    }
+}
@@ -0,0 +1,29 @@
+package org.agilewiki.jactor.migration;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.Mailbox;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * Migrates the counter and returns the mailbox it is on for the rest of the request.
+ */
+public class Move extends Request<Object, Counter> {
+    private final Mailbox mailbox;
+
+    public Move(Mailbox mailbox) {
+        this.mailbox = mailbox;
+    }
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Counter;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        targetActor.migrate(mailbox);
+        rp.processResponse(targetActor.getMailbox());
+    }
+}
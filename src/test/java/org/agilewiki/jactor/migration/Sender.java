@@ -0,0 +1,10 @@
+package org.agilewiki.jactor.migration;
+
+import org.agilewiki.jactor.lpc.JLPCActor;
+
+/**
+ * Test code.
+ */
+public class Sender extends JLPCActor {
+    int next;
+}
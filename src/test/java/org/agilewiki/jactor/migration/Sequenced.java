@@ -0,0 +1,39 @@
+package org.agilewiki.jactor.migration;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * Checks that the requests from each sender arrive in order.
+ */
+public class Sequenced extends Request<Object, Counter> {
+    private final Object sender;
+    private final int seq;
+    private final CountDownLatch done;
+
+    public Sequenced(Object sender, int seq, CountDownLatch done) {
+        this.sender = sender;
+        this.seq = seq;
+        this.done = done;
+    }
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Counter;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        Counter counter = (Counter) targetActor;
+        Integer prev = counter.last.put(sender, seq);
+        if (prev == null ? seq != 0 : seq != prev + 1)
+            counter.disorder.incrementAndGet();
+        counter.count.incrementAndGet();
+        done.countDown();
+        rp.processResponse(null);
+    }
+}
@@ -0,0 +1,17 @@
+package org.agilewiki.jactor.parallel;
+
+import org.agilewiki.jactor.lpc.JLPCActor;
+
+/**
+ * Test code.
+ */
+public class Branch extends JLPCActor {
+    public final int value;
+    public final boolean fail;
+    public int calls;
+
+    public Branch(int value, boolean fail) {
+        this.value = value;
+        this.fail = fail;
+    }
+}
@@ -0,0 +1,55 @@
+package org.agilewiki.jactor.parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.SimpleRequest;
+import org.agilewiki.jactor.SimpleRequestReceiver;
+import org.agilewiki.jactor.lpc.JLPCActor;
+
+/**
+ * Sums the values of the branches.
+ */
+public class Gatherer extends JLPCActor implements SimpleRequestReceiver {
+    public final List<JAScatterGather> pool = new ArrayList<JAScatterGather>();
+    public Actor[] branches;
+    public int need;
+    public boolean skipFailures;
+
+    @Override
+    public void processRequest(SimpleRequest request, RP rp) throws Exception {
+        JAScatterGather<Integer, Integer> sg;
+        int ps = pool.size();
+        if (ps == 0)
+            sg = new JAScatterGather<Integer, Integer>(pool);
+        else
+            sg = pool.remove(ps - 1);
+        sg.setup(this, need, new Reducer<Integer, Integer>() {
+            @Override
+            public Integer initialResult() {
+                return 0;
+            }
+
+            @Override
+            public Integer reduce(Integer result, Integer response) {
+                return result + response;
+            }
+
+            @Override
+            public Integer reduceException(Integer result, Throwable exception)
+                    throws Exception {
+                if (skipFailures)
+                    return result;
+                return super.reduceException(result, exception);
+            }
+        }, rp);
+        int i = 0;
+        while (i < branches.length) {
+            sg.send(branches[i], Value.req);
+            i += 1;
+        }
+        sg.finished();
+    }
+}
@@ -0,0 +1,80 @@
+package org.agilewiki.jactor.parallel;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor.JAFuture;
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.SimpleRequest;
+
+public class ParallelIteratorTest extends TestCase {
+    private MailboxFactory mailboxFactory;
+    private SumOfSquares sum;
+
+    @Override
+    protected void setUp() throws Exception {
+        mailboxFactory = JAMailboxFactory.newMailboxFactory(4);
+        sum = new SumOfSquares();
+        sum.initialize(mailboxFactory.createMailbox());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mailboxFactory.close();
+    }
+
+    private void branches(boolean async, int count, int failing) throws Exception {
+        sum.branches = new Branch[count];
+        int i = 0;
+        while (i < count) {
+            sum.branches[i] = new Branch(i, i == failing);
+            sum.branches[i].initialize(async ?
+                    mailboxFactory.createAsyncMailbox() : sum.getMailbox());
+            i += 1;
+        }
+    }
+
+    private long expected(int count) {
+        long r = 0;
+        long i = 1;
+        while (i <= count) {
+            r += i * i;
+            i += 1;
+        }
+        return r;
+    }
+
+    public void testAsync() throws Exception {
+        branches(true, 4, -1);
+        sum.count = 10000;
+        sum.limit = 8;
+        assertEquals(expected(10000), SimpleRequest.req.send(new JAFuture(), sum));
+        assertEquals(8, sum.maxInFlight);
+    }
+
+    public void testSync() throws Exception {
+        branches(false, 4, -1);
+        sum.count = 10000;
+        sum.limit = 8;
+        assertEquals(expected(10000), SimpleRequest.req.send(new JAFuture(), sum));
+        assertEquals(1, sum.maxInFlight);
+    }
+
+    public void testEmpty() throws Exception {
+        branches(true, 1, -1);
+        sum.count = 0;
+        sum.limit = 1;
+        assertEquals(0L, SimpleRequest.req.send(new JAFuture(), sum));
+    }
+
+    public void testException() throws Exception {
+        branches(true, 4, 2);
+        sum.count = 1000;
+        sum.limit = 8;
+        try {
+            SimpleRequest.req.send(new JAFuture(), sum);
+            fail();
+        } catch (IllegalStateException ex) {
+        }
+        assertTrue(sum.branches[2].calls < 1000 / 4);
+    }
+}
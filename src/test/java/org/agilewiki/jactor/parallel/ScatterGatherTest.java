@@ -0,0 +1,113 @@
+package org.agilewiki.jactor.parallel;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor.JAFuture;
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.Mailbox;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.SimpleRequest;
+
+public class ScatterGatherTest extends TestCase {
+    private MailboxFactory mailboxFactory;
+    private JAFuture future;
+    private Gatherer gatherer;
+
+    @Override
+    protected void setUp() throws Exception {
+        mailboxFactory = JAMailboxFactory.newMailboxFactory(4);
+        future = new JAFuture();
+        gatherer = new Gatherer();
+        gatherer.initialize(mailboxFactory.createMailbox());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mailboxFactory.close();
+    }
+
+    private Branch[] branches(boolean async, boolean... fails) throws Exception {
+        Branch[] branches = new Branch[fails.length];
+        int i = 0;
+        while (i < fails.length) {
+            branches[i] = new Branch(i + 1, fails[i]);
+            Mailbox mailbox = async ? mailboxFactory.createAsyncMailbox() :
+                    gatherer.getMailbox();
+            branches[i].initialize(mailbox);
+            i += 1;
+        }
+        gatherer.branches = branches;
+        return branches;
+    }
+
+    private Object gather() throws Exception {
+        return SimpleRequest.req.send(future, gatherer);
+    }
+
+    public void testAll() throws Exception {
+        branches(true, false, false, false, false);
+        assertEquals(10, gather());
+        assertEquals(10, gather());
+        assertEquals(1, gatherer.pool.size());
+    }
+
+    public void testFirstN() throws Exception {
+        Branch[] branches = branches(false, false, false, false, false);
+        gatherer.need = 2;
+        assertEquals(3, gather());
+        assertEquals(0, branches[2].calls);
+        assertEquals(1, gatherer.pool.size());
+    }
+
+    public void testAnySuccess() throws Exception {
+        branches(true, true, false, true);
+        gatherer.need = 1;
+        gatherer.skipFailures = true;
+        assertEquals(2, gather());
+        assertEquals(2, gather());
+    }
+
+    public void testAllFail() throws Exception {
+        branches(true, true, true);
+        gatherer.need = 1;
+        gatherer.skipFailures = true;
+        try {
+            gather();
+            fail();
+        } catch (IllegalStateException ex) {
+        }
+    }
+
+    public void testFailFast() throws Exception {
+        branches(true, false, true, false);
+        try {
+            gather();
+            fail();
+        } catch (IllegalStateException ex) {
+        }
+        branches(false, false, true, false);
+        try {
+            gather();
+            fail();
+        } catch (IllegalStateException ex) {
+        }
+    }
+
+    public void testSkip() throws Exception {
+        branches(false, false, true, false);
+        gatherer.skipFailures = true;
+        assertEquals(4, gather());
+    }
+
+    public void testTooFewBranches() throws Exception {
+        branches(true, false, false);
+        gatherer.need = 3;
+        try {
+            gather();
+            fail();
+        } catch (IllegalStateException ex) {
+        }
+        gatherer.need = 2;
+        assertEquals(3, gather());
+        assertEquals(1, gatherer.pool.size());
+    }
+}
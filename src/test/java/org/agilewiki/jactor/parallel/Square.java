@@ -0,0 +1,31 @@
+package org.agilewiki.jactor.parallel;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * Returns the square of a number, or throws when the branch fails.
+ */
+public class Square extends Request<Integer, Branch> {
+    public final int n;
+
+    public Square(int n) {
+        this.n = n;
+    }
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Branch;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        Branch branch = (Branch) targetActor;
+        branch.calls += 1;
+        if (branch.fail)
+            throw new IllegalStateException("branch failed");
+        rp.processResponse(n * n);
+    }
+}
@@ -0,0 +1,61 @@
+package org.agilewiki.jactor.parallel;
+
+import java.util.Iterator;
+
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.SimpleRequest;
+import org.agilewiki.jactor.SimpleRequestReceiver;
+import org.agilewiki.jactor.lpc.JLPCActor;
+
+/**
+ * Sums the squares of 1 through count, keeping at most limit requests in flight.
+ */
+public class SumOfSquares extends JLPCActor implements SimpleRequestReceiver {
+    public Branch[] branches;
+    public int count;
+    public int limit;
+    public int maxInFlight;
+
+    @Override
+    public void processRequest(SimpleRequest request, RP rp) throws Exception {
+        Iterator<Integer> items = new Iterator<Integer>() {
+            int i;
+
+            @Override
+            public boolean hasNext() {
+                return i < count;
+            }
+
+            @Override
+            public Integer next() {
+                i += 1;
+                return i;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        final JAParallelIterator<Integer, Integer, Long> it =
+                new JAParallelIterator<Integer, Integer, Long>() {
+                    @Override
+                    protected void process(Integer item, RP<Integer> rp) throws Exception {
+                        if (getInFlight() > maxInFlight)
+                            maxInFlight = getInFlight();
+                        send(branches[item % branches.length], new Square(item), rp);
+                    }
+                };
+        it.iterate(this, items, limit, new Reducer<Integer, Long>() {
+            @Override
+            public Long initialResult() {
+                return 0L;
+            }
+
+            @Override
+            public Long reduce(Long result, Integer response) {
+                return result + response;
+            }
+        }, rp);
+    }
+}
@@ -0,0 +1,27 @@
+package org.agilewiki.jactor.parallel;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * Returns the value of a branch, or throws when the branch fails.
+ */
+public class Value extends Request<Integer, Branch> {
+    public final static Value req = new Value();
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Branch;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        Branch branch = (Branch) targetActor;
+        branch.calls += 1;
+        if (branch.fail)
+            throw new IllegalStateException("branch failed");
+        rp.processResponse(branch.value);
+    }
+}
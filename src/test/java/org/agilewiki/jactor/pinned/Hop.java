@@ -0,0 +1,27 @@
+package org.agilewiki.jactor.pinned;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * Passes a count along a ring of actors, decrementing it at each hop.
+ */
+public class Hop extends Request<Object, Node> {
+    public final int count;
+
+    public Hop(int count) {
+        this.count = count;
+    }
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Node;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        ((Node) targetActor).hop(count, rp);
+    }
+}
@@ -0,0 +1,28 @@
+package org.agilewiki.jactor.pinned;
+
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+
+/**
+ * Test code.
+ */
+public class Node extends JLPCActor {
+    public Node next;
+    public Thread thread;
+    public boolean pinned = true;
+    public int hops;
+
+    public void hop(int count, RP rp) throws Exception {
+        Thread t = Thread.currentThread();
+        if (thread == null)
+            thread = t;
+        else if (thread != t)
+            pinned = false;
+        hops += 1;
+        if (count == 0) {
+            rp.processResponse(t);
+            return;
+        }
+        new Hop(count - 1).send(this, next, rp);
+    }
+}
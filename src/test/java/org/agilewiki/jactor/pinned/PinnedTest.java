@@ -0,0 +1,83 @@
+package org.agilewiki.jactor.pinned;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor.JAFuture;
+
+public class PinnedTest extends TestCase {
+    private JAPinnedMailboxFactory mailboxFactory;
+
+    @Override
+    protected void setUp() throws Exception {
+        mailboxFactory = JAPinnedMailboxFactory.newPinnedMailboxFactory(3);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mailboxFactory.close();
+    }
+
+    private Node[] ring(int size, boolean async) throws Exception {
+        Node[] nodes = new Node[size];
+        int i = 0;
+        while (i < size) {
+            nodes[i] = new Node();
+            nodes[i].initialize(async ?
+                    mailboxFactory.createAsyncMailbox() :
+                    mailboxFactory.createMailbox());
+            i += 1;
+        }
+        i = 0;
+        while (i < size) {
+            nodes[i].next = nodes[(i + 1) % size];
+            i += 1;
+        }
+        return nodes;
+    }
+
+    /**
+     * Each actor is always run on the thread of its mailbox's event loop.
+     */
+    public void testPinned() throws Exception {
+        Node[] nodes = ring(9, true);
+        JAFuture future = new JAFuture();
+        int round = 0;
+        while (round < 10) {
+            new Hop(899).send(future, nodes[round % 9]);
+            round += 1;
+        }
+        int i = 0;
+        while (i < 9) {
+            assertTrue(nodes[i].pinned);
+            assertEquals(1000, nodes[i].hops);
+            assertSame(nodes[i].thread, nodes[(i + 3) % 9].thread);
+            assertNotSame(nodes[i].thread, nodes[(i + 1) % 9].thread);
+            i += 1;
+        }
+    }
+
+    /**
+     * Requests between mailboxes on the same event loop are processed
+     * synchronously, unless the target mailbox is asynchronous.
+     */
+    public void testSameLoop() throws Exception {
+        Node a = new Node();
+        a.initialize(mailboxFactory.createMailbox(1));
+        Node b = new Node();
+        b.initialize(mailboxFactory.createMailbox(1));
+        a.next = b;
+        b.next = a;
+        JAFuture future = new JAFuture();
+        Object thread = new Hop(101).send(future, a);
+        assertSame(a.thread, thread);
+        assertSame(a.thread, b.thread);
+        assertEquals(51, a.hops);
+        assertEquals(51, b.hops);
+        Node c = new Node();
+        c.initialize(mailboxFactory.createAsyncMailbox(1));
+        c.next = a;
+        b.next = c;
+        new Hop(100).send(future, c);
+        assertSame(a.thread, c.thread);
+        assertTrue(c.pinned);
+    }
+}
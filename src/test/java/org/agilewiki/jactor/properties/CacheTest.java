@@ -0,0 +1,70 @@
+package org.agilewiki.jactor.properties;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.MailboxFactory;
+
+/**
+ * Test code.
+ */
+public class CacheTest extends TestCase {
+    public void test() throws Exception {
+        MailboxFactory mailboxFactory = JAMailboxFactory.newMailboxFactory(1);
+        try {
+            JAProperties p1 = new JAProperties();
+            p1.initialize(mailboxFactory.createMailbox());
+            JAProperties p2 = new JAProperties();
+            p2.initialize(p1.getMailbox(), p1);
+            JAProperties p3 = new JAProperties();
+            p3.initialize(p1.getMailbox(), p2);
+            JAProperties.setProperty(p1, "a", "foo");
+            assertEquals("foo", JAProperties.getProperty(p3, "a"));
+            assertEquals("foo", JAProperties.getProperty(p3, "a"));
+            assertNull(JAProperties.getProperty(p3, "b"));
+
+            JAProperties.setProperty(p1, "a", "bar");
+            assertEquals("bar", JAProperties.getProperty(p3, "a"));
+            JAProperties.setProperty(p1, "b", "baz");
+            assertEquals("baz", JAProperties.getProperty(p3, "b"));
+            JAProperties.setProperty(p2, "a", "qux");
+            assertEquals("qux", JAProperties.getProperty(p3, "a"));
+            assertEquals("bar", JAProperties.getProperty(p1, "a"));
+            JAProperties.setProperty(p3, "a", "quux");
+            assertEquals("quux", JAProperties.getProperty(p3, "a"));
+            assertEquals("qux", JAProperties.getProperty(p2, "a"));
+        } finally {
+            mailboxFactory.close();
+        }
+    }
+
+    public void testTrees() throws Exception {
+        MailboxFactory mailboxFactory = JAMailboxFactory.newMailboxFactory(1);
+        try {
+            JAProperties p1 = new JAProperties();
+            p1.initialize(mailboxFactory.createMailbox());
+            JAProperties p2 = new JAProperties();
+            p2.initialize(p1.getMailbox(), p1);
+            JAProperties q1 = new JAProperties();
+            q1.initialize(p1.getMailbox());
+            JAProperties q2 = new JAProperties();
+            q2.initialize(p1.getMailbox(), q1);
+            JAProperties.setProperty(p1, "a", "foo");
+            JAProperties.setProperty(q1, "a", "bar");
+            assertEquals("foo", JAProperties.getProperty(p2, "a"));
+            assertEquals("bar", JAProperties.getProperty(q2, "a"));
+            assertNull(JAProperties.getProperty(p2, "b"));
+
+            JAProperties.setProperty(q1, "a", "baz");
+            assertEquals("foo", JAProperties.getProperty(p2, "a"));
+            assertEquals("baz", JAProperties.getProperty(q2, "a"));
+            JAProperties.setProperty(p2, "b", "qux");
+            assertEquals("qux", JAProperties.getProperty(p2, "b"));
+            assertNull(JAProperties.getProperty(q2, "b"));
+            JAProperties.setProperty(p2, "a", "quux");
+            assertEquals("quux", JAProperties.getProperty(p2, "a"));
+            assertEquals("foo", JAProperties.getProperty(p1, "a"));
+        } finally {
+            mailboxFactory.close();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.agilewiki.jactor.pubsub.publish;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor.JAFuture;
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.Mailbox;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.pubsub.publisher.JAPublisher;
+import org.agilewiki.jactor.pubsub.publisher.Publish;
+import org.agilewiki.jactor.pubsub.publisher.PublishEvent;
+
+import java.util.ArrayList;
+
+/**
+ * Test code.
+ */
+public class BatchTest extends TestCase {
+    public void test() throws Exception {
+        MailboxFactory mailboxFactory = JAMailboxFactory.newMailboxFactory(3);
+        try {
+            JAPublisher p = new JAPublisher();
+            p.initialize(mailboxFactory.createMailbox());
+            ArrayList<Other> others = new ArrayList<Other>();
+            int m = 0;
+            while (m < 3) {
+                Mailbox shared = mailboxFactory.createAsyncMailbox();
+                int i = 0;
+                while (i < 4) {
+                    others.add(subscribe(p, shared, "shared" + m + "." + i));
+                    i += 1;
+                }
+                m += 1;
+            }
+            others.add(subscribe(p, p.getMailbox(), "local0"));
+            others.add(subscribe(p, p.getMailbox(), "local1"));
+            others.add(subscribe(p, mailboxFactory.createAsyncMailbox(), "alone"));
+            JAFuture future = new JAFuture();
+            assertEquals(15, (int) new Publish(new OtherReq()).send(future, p));
+            int i = 0;
+            while (i < 10) {
+                new PublishEvent(new OtherReq()).sendEvent(p);
+                i += 1;
+            }
+            assertEquals(15, (int) new PublishEvent(new OtherReq()).send(future, p));
+            assertEquals(15, (int) new Publish(new OtherReq()).send(future, p));
+            i = 0;
+            while (i < others.size()) {
+                assertEquals(others.get(i).getActorName(), 13, others.get(i).count);
+                i += 1;
+            }
+        } finally {
+            mailboxFactory.close();
+        }
+    }
+
+    private Other subscribe(JAPublisher p, Mailbox mailbox, String name) throws Exception {
+        Other other = new Other();
+        other.initialize(mailbox);
+        other.setActorName(name);
+        p.subscribe(other);
+        return other;
+    }
+}
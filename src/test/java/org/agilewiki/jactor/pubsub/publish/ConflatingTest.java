@@ -0,0 +1,200 @@
+package org.agilewiki.jactor.pubsub.publish;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.JAFuture;
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+import org.agilewiki.jactor.pubsub.publisher.Conflatable;
+import org.agilewiki.jactor.pubsub.publisher.JAConflatingPublisher;
+import org.agilewiki.jactor.pubsub.publisher.Publish;
+import org.agilewiki.jactor.pubsub.subscriber.JASubscriber;
+
+import java.util.ArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test code.
+ */
+public class ConflatingTest extends TestCase {
+    public void test() throws Exception {
+        MailboxFactory mailboxFactory = JAMailboxFactory.newMailboxFactory(1);
+        try {
+            JAConflatingPublisher p = new JAConflatingPublisher();
+            p.initialize(mailboxFactory.createMailbox());
+            Slow slow = new Slow();
+            slow.initialize(p.getMailbox());
+            slow.setActorName("slow");
+            p.subscribe(slow);
+            JAFuture future = new JAFuture();
+            int i = 1;
+            while (i <= 100) {
+                assertEquals(1, (int) new Publish(new Price("a", i)).send(future, p));
+                if (i <= 50)
+                    new Publish(new Price("b", i)).send(future, p);
+                i += 1;
+            }
+            assertEquals(147, p.getConflatedCount());
+            assertEquals("a1", slow.received.get(0));
+            assertEquals(1, slow.received.size());
+            release(future, slow);
+            release(future, slow);
+            release(future, slow);
+            assertEquals(3, slow.received.size());
+            assertEquals("b50", slow.received.get(1));
+            assertEquals("a100", slow.received.get(2));
+            new Publish(new Price("a", 101)).send(future, p);
+            release(future, slow);
+            assertEquals(4, slow.received.size());
+            assertEquals("a101", slow.received.get(3));
+        } finally {
+            mailboxFactory.close();
+        }
+    }
+
+    /**
+     * A subscriber on another mailbox which fails still receives later values.
+     */
+    public void testFailure() throws Exception {
+        MailboxFactory mailboxFactory = JAMailboxFactory.newMailboxFactory(2);
+        try {
+            JAConflatingPublisher p = new JAConflatingPublisher();
+            p.initialize(mailboxFactory.createMailbox());
+            Flaky flaky = new Flaky();
+            flaky.initialize(mailboxFactory.createAsyncMailbox());
+            flaky.setActorName("flaky");
+            p.subscribe(flaky);
+            JAFuture future = new JAFuture();
+            new Publish(new Tick("a", 1)).send(future, p);
+            assertEquals("a1", flaky.received.poll(10, TimeUnit.SECONDS));
+            new Publish(new Tick("a", 2)).send(future, p);
+            assertEquals("a2", flaky.received.poll(10, TimeUnit.SECONDS));
+            new Publish(new Tick("a", 3)).send(future, p);
+            assertEquals("a3", flaky.received.poll(10, TimeUnit.SECONDS));
+        } finally {
+            mailboxFactory.close();
+        }
+    }
+
+    /**
+     * Releases the request held by a Slow actor, once one has been parked.
+     * The response to a held request is passed back asynchronously,
+     * so the next request may not yet have been delivered.
+     */
+    static void release(JAFuture future, Slow slow) throws Exception {
+        assertTrue(slow.parked.tryAcquire(10, TimeUnit.SECONDS));
+        new Release().send(future, slow);
+    }
+}
+
+/**
+ * Holds each request until released, unless hold is false.
+ * A permit is added to parked each time a request is held.
+ */
+class Slow extends JASubscriber {
+    final ArrayList<String> received = new ArrayList<String>();
+    final Semaphore parked = new Semaphore(0);
+    boolean hold = true;
+    RP held;
+}
+
+/**
+ * Test code.
+ */
+class Price extends Request<Object, Slow> implements Conflatable {
+    final String key;
+    final int value;
+
+    Price(String key, int value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    @Override
+    public Object getConflationKey() {
+        return key;
+    }
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Slow;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        Slow slow = (Slow) targetActor;
+        slow.received.add(key + value);
+        if (slow.hold) {
+            slow.held = rp;
+            slow.parked.release();
+        } else
+            rp.processResponse(null);
+    }
+}
+
+/**
+ * Responds to the request held by the target.
+ */
+class Release extends Request<Object, Slow> {
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Slow;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        Slow slow = (Slow) targetActor;
+        RP held = slow.held;
+        slow.held = null;
+        held.processResponse(null);
+        rp.processResponse(null);
+    }
+}
+
+/**
+ * Fails on the first request it receives.
+ */
+class Flaky extends JASubscriber {
+    final LinkedBlockingQueue<String> received = new LinkedBlockingQueue<String>();
+    boolean failed;
+}
+
+/**
+ * Test code.
+ */
+class Tick extends Request<Object, Flaky> implements Conflatable {
+    final String key;
+    final int value;
+
+    Tick(String key, int value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    @Override
+    public Object getConflationKey() {
+        return key;
+    }
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Flaky;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        Flaky flaky = (Flaky) targetActor;
+        flaky.received.add(key + value);
+        if (!flaky.failed) {
+            flaky.failed = true;
+            throw new IllegalStateException("flaky");
+        }
+        rp.processResponse(null);
+    }
+}
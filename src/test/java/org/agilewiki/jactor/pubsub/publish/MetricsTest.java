@@ -0,0 +1,172 @@
+package org.agilewiki.jactor.pubsub.publish;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.JAFuture;
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+import org.agilewiki.jactor.pubsub.publisher.DeliveryMetrics;
+import org.agilewiki.jactor.pubsub.publisher.GetSubscriber;
+import org.agilewiki.jactor.pubsub.publisher.JAPartitionedPublisher;
+import org.agilewiki.jactor.pubsub.publisher.JAPublisher;
+import org.agilewiki.jactor.pubsub.publisher.Publish;
+import org.agilewiki.jactor.pubsub.publisher.SlowSubscriberThreshold;
+import org.agilewiki.jactor.pubsub.publisher.Subscribe;
+import org.agilewiki.jactor.pubsub.subscriber.Subscriber;
+
+import java.util.List;
+
+/**
+ * Test code.
+ */
+public class MetricsTest extends TestCase {
+    /**
+     * A subscriber which does not respond in time is dropped by its timeout,
+     * which completes the publish waiting on it without another publish.
+     */
+    public void test() throws Exception {
+        MailboxFactory mailboxFactory = JAMailboxFactory.newMailboxFactory(1);
+        try {
+            JAPublisher p = new JAPublisher();
+            p.initialize(mailboxFactory.createMailbox());
+            p.setSlowSubscriberThreshold(50, true);
+            Slow fast = new Slow();
+            fast.hold = false;
+            fast.initialize(p.getMailbox());
+            fast.setActorName("fast");
+            p.subscribe(fast);
+            Slow stuck = new Slow();
+            stuck.initialize(p.getMailbox());
+            stuck.setActorName("stuck");
+            p.subscribe(stuck);
+            JAFuture future = new JAFuture();
+
+            assertEquals(2, (int) new Publish(new Price("a", 1)).send(future, p));
+            Monitor monitor = new Monitor(stuck).send(future, p);
+            assertEquals(1, monitor.dropped);
+            assertNull(monitor.metrics);
+            assertNull(new GetSubscriber("stuck").send(future, p));
+            assertEquals(1, stuck.received.size());
+            DeliveryMetrics metrics = new Monitor(fast).send(future, p).metrics;
+            assertEquals(1, metrics.getDelivered());
+            assertEquals(0, metrics.getInFlight());
+
+            assertEquals(1, (int) new Publish(new Price("a", 2)).send(future, p));
+            assertEquals(2, fast.received.size());
+            monitor = new Monitor(fast).send(future, p);
+            assertEquals(2, monitor.metrics.getDelivered());
+            assertTrue(monitor.slow.isEmpty());
+        } finally {
+            mailboxFactory.close();
+        }
+    }
+
+    /**
+     * Slow subscribers are reported, but kept, when they are not to be unsubscribed.
+     */
+    public void testSlow() throws Exception {
+        MailboxFactory mailboxFactory = JAMailboxFactory.newMailboxFactory(1);
+        try {
+            JAPublisher p = new JAPublisher();
+            p.initialize(mailboxFactory.createMailbox());
+            p.setSlowSubscriberThreshold(50, false);
+            Slow fast = new Slow();
+            fast.hold = false;
+            fast.initialize(p.getMailbox());
+            fast.setActorName("fast");
+            p.subscribe(fast);
+            Slow stuck = new Slow();
+            stuck.initialize(p.getMailbox());
+            stuck.setActorName("stuck");
+            p.subscribe(stuck);
+            JAFuture future = new JAFuture();
+
+            new Publish(new Price("a", 1)).sendEvent(p);
+            DeliveryMetrics metrics = new Monitor(fast).send(future, p).metrics;
+            assertEquals(1, metrics.getDelivered());
+            assertEquals(0, metrics.getInFlight());
+            metrics = new Monitor(stuck).send(future, p).metrics;
+            assertEquals(0, metrics.getDelivered());
+            assertEquals(1, metrics.getInFlight());
+
+            long deadline = System.currentTimeMillis() + 10000;
+            Monitor monitor = new Monitor(null).send(future, p);
+            while (monitor.slow.isEmpty()) {
+                assertTrue(System.currentTimeMillis() < deadline);
+                Thread.yield();
+                monitor = new Monitor(null).send(future, p);
+            }
+            List<Subscriber> slow = monitor.slow;
+            assertEquals(1, slow.size());
+            assertSame(stuck, slow.get(0));
+            assertSame(stuck, new GetSubscriber("stuck").send(future, p));
+            assertEquals(0, monitor.dropped);
+        } finally {
+            mailboxFactory.close();
+        }
+    }
+
+    /**
+     * Once split, the threshold is passed down to the leaves,
+     * and a subscriber dropped by a leaf is unsubscribed from the root.
+     */
+    public void testPartitioned() throws Exception {
+        MailboxFactory mailboxFactory = JAMailboxFactory.newMailboxFactory(4);
+        try {
+            JAPartitionedPublisher p = new JAPartitionedPublisher(2, 1);
+            p.initialize(mailboxFactory.createMailbox());
+            JAFuture future = new JAFuture();
+            Slow fast = new Slow();
+            fast.hold = false;
+            fast.initialize(mailboxFactory.createMailbox());
+            fast.setActorName("fast");
+            new Subscribe(fast).send(future, p);
+            Slow stuck = new Slow();
+            stuck.initialize(mailboxFactory.createMailbox());
+            stuck.setActorName("stuck");
+            new Subscribe(stuck).send(future, p);
+            assertTrue(p.isSplit());
+            new SlowSubscriberThreshold(50, true).send(future, p);
+
+            assertEquals(2, (int) new Publish(new Price("a", 1)).send(future, p));
+            assertNull(new GetSubscriber("stuck").send(future, p));
+            assertSame(fast, new GetSubscriber("fast").send(future, p));
+            assertEquals(1, (int) new Publish(new Price("a", 2)).send(future, p));
+            assertEquals(2, fast.received.size());
+        } finally {
+            mailboxFactory.close();
+        }
+    }
+}
+
+/**
+ * Reads the delivery metrics of a publisher on the publisher's mailbox.
+ */
+class Monitor extends Request<Monitor, JAPublisher> {
+    final Subscriber subscriber;
+    DeliveryMetrics metrics;
+    List<Subscriber> slow;
+    long dropped;
+
+    Monitor(Subscriber subscriber) {
+        this.subscriber = subscriber;
+    }
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof JAPublisher;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        JAPublisher publisher = (JAPublisher) targetActor;
+        if (subscriber != null)
+            metrics = publisher.getDeliveryMetrics(subscriber);
+        slow = publisher.getSlowSubscribers();
+        dropped = publisher.getDroppedCount();
+        rp.processResponse(this);
+    }
+}
@@ -0,0 +1,56 @@
+package org.agilewiki.jactor.pubsub.publish;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor.JAFuture;
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.pubsub.publisher.GetSubscriber;
+import org.agilewiki.jactor.pubsub.publisher.JAPartitionedPublisher;
+import org.agilewiki.jactor.pubsub.publisher.Publish;
+import org.agilewiki.jactor.pubsub.publisher.PublishEvent;
+import org.agilewiki.jactor.pubsub.publisher.Subscribe;
+import org.agilewiki.jactor.pubsub.publisher.Unsubscribe;
+
+/**
+ * Test code.
+ */
+public class PartitionedTest extends TestCase {
+    public void test() throws Exception {
+        MailboxFactory mailboxFactory = JAMailboxFactory.newMailboxFactory(4);
+        try {
+            JAPartitionedPublisher p = new JAPartitionedPublisher(4, 8);
+            p.initialize(mailboxFactory.createMailbox());
+            JAFuture future = new JAFuture();
+            Other[] others = new Other[200];
+            int i = 0;
+            while (i < 200) {
+                others[i] = new Other();
+                others[i].initialize(mailboxFactory.createMailbox());
+                others[i].setActorName("other" + i);
+                assertTrue(new Subscribe(others[i]).send(future, p));
+                i += 1;
+            }
+            assertFalse(new Subscribe(others[7]).send(future, p));
+            assertTrue(p.isSplit());
+            assertEquals(200, (int) new Publish(new OtherReq()).send(future, p));
+            assertEquals(200, p.getSnapshot().length);
+            assertSame(others[100], new GetSubscriber("other100").send(future, p));
+            i = 0;
+            while (i < 50) {
+                assertTrue(new Unsubscribe(others[i]).send(future, p));
+                i += 1;
+            }
+            assertFalse(new Unsubscribe(others[0]).send(future, p));
+            assertNull(new GetSubscriber("other0").send(future, p));
+            assertEquals(150, (int) new PublishEvent(new OtherReq()).send(future, p));
+            assertEquals(150, (int) new Publish(new OtherReq()).send(future, p));
+            i = 0;
+            while (i < 200) {
+                assertEquals(i < 50 ? 1 : 3, others[i].count);
+                i += 1;
+            }
+        } finally {
+            mailboxFactory.close();
+        }
+    }
+}
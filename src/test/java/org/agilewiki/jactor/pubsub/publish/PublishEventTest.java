@@ -0,0 +1,50 @@
+package org.agilewiki.jactor.pubsub.publish;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor.JAFuture;
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.pubsub.publisher.JAPublisher;
+import org.agilewiki.jactor.pubsub.publisher.Publish;
+import org.agilewiki.jactor.pubsub.publisher.PublishEvent;
+
+/**
+ * Test code.
+ */
+public class PublishEventTest extends TestCase {
+    public void test() throws Exception {
+        MailboxFactory mailboxFactory = JAMailboxFactory.newMailboxFactory(2);
+        try {
+            JAPublisher p = new JAPublisher();
+            p.initialize(mailboxFactory.createMailbox());
+            Other[] others = new Other[5];
+            int i = 0;
+            while (i < 5) {
+                others[i] = new Other();
+                others[i].initialize(mailboxFactory.createAsyncMailbox());
+                others[i].setActorName("other" + i);
+                p.subscribe(others[i]);
+                i += 1;
+            }
+            Sub sub = new Sub();
+            sub.initialize(mailboxFactory.createMailbox());
+            sub.setActorName("sub");
+            p.subscribe(sub);
+            JAFuture future = new JAFuture();
+            assertEquals(5, (int) new PublishEvent(new OtherReq()).send(future, p));
+            i = 0;
+            while (i < 9) {
+                new PublishEvent(new OtherReq()).sendEvent(p);
+                i += 1;
+            }
+            assertEquals(5, (int) new Publish(new OtherReq()).send(future, p));
+            i = 0;
+            while (i < 5) {
+                assertEquals(11, others[i].count);
+                i += 1;
+            }
+        } finally {
+            mailboxFactory.close();
+        }
+    }
+}
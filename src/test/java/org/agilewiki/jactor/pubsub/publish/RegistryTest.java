@@ -0,0 +1,63 @@
+package org.agilewiki.jactor.pubsub.publish;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor.JAFuture;
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.Mailbox;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.pubsub.publisher.JAPublisher;
+import org.agilewiki.jactor.pubsub.publisher.Publish;
+
+/**
+ * Test code.
+ */
+public class RegistryTest extends TestCase {
+    public void testChurn() throws Exception {
+        MailboxFactory mailboxFactory = JAMailboxFactory.newMailboxFactory(1);
+        try {
+            Mailbox mailbox = mailboxFactory.createMailbox();
+            JAPublisher p = new JAPublisher();
+            p.initialize(mailbox);
+            int count = 100000;
+            Sub[] subs = new Sub[count];
+            int i = 0;
+            while (i < count) {
+                Sub s = new Sub();
+                s.initialize(mailbox);
+                s.setActorName("s" + i);
+                subs[i] = s;
+                assertTrue(p.subscribe(s));
+                i += 1;
+            }
+            Sub dup = new Sub();
+            dup.initialize(mailbox);
+            dup.setActorName("s0");
+            assertFalse(p.subscribe(dup));
+            assertFalse(p.unsubscribe(dup));
+            i = 0;
+            while (i < count) {
+                assertTrue(p.unsubscribe(subs[i]));
+                i += 2;
+            }
+            assertFalse(p.unsubscribe(subs[0]));
+            i = 0;
+            while (i < count) {
+                if (i % 2 == 0)
+                    assertNull(p.getSubscriber("s" + i));
+                else
+                    assertSame(subs[i], p.getSubscriber("s" + i));
+                i += 1;
+            }
+            JAFuture future = new JAFuture();
+            assertEquals(count / 2, (int) new Publish(new Req()).send(future, p));
+            i = 1;
+            while (i < count) {
+                assertTrue(p.unsubscribe(subs[i]));
+                i += 2;
+            }
+            assertEquals(0, (int) new Publish(new Req()).send(future, p));
+        } finally {
+            mailboxFactory.close();
+        }
+    }
+}
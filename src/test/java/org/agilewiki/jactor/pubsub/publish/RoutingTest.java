@@ -0,0 +1,156 @@
+package org.agilewiki.jactor.pubsub.publish;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.JAFuture;
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.Mailbox;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+import org.agilewiki.jactor.pubsub.publisher.JAPublisher;
+import org.agilewiki.jactor.pubsub.publisher.Publish;
+import org.agilewiki.jactor.pubsub.subscriber.JASubscriber;
+import org.agilewiki.jactor.pubsub.subscriber.Subscriber;
+
+/**
+ * Test code.
+ */
+public class RoutingTest extends TestCase {
+    public void testRoutes() throws Exception {
+        MailboxFactory mailboxFactory = JAMailboxFactory.newMailboxFactory(1);
+        try {
+            Mailbox mailbox = mailboxFactory.createMailbox();
+            JAPublisher p = new JAPublisher();
+            p.initialize(mailbox);
+            Sub[] subs = new Sub[10];
+            Other[] others = new Other[5];
+            int i = 0;
+            while (i < 10) {
+                subs[i] = new Sub();
+                subs[i].initialize(mailbox);
+                subs[i].setActorName("sub" + i);
+                p.subscribe(subs[i]);
+                if (i < 5) {
+                    others[i] = new Other();
+                    others[i].initialize(mailbox);
+                    others[i].setActorName("other" + i);
+                    p.subscribe(others[i]);
+                }
+                i += 1;
+            }
+            JAFuture future = new JAFuture();
+            assertEquals(10, (int) new Publish(new Req()).send(future, p));
+            assertEquals(5, (int) new Publish(new OtherReq()).send(future, p));
+            assertEquals(1, others[0].count);
+
+            Sub late = new Sub();
+            late.initialize(mailbox);
+            late.setActorName("late");
+            p.subscribe(late);
+            assertEquals(11, (int) new Publish(new Req()).send(future, p));
+            assertEquals(5, (int) new Publish(new OtherReq()).send(future, p));
+
+            p.unsubscribe(subs[0]);
+            p.unsubscribe(others[4]);
+            p.unsubscribe(late);
+            assertEquals(9, (int) new Publish(new Req()).send(future, p));
+            assertEquals(4, (int) new Publish(new OtherReq()).send(future, p));
+            assertEquals(3, others[0].count);
+            assertEquals(2, others[4].count);
+        } finally {
+            mailboxFactory.close();
+        }
+    }
+
+    /**
+     * Subscribers which unsubscribe while a request is being published
+     * do not cause other subscribers to be skipped.
+     */
+    public void testUnsubscribeDuringPublish() throws Exception {
+        MailboxFactory mailboxFactory = JAMailboxFactory.newMailboxFactory(1);
+        try {
+            Mailbox mailbox = mailboxFactory.createMailbox();
+            JAPublisher p = new JAPublisher();
+            p.initialize(mailbox);
+            Quitter[] quitters = new Quitter[10];
+            int i = 0;
+            while (i < 10) {
+                quitters[i] = new Quitter(p);
+                quitters[i].initialize(mailbox);
+                quitters[i].setActorName("q" + i);
+                p.subscribe(quitters[i]);
+                i += 1;
+            }
+            Subscriber[] snapshot = p.getSnapshot();
+            JAFuture future = new JAFuture();
+            assertEquals(10, (int) new Publish(new Quit()).send(future, p));
+            i = 0;
+            while (i < 10) {
+                assertEquals(1, quitters[i].count);
+                i += 1;
+            }
+            assertEquals(0, (int) new Publish(new Quit()).send(future, p));
+            assertEquals(10, snapshot.length);
+            assertEquals(0, p.getSnapshot().length);
+        } finally {
+            mailboxFactory.close();
+        }
+    }
+}
+
+/**
+ * Test code.
+ */
+class Quitter extends JASubscriber {
+    final JAPublisher publisher;
+    int count;
+
+    Quitter(JAPublisher publisher) {
+        this.publisher = publisher;
+    }
+}
+
+/**
+ * Unsubscribes the target from its publisher.
+ */
+class Quit extends Request<Object, Quitter> {
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Quitter;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        Quitter quitter = (Quitter) targetActor;
+        quitter.count += 1;
+        quitter.publisher.unsubscribe(quitter);
+        rp.processResponse(null);
+    }
+}
+
+/**
+ * Test code.
+ */
+class Other extends JASubscriber {
+    int count;
+}
+
+/**
+ * Test code.
+ */
+class OtherReq extends Request<Object, Other> {
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Other;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        ((Other) targetActor).count += 1;
+        rp.processResponse(null);
+    }
+}
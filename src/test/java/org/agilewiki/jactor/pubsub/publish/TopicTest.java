@@ -0,0 +1,80 @@
+package org.agilewiki.jactor.pubsub.publish;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor.JAFuture;
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.pubsub.publisher.JATopicPublisher;
+import org.agilewiki.jactor.pubsub.publisher.PublishTopic;
+import org.agilewiki.jactor.pubsub.publisher.PublishTopicEvent;
+import org.agilewiki.jactor.pubsub.publisher.SubscribeTopic;
+import org.agilewiki.jactor.pubsub.publisher.UnsubscribeTopic;
+
+/**
+ * Test code.
+ */
+public class TopicTest extends TestCase {
+    public void test() throws Exception {
+        MailboxFactory mailboxFactory = JAMailboxFactory.newMailboxFactory(2);
+        try {
+            JATopicPublisher p = new JATopicPublisher();
+            p.initialize(mailboxFactory.createMailbox());
+            JAFuture future = new JAFuture();
+            Other fx = other(mailboxFactory, "fx");
+            Other eurusd = other(mailboxFactory, "eurusd");
+            Other prices = other(mailboxFactory, "prices");
+            Other status = other(mailboxFactory, "status");
+            Sub sub = new Sub();
+            sub.initialize(mailboxFactory.createMailbox());
+            sub.setActorName("sub");
+            assertTrue(new SubscribeTopic("prices.fx.*", fx).send(future, p));
+            assertTrue(new SubscribeTopic("prices.*.eurusd", eurusd).send(future, p));
+            assertTrue(new SubscribeTopic("prices.#", prices).send(future, p));
+            assertTrue(new SubscribeTopic("prices.fx.*", prices).send(future, p));
+            assertFalse(new SubscribeTopic("prices.#", prices).send(future, p));
+            assertTrue(new SubscribeTopic("status.*", status).send(future, p));
+            assertTrue(new SubscribeTopic("#", sub).send(future, p));
+
+            assertEquals(3, (int) new PublishTopic("prices.fx.eurusd", new OtherReq()).send(future, p));
+            assertEquals(1, fx.count);
+            assertEquals(1, eurusd.count);
+            assertEquals(1, prices.count);
+            assertEquals(2, (int) new PublishTopic("prices.fx.gbpusd", new OtherReq()).send(future, p));
+            assertEquals(1, (int) new PublishTopic("prices", new OtherReq()).send(future, p));
+            assertEquals(0, (int) new PublishTopic("status.a.b", new OtherReq()).send(future, p));
+            assertEquals(1, (int) new PublishTopicEvent("status.a", new OtherReq()).send(future, p));
+            assertEquals(1, status.count);
+            assertEquals(2, fx.count);
+            assertEquals(3, prices.count);
+
+            assertTrue(new UnsubscribeTopic("prices.#", prices).send(future, p));
+            assertFalse(new UnsubscribeTopic("prices.#", prices).send(future, p));
+            assertEquals(0, (int) new PublishTopic("prices", new OtherReq()).send(future, p));
+            assertEquals(2, (int) new PublishTopic("prices.fx.jpy", new OtherReq()).send(future, p));
+            assertTrue(p.unsubscribe(prices));
+            assertEquals(1, (int) new PublishTopic("prices.fx.jpy", new OtherReq()).send(future, p));
+            assertEquals(4, prices.count);
+            assertEquals(4, fx.count);
+
+            try {
+                new SubscribeTopic("prices.#.fx", fx).send(future, p);
+                fail();
+            } catch (IllegalArgumentException ex) {
+            }
+            try {
+                new PublishTopic("prices.*", new OtherReq()).send(future, p);
+                fail();
+            } catch (IllegalArgumentException ex) {
+            }
+        } finally {
+            mailboxFactory.close();
+        }
+    }
+
+    private Other other(MailboxFactory mailboxFactory, String name) throws Exception {
+        Other other = new Other();
+        other.initialize(mailboxFactory.createMailbox());
+        other.setActorName(name);
+        return other;
+    }
+}
@@ -0,0 +1,37 @@
+package org.agilewiki.jactor.router;
+
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.SimpleRequest;
+import org.agilewiki.jactor.SimpleRequestReceiver;
+import org.agilewiki.jactor.lpc.JLPCActor;
+
+/**
+ * Sends count requests to the router without waiting,
+ * then responds with the number of requests handled by each worker.
+ */
+public class Driver extends JLPCActor implements SimpleRequestReceiver {
+    public JARouter router;
+    public int count;
+
+    @Override
+    public void processRequest(SimpleRequest request, final RP rp) throws Exception {
+        final int[] counts = new int[router.getWorkerCount()];
+        RP<Object> counter = new RP<Object>() {
+            int received;
+
+            @Override
+            public void processResponse(Object id) throws Exception {
+                counts[(Integer) id] += 1;
+                received += 1;
+                if (received == count)
+                    rp.processResponse(counts);
+            }
+        };
+        Route route = new Route(new Work(null, false));
+        int i = 0;
+        while (i < count) {
+            route.send(this, router, counter);
+            i += 1;
+        }
+    }
+}
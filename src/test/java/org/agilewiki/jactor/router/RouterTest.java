@@ -0,0 +1,103 @@
+package org.agilewiki.jactor.router;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor.JAFuture;
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.SimpleRequest;
+
+public class RouterTest extends TestCase {
+    private MailboxFactory mailboxFactory;
+    private JAFuture future;
+
+    @Override
+    protected void setUp() throws Exception {
+        mailboxFactory = JAMailboxFactory.newMailboxFactory(4);
+        future = new JAFuture();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mailboxFactory.close();
+    }
+
+    private JARouter router(RoutingStrategy strategy, int workers) throws Exception {
+        JARouter router = new JARouter(strategy);
+        router.initialize(mailboxFactory.createMailbox());
+        int i = 0;
+        while (i < workers) {
+            Worker worker = new Worker(i);
+            worker.initialize(mailboxFactory.createAsyncMailbox());
+            router.addWorker(worker);
+            i += 1;
+        }
+        return router;
+    }
+
+    private int route(JARouter router, Object key) throws Exception {
+        return (Integer) new Route(new Work(key, false)).send(future, router);
+    }
+
+    public void testRoundRobin() throws Exception {
+        JARouter router = router(new RoundRobin(), 3);
+        int i = 0;
+        while (i < 6) {
+            assertEquals(i % 3, route(router, null));
+            i += 1;
+        }
+    }
+
+    public void testConsistentHash() throws Exception {
+        JARouter router = router(new ConsistentHash(), 4);
+        boolean[] used = new boolean[4];
+        int i = 0;
+        while (i < 100) {
+            int id = route(router, "key" + i);
+            assertEquals(id, route(router, "key" + i));
+            used[id] = true;
+            i += 1;
+        }
+        int c = 0;
+        for (boolean u : used)
+            if (u) c += 1;
+        assertTrue(c > 1);
+    }
+
+    public void testLeastOutstanding() throws Exception {
+        JARouter router = router(new LeastOutstanding(), 3);
+        Driver driver = new Driver();
+        driver.initialize(router.getMailbox());
+        driver.router = router;
+        driver.count = 6;
+        int[] counts = (int[]) SimpleRequest.req.send(future, driver);
+        assertEquals(2, counts[0]);
+        assertEquals(2, counts[1]);
+        assertEquals(2, counts[2]);
+        assertEquals(0, router.getOutstanding(0));
+        assertEquals(0, router.getOutstanding(1));
+        assertEquals(0, router.getOutstanding(2));
+    }
+
+    public void testRandomTwoChoices() throws Exception {
+        JARouter router = router(new RandomTwoChoices(), 3);
+        Driver driver = new Driver();
+        driver.initialize(router.getMailbox());
+        driver.router = router;
+        driver.count = 300;
+        int[] counts = (int[]) SimpleRequest.req.send(future, driver);
+        assertEquals(300, counts[0] + counts[1] + counts[2]);
+        assertTrue(counts[0] > 0 && counts[1] > 0 && counts[2] > 0);
+        assertEquals(0, router.getOutstanding(0));
+    }
+
+    public void testException() throws Exception {
+        JARouter router = router(new LeastOutstanding(), 2);
+        try {
+            new Route(new Work(null, true)).send(future, router);
+            fail();
+        } catch (IllegalStateException ex) {
+        }
+        assertEquals(0, router.getOutstanding(0));
+        assertEquals(0, route(router, null));
+    }
+}
@@ -0,0 +1,36 @@
+package org.agilewiki.jactor.router;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * Returns the id of the worker, or throws when fail is set.
+ */
+public class Work extends Request<Integer, Worker> implements RoutingKey {
+    public final Object key;
+    public final boolean fail;
+
+    public Work(Object key, boolean fail) {
+        this.key = key;
+        this.fail = fail;
+    }
+
+    @Override
+    public Object getRoutingKey() {
+        return key;
+    }
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Worker;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        if (fail)
+            throw new IllegalStateException("failed");
+        rp.processResponse(((Worker) targetActor).id);
+    }
+}
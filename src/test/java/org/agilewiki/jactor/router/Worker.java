@@ -0,0 +1,14 @@
+package org.agilewiki.jactor.router;
+
+import org.agilewiki.jactor.lpc.JLPCActor;
+
+/**
+ * Test code.
+ */
+public class Worker extends JLPCActor {
+    public final int id;
+
+    public Worker(int id) {
+        this.id = id;
+    }
+}
@@ -0,0 +1,116 @@
+package org.agilewiki.jactor.scheduler;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.MailboxFactory;
+
+public class SchedulerTest extends TestCase {
+    private MailboxFactory mailboxFactory;
+    private Ticker ticker;
+
+    @Override
+    protected void setUp() throws Exception {
+        mailboxFactory = JAMailboxFactory.newMailboxFactory(4);
+        ticker = new Ticker();
+        ticker.initialize(mailboxFactory.createAsyncMailbox());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mailboxFactory.close();
+    }
+
+    public void testEvent() throws Exception {
+        ticker.latch = new CountDownLatch(1);
+        long t0 = System.nanoTime();
+        mailboxFactory.scheduler().schedule(ticker, Tick.req, 50);
+        assertTrue(ticker.latch.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - t0 >= 50000000L);
+        assertEquals(1, ticker.ticks);
+    }
+
+    public void testCancel() throws Exception {
+        Timeout timeout = mailboxFactory.scheduler().schedule(ticker, Tick.req, 50);
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        Thread.sleep(150);
+        assertEquals(0, ticker.ticks);
+    }
+
+    public void testFixedRate() throws Exception {
+        ticker.latch = new CountDownLatch(3);
+        Timeout timeout = mailboxFactory.scheduler().
+                scheduleAtFixedRate(ticker, Tick.req, 0, 20);
+        assertTrue(ticker.latch.await(5, TimeUnit.SECONDS));
+        timeout.cancel();
+        Thread.sleep(50);
+        int ticks = ticker.ticks;
+        Thread.sleep(100);
+        assertEquals(ticks, ticker.ticks);
+    }
+
+    public void testClosed() throws Exception {
+        MailboxFactory closed = JAMailboxFactory.newMailboxFactory(1);
+        Scheduler scheduler = closed.scheduler();
+        closed.close();
+        try {
+            closed.scheduler();
+            fail();
+        } catch (IllegalStateException e) {
+        }
+        try {
+            scheduler.schedule(ticker, Tick.req, 50);
+            fail();
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    public void testRounds() throws Exception {
+        JAScheduler scheduler = new JAScheduler(mailboxFactory, 1, 4);
+        try {
+            final CountDownLatch latch = new CountDownLatch(1);
+            long t0 = System.nanoTime();
+            scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    latch.countDown();
+                }
+            }, 30);
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - t0 >= 30000000L);
+        } finally {
+            scheduler.close();
+        }
+    }
+
+    public void testMany() throws Exception {
+        final int n = 200000;
+        final AtomicInteger fired = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(n / 2);
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                fired.incrementAndGet();
+                latch.countDown();
+            }
+        };
+        Scheduler scheduler = mailboxFactory.scheduler();
+        Random random = new Random(42);
+        int i = 0;
+        while (i < n) {
+            Timeout timeout = scheduler.schedule(task, 50 + random.nextInt(150));
+            if (i % 2 == 0)
+                timeout.cancel();
+            i += 1;
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(n / 2, fired.get());
+    }
+}
@@ -0,0 +1,27 @@
+package org.agilewiki.jactor.scheduler;
+
+import org.agilewiki.jactor.Actor;
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.lpc.JLPCActor;
+import org.agilewiki.jactor.lpc.Request;
+
+/**
+ * A timer event.
+ */
+public class Tick extends Request<Object, Ticker> {
+    public final static Tick req = new Tick();
+
+    @Override
+    public boolean isTargetType(Actor targetActor) {
+        return targetActor instanceof Ticker;
+    }
+
+    @Override
+    public void processRequest(JLPCActor targetActor, RP rp) throws Exception {
+        Ticker ticker = (Ticker) targetActor;
+        ticker.ticks += 1;
+        if (ticker.latch != null)
+            ticker.latch.countDown();
+        rp.processResponse(null);
+    }
+}
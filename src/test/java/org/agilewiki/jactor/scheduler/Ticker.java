@@ -0,0 +1,13 @@
+package org.agilewiki.jactor.scheduler;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.agilewiki.jactor.lpc.JLPCActor;
+
+/**
+ * Counts the ticks it receives.
+ */
+public class Ticker extends JLPCActor {
+    public volatile int ticks;
+    public CountDownLatch latch;
+}
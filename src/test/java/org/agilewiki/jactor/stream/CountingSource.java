@@ -0,0 +1,27 @@
+package org.agilewiki.jactor.stream;
+
+import java.util.Iterator;
+
+/**
+ * Records the most credit ever held.
+ */
+public class CountingSource extends IteratorSource {
+    public long maxCredit;
+    public volatile boolean cancelled;
+
+    public CountingSource(Iterator iterator) {
+        super(iterator);
+    }
+
+    @Override
+    protected void demand() throws Exception {
+        if (getCredit() > maxCredit)
+            maxCredit = getCredit();
+        super.demand();
+    }
+
+    @Override
+    protected void cancelled() throws Exception {
+        cancelled = true;
+    }
+}
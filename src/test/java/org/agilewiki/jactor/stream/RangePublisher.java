@@ -0,0 +1,48 @@
+package org.agilewiki.jactor.stream;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Publishes the integers from 1 to count, outside of any actor,
+ * emitting on the thread which requests them.
+ */
+public class RangePublisher implements StreamPublisher {
+    private final int count;
+    public final CountDownLatch cancelled = new CountDownLatch(1);
+    public long maxCredit;
+
+    public RangePublisher(int count) {
+        this.count = count;
+    }
+
+    @Override
+    public void subscribe(final StreamSubscriber subscriber) {
+        subscriber.onSubscribe(new StreamSubscription() {
+            private int next = 1;
+            private long credit;
+            private boolean done;
+
+            @Override
+            public synchronized void request(long n) {
+                credit += n;
+                if (credit > maxCredit)
+                    maxCredit = credit;
+                while (credit > 0 && next <= count && !done) {
+                    credit -= 1;
+                    subscriber.onNext(next);
+                    next += 1;
+                }
+                if (next > count && !done) {
+                    done = true;
+                    subscriber.onComplete();
+                }
+            }
+
+            @Override
+            public synchronized void cancel() {
+                done = true;
+                cancelled.countDown();
+            }
+        });
+    }
+}
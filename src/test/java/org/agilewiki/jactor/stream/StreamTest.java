@@ -0,0 +1,204 @@
+package org.agilewiki.jactor.stream;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor.JAFuture;
+import org.agilewiki.jactor.JAMailboxFactory;
+import org.agilewiki.jactor.MailboxFactory;
+import org.agilewiki.jactor.SimpleRequest;
+
+public class StreamTest extends TestCase {
+    private MailboxFactory mailboxFactory;
+
+    @Override
+    protected void setUp() throws Exception {
+        mailboxFactory = JAMailboxFactory.newMailboxFactory(4);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mailboxFactory.close();
+    }
+
+    private Iterator integers(int count) {
+        List<Integer> list = new ArrayList<Integer>();
+        int i = 1;
+        while (i <= count) {
+            list.add(i);
+            i += 1;
+        }
+        return list.iterator();
+    }
+
+    public void testAsync() throws Exception {
+        CountingSource source = new CountingSource(integers(10000));
+        source.initialize(mailboxFactory.createAsyncMailbox());
+        SumSink sink = new SumSink(16);
+        sink.initialize(mailboxFactory.createAsyncMailbox());
+        sink.source = source;
+        assertEquals(50005000L, SimpleRequest.req.send(new JAFuture(), sink));
+        assertEquals(10000, sink.count);
+        assertTrue(source.maxCredit <= 16);
+        assertTrue(source.isTerminated());
+    }
+
+    public void testSync() throws Exception {
+        CountingSource source = new CountingSource(integers(100000));
+        source.initialize(mailboxFactory.createMailbox());
+        SumSink sink = new SumSink(16);
+        sink.initialize(source.getMailbox());
+        sink.source = source;
+        assertEquals(5000050000L, SimpleRequest.req.send(new JAFuture(), sink));
+        assertTrue(source.maxCredit <= 16);
+    }
+
+    public void testCancel() throws Exception {
+        CountingSource source = new CountingSource(integers(10000));
+        source.initialize(mailboxFactory.createAsyncMailbox());
+        SumSink sink = new SumSink(4);
+        sink.initialize(mailboxFactory.createAsyncMailbox());
+        sink.source = source;
+        sink.limit = 10;
+        assertEquals(55L, SimpleRequest.req.send(new JAFuture(), sink));
+        int i = 0;
+        while (!source.cancelled && i < 100) {
+            Thread.sleep(10);
+            i += 1;
+        }
+        assertTrue(source.cancelled);
+        assertTrue(source.maxCredit <= 4);
+    }
+
+    public void testSecondSubscriber() throws Exception {
+        CountingSource source = new CountingSource(integers(10));
+        source.initialize(mailboxFactory.createAsyncMailbox());
+        SumSink sink = new SumSink(4);
+        sink.initialize(mailboxFactory.createAsyncMailbox());
+        sink.source = source;
+        sink.limit = 1;
+        SimpleRequest.req.send(new JAFuture(), sink);
+        SumSink sink2 = new SumSink(4);
+        sink2.initialize(mailboxFactory.createAsyncMailbox());
+        sink2.source = source;
+        try {
+            SimpleRequest.req.send(new JAFuture(), sink2);
+            fail();
+        } catch (IllegalStateException ex) {
+        }
+    }
+
+    public void testSubscriberAdapter() throws Exception {
+        CountingSource source = new CountingSource(integers(100));
+        source.initialize(mailboxFactory.createAsyncMailbox());
+        final List<Object> received = new ArrayList<Object>();
+        final CountDownLatch done = new CountDownLatch(1);
+        SubscriberAdapter adapter = new SubscriberAdapter(new StreamSubscriber() {
+            StreamSubscription subscription;
+
+            @Override
+            public void onSubscribe(StreamSubscription subscription) {
+                this.subscription = subscription;
+                subscription.request(3);
+            }
+
+            @Override
+            public void onNext(Object element) {
+                received.add(element);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable exception) {
+            }
+
+            @Override
+            public void onComplete() {
+                done.countDown();
+            }
+        });
+        adapter.initialize(mailboxFactory.createAsyncMailbox());
+        adapter.subscribe(source);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(100, received.size());
+        assertEquals(1, received.get(0));
+        assertEquals(100, received.get(99));
+        assertTrue(source.maxCredit <= 3);
+    }
+
+    public void testPublisherAdapter() throws Exception {
+        RangePublisher publisher = new RangePublisher(10000);
+        PublisherAdapter adapter = new PublisherAdapter(publisher);
+        adapter.initialize(mailboxFactory.createAsyncMailbox());
+        SumSink sink = new SumSink(16);
+        sink.initialize(mailboxFactory.createAsyncMailbox());
+        sink.source = adapter;
+        assertEquals(50005000L, SimpleRequest.req.send(new JAFuture(), sink));
+        assertEquals(10000, sink.count);
+        assertTrue(publisher.maxCredit <= 16);
+
+        SumSink sink2 = new SumSink(4);
+        sink2.initialize(mailboxFactory.createAsyncMailbox());
+        sink2.source = adapter;
+        try {
+            SimpleRequest.req.send(new JAFuture(), sink2);
+            fail();
+        } catch (IllegalStateException ex) {
+        }
+    }
+
+    public void testPublisherAdapterCancel() throws Exception {
+        RangePublisher publisher = new RangePublisher(10000);
+        PublisherAdapter adapter = new PublisherAdapter(publisher);
+        adapter.initialize(mailboxFactory.createAsyncMailbox());
+        SumSink sink = new SumSink(4);
+        sink.initialize(mailboxFactory.createAsyncMailbox());
+        sink.source = adapter;
+        sink.limit = 10;
+        assertEquals(55L, SimpleRequest.req.send(new JAFuture(), sink));
+        assertTrue(publisher.cancelled.await(10, TimeUnit.SECONDS));
+        assertTrue(publisher.maxCredit <= 4);
+    }
+
+    public void testCancelBeforeSubscribed() throws Exception {
+        final StreamSubscriber[] subscriber = new StreamSubscriber[1];
+        PublisherAdapter adapter = new PublisherAdapter(new StreamPublisher() {
+            @Override
+            public void subscribe(StreamSubscriber s) {
+                subscriber[0] = s;
+            }
+        });
+        adapter.initialize(mailboxFactory.createAsyncMailbox());
+        SumSink sink = new SumSink(4);
+        sink.initialize(mailboxFactory.createAsyncMailbox());
+        adapter.subscribe(sink);
+        adapter.cancel();
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        subscriber[0].onSubscribe(new StreamSubscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+                cancelled.countDown();
+            }
+        });
+        assertEquals(0, cancelled.getCount());
+    }
+
+    public void testCompleteWithoutSink() throws Exception {
+        CountingSource source = new CountingSource(integers(10));
+        source.initialize(mailboxFactory.createAsyncMailbox());
+        source.complete();
+        assertTrue(source.isTerminated());
+        CountingSource failed = new CountingSource(integers(10));
+        failed.initialize(mailboxFactory.createAsyncMailbox());
+        failed.error(new Exception("failed"));
+        assertTrue(failed.isTerminated());
+    }
+}
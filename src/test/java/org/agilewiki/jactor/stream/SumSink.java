@@ -0,0 +1,47 @@
+package org.agilewiki.jactor.stream;
+
+import org.agilewiki.jactor.RP;
+import org.agilewiki.jactor.SimpleRequest;
+import org.agilewiki.jactor.SimpleRequestReceiver;
+
+/**
+ * Sums a stream of integers, responding when the stream completes
+ * or once limit elements have been received.
+ */
+public class SumSink extends JAStreamSink implements SimpleRequestReceiver {
+    public StreamSource source;
+    public int limit = Integer.MAX_VALUE;
+    public int count;
+    public long sum;
+    private RP rp;
+
+    public SumSink(int window) {
+        super(window);
+    }
+
+    @Override
+    public void processRequest(SimpleRequest request, RP rp) throws Exception {
+        this.rp = rp;
+        subscribeTo(source);
+    }
+
+    @Override
+    protected void processElement(Object element) throws Exception {
+        count += 1;
+        sum += (Integer) element;
+        if (count == limit) {
+            cancel();
+            rp.processResponse(sum);
+        }
+    }
+
+    @Override
+    protected void processComplete() throws Exception {
+        rp.processResponse(sum);
+    }
+
+    @Override
+    protected void processError(Throwable exception) throws Exception {
+        rp.processResponse(exception);
+    }
+}